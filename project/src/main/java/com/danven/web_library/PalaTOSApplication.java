@@ -11,10 +11,12 @@ import com.danven.web_library.domain.user.Address;
 import com.danven.web_library.domain.user.Customer;
 import com.danven.web_library.domain.user.Employee;
 import com.danven.web_library.repository.*;
+import com.danven.web_library.service.ImageStore;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +34,7 @@ import java.util.Set;
  * products (with images), a sample order, and feedback.
  */
 @SpringBootApplication
+@EnableScheduling
 public class PalaTOSApplication implements CommandLineRunner {
 
     private final CustomerRepository customerRepo;
@@ -41,6 +44,7 @@ public class PalaTOSApplication implements CommandLineRunner {
     private final OrderServiceRepository orderServiceRepo;
     private final OrderRepository orderRepo;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final ImageStore imageStore;
 
     public PalaTOSApplication(
             CustomerRepository customerRepo,
@@ -49,7 +53,8 @@ public class PalaTOSApplication implements CommandLineRunner {
             ProductRepository productRepo,
             OrderServiceRepository orderServiceRepo,
             OrderRepository orderRepo,
-            BCryptPasswordEncoder passwordEncoder
+            BCryptPasswordEncoder passwordEncoder,
+            ImageStore imageStore
     ) {
         this.customerRepo     = customerRepo;
         this.employeeRepo     = employeeRepo;
@@ -58,6 +63,7 @@ public class PalaTOSApplication implements CommandLineRunner {
         this.orderServiceRepo = orderServiceRepo;
         this.orderRepo        = orderRepo;
         this.passwordEncoder  = passwordEncoder;
+        this.imageStore       = imageStore;
     }
 
     /**
@@ -177,17 +183,17 @@ public class PalaTOSApplication implements CommandLineRunner {
         // 4a) Load image files and attach to products
         try {
             // Pancake, Espresso, FruitSalad: one image each
-            pancake.addImage(new Image(load("picture1.jpg"), ImageFormat.JPG, true, pancake));
-            espresso.addImage(new Image(load("picture2.jpg"), ImageFormat.JPG, true, espresso));
-            fruitSalad.addImage(new Image(load("picture3.jpg"), ImageFormat.JPG, true, fruitSalad));
+            pancake.addImage(new Image(store("picture1.jpg"), ImageFormat.JPG, true, pancake));
+            espresso.addImage(new Image(store("picture2.jpg"), ImageFormat.JPG, true, espresso));
+            fruitSalad.addImage(new Image(store("picture3.jpg"), ImageFormat.JPG, true, fruitSalad));
 
             // Shake: first = preview, second = not preview
-            shake.addImage(new Image(load("picture5.jpg"), ImageFormat.JPG, true, shake));  // preview
-            shake.addImage(new Image(load("picture4.jpg"), ImageFormat.JPG, false, shake)); // not preview
+            shake.addImage(new Image(store("picture5.jpg"), ImageFormat.JPG, true, shake));  // preview
+            shake.addImage(new Image(store("picture4.jpg"), ImageFormat.JPG, false, shake)); // not preview
 
             // Smoothie: first = preview, second = not preview
-            smoothie.addImage(new Image(load("picture6.jpg"), ImageFormat.JPG, true, smoothie));     // preview
-            smoothie.addImage(new Image(load("picture7.jpeg"), ImageFormat.JPEG, false, smoothie));  // not preview
+            smoothie.addImage(new Image(store("picture6.jpg"), ImageFormat.JPG, true, smoothie));     // preview
+            smoothie.addImage(new Image(store("picture7.jpeg"), ImageFormat.JPEG, false, smoothie));  // not preview
         } catch (IOException e) {
             System.err.println("⚠️ Failed to load one or more images: " + e.getMessage());
         }
@@ -222,6 +228,17 @@ public class PalaTOSApplication implements CommandLineRunner {
         System.out.println("Data initialization complete with updated categories.");
     }
 
+    /**
+     * Helper to copy a sample image into the {@link ImageStore}.
+     *
+     * @param filename the image filename under static/images
+     * @return the content hash of the stored image
+     * @throws IOException if the file cannot be read or stored
+     */
+    private String store(String filename) throws IOException {
+        return imageStore.put(load(filename));
+    }
+
     /**
      * Helper to load a classpath resource from static/images.
      *
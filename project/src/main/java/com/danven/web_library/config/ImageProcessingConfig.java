@@ -0,0 +1,36 @@
+package com.danven.web_library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration of the background executor generating image derivatives.
+ * The pool and its queue are bounded so that a burst of uploads cannot
+ * exhaust memory with decoded images; rejected work is picked up later by
+ * the derivative backfill.
+ */
+@Configuration
+public class ImageProcessingConfig {
+
+    /**
+     * Executor running the image derivative pipeline.
+     *
+     * @param threads       number of worker threads
+     * @param queueCapacity maximum number of queued images
+     * @return the bounded executor
+     */
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor(
+            @Value("${palatos.image-processing.threads:2}") int threads,
+            @Value("${palatos.image-processing.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-derivatives-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
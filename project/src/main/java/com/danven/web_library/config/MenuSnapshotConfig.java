@@ -0,0 +1,52 @@
+package com.danven.web_library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration of the background executors keeping menu consumers current:
+ * the one rebuilding the menu snapshot and the one pushing menu changes to
+ * connected clients.
+ */
+@Configuration
+public class MenuSnapshotConfig {
+
+    /**
+     * Executor running menu snapshot rebuilds.
+     * A single thread keeps rebuilds ordered; pending requests are coalesced by
+     * the snapshot service, so at most one rebuild is ever queued.
+     *
+     * @return the single-threaded executor
+     */
+    @Bean(name = "menuSnapshotExecutor")
+    public ThreadPoolTaskExecutor menuSnapshotExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("menu-snapshot-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Executor writing menu change events to connected clients. Each client
+     * is drained by at most one task at a time, so a stalled connection only
+     * ever blocks one thread.
+     *
+     * @param threads number of worker threads
+     * @return the bounded executor
+     */
+    @Bean(name = "menuStreamExecutor")
+    public ThreadPoolTaskExecutor menuStreamExecutor(
+            @Value("${palatos.menu-stream.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("menu-stream-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
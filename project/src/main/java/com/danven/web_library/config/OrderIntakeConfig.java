@@ -0,0 +1,30 @@
+package com.danven.web_library.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration of the thread writing submitted orders to the database.
+ */
+@Configuration
+public class OrderIntakeConfig {
+
+    /**
+     * Executor running the single order writer. It holds exactly one
+     * long-running task, so it has one thread and no queue.
+     *
+     * @return the executor
+     */
+    @Bean(name = "orderIntakeExecutor")
+    public ThreadPoolTaskExecutor orderIntakeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("order-intake-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
@@ -0,0 +1,53 @@
+package com.danven.web_library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration of the executors pushing order changes to kitchen displays
+ * and to the customers who placed the orders.
+ */
+@Configuration
+public class OrderStreamConfig {
+
+    /**
+     * Executor writing order changes to connected displays. Each display is
+     * drained by at most one task at a time, so a stalled connection only
+     * ever blocks one thread.
+     *
+     * @param threads number of worker threads
+     * @return the bounded executor
+     */
+    @Bean(name = "kitchenDisplayExecutor")
+    public ThreadPoolTaskExecutor kitchenDisplayExecutor(
+            @Value("${palatos.kitchen-display.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("kitchen-display-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Executor writing order state changes to connected customers, drained
+     * per connection like the kitchen displays.
+     *
+     * @param threads number of worker threads
+     * @return the bounded executor
+     */
+    @Bean(name = "orderStreamExecutor")
+    public ThreadPoolTaskExecutor orderStreamExecutor(
+            @Value("${palatos.order-stream.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("order-stream-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
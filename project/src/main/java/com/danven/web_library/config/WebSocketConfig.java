@@ -0,0 +1,28 @@
+package com.danven.web_library.config;
+
+import com.danven.web_library.controller.KitchenDisplaySocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registers the WebSocket endpoints. The kitchen display endpoint lives
+ * under /employee, so only employees can open it; cross-origin handshakes
+ * are refused.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final KitchenDisplaySocketHandler kitchenDisplayHandler;
+
+    public WebSocketConfig(KitchenDisplaySocketHandler kitchenDisplayHandler) {
+        this.kitchenDisplayHandler = kitchenDisplayHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(kitchenDisplayHandler, "/employee/kitchen/ws");
+    }
+}
@@ -0,0 +1,31 @@
+package com.danven.web_library.controller;
+
+import com.danven.web_library.dto.CacheStatisticsDto;
+import com.danven.web_library.service.CacheStatisticsService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the Hibernate cache statistics to employees for monitoring.
+ */
+@RestController
+@RequestMapping("/employee/cache")
+@PreAuthorize("hasRole('EMPLOYEE')")
+public class CacheStatisticsController {
+
+    private final CacheStatisticsService cacheStatistics;
+
+    public CacheStatisticsController(CacheStatisticsService cacheStatistics) {
+        this.cacheStatistics = cacheStatistics;
+    }
+
+    /**
+     * @return hit, miss and put counts in total and per cache region
+     */
+    @GetMapping("/statistics")
+    public CacheStatisticsDto statistics() {
+        return cacheStatistics.current();
+    }
+}
@@ -5,14 +5,15 @@ import com.danven.web_library.domain.order.Order;
 import com.danven.web_library.domain.order.OrderService;
 import com.danven.web_library.domain.order.OrderStatus;
 import com.danven.web_library.domain.order.PaymentStatus;
+import com.danven.web_library.domain.product.Product;
 import com.danven.web_library.domain.product.ProductOrder;
 import com.danven.web_library.domain.user.Customer;
 import com.danven.web_library.domain.user.User;
-import com.danven.web_library.dto.ImageDto;
 import com.danven.web_library.repository.OrderServiceRepository;
 import com.danven.web_library.service.CustomerService;
-import com.danven.web_library.service.ImageService;
-import com.danven.web_library.service.OrderPersistenceService;
+import com.danven.web_library.service.OrderIntake;
+import com.danven.web_library.service.PopularityTracker;
+import com.danven.web_library.service.PreviewImageResolver;
 import com.danven.web_library.service.ProductService;
 import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
@@ -22,13 +23,14 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.http.HttpSession;
-import java.math.BigDecimal;
+import javax.validation.ValidationException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -40,24 +42,27 @@ import java.util.stream.Collectors;
 public class CartController {
 
     private final ProductService           productService;
-    private final ImageService             imageService;
+    private final PreviewImageResolver     previewResolver;
     private final CustomUserDetailsService userDetailsService;
-    private final OrderPersistenceService  orderPersister;
     private final OrderServiceRepository   orderServiceRepo;
     private final CustomerService          customerService;
+    private final PopularityTracker        popularity;
+    private final OrderIntake              orderIntake;
 
     public CartController(ProductService productService,
-                          ImageService imageService,
+                          PreviewImageResolver previewResolver,
                           CustomUserDetailsService userDetailsService,
-                          OrderPersistenceService orderPersister,
                           OrderServiceRepository orderServiceRepo,
-                          CustomerService customerService) {
+                          CustomerService customerService,
+                          PopularityTracker popularity,
+                          OrderIntake orderIntake) {
         this.productService     = productService;
-        this.imageService       = imageService;
+        this.previewResolver    = previewResolver;
         this.userDetailsService = userDetailsService;
-        this.orderPersister     = orderPersister;
         this.orderServiceRepo   = orderServiceRepo;
         this.customerService    = customerService;
+        this.popularity         = popularity;
+        this.orderIntake        = orderIntake;
     }
 
     /**
@@ -107,27 +112,19 @@ public class CartController {
         // Otherwise, render the live cart exactly as before
         List<ProductOrder> items = new ArrayList<>(cart.getProductOrders());
         model.addAttribute("items",         items);
-        model.addAttribute("productsTotal", BigDecimal.valueOf(cart.calculateTotalAmount()));
-        model.addAttribute("serviceFee",    BigDecimal.valueOf(cart.calculateServiceFee()));
-        model.addAttribute("orderTotal",    BigDecimal.valueOf(cart.calculateFinalPrice()));
+        model.addAttribute("productsTotal", cart.getSubtotal().toBigDecimal());
+        model.addAttribute("serviceFee",    cart.getServiceFee().toBigDecimal());
+        model.addAttribute("orderTotal",    cart.getFinalPrice().toBigDecimal());
         model.addAttribute("dateTime",
                 cart.getOrderTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
         model.addAttribute("user",          cart.getCustomer());
         model.addAttribute("activeTab",     "cart");
 
-        // Build previewMap: productId → single base64 preview image
-        Map<Long,String> previewMap = items.stream()
-                .map(po -> po.getProduct().getId())
-                .distinct()
-                .collect(Collectors.toMap(
-                        pid -> pid,
-                        pid -> imageService.findAllByProduct(pid).stream()
-                                .filter(ImageDto::isPreview)
-                                .map(ImageDto::getBase64Data)
-                                .findFirst()
-                                .orElse(""),    // empty = no preview
-                        (a,b)->a             // in case of duplicates
-                ));
+        // Build previewMap: productId → URL of the single preview image ("" = no preview)
+        Map<Long,String> previewMap = previewResolver.resolvePreviewUrls(
+                items.stream()
+                        .map(po -> po.getProduct().getId())
+                        .collect(Collectors.toSet()));
         model.addAttribute("previewMap", previewMap);
 
         // CSRF token (for inline clear/update)
@@ -206,17 +203,21 @@ public class CartController {
 
     /**
      * Submits the current cart as a finalized order:
-     * synchronizes quantities, sets metadata, persists, and clears session.
+     * synchronizes quantities, sets metadata, hands a copy of the cart to the
+     * {@link OrderIntake} and answers once its batch has committed. The cart
+     * leaves the session right away, so a second click cannot submit it twice,
+     * and comes back if the submission fails.
      *
      * @param tableNumber the table number for the order
      * @param notes       any customer notes
      * @param productId   list of product IDs from the form
      * @param qty         corresponding list of quantities
      * @param session     the HTTP session containing the cart
-     * @return redirect to "/orders" after submission
+     * @return redirect to the new order after submission, or back to the cart if it was
+     *         invalid or failed
      */
     @PostMapping("/submit")
-    public String submitOrder(
+    public CompletableFuture<String> submitOrder(
             @RequestParam int tableNumber,
             @RequestParam String notes,
             @RequestParam List<Long> productId,
@@ -224,8 +225,8 @@ public class CartController {
             HttpSession session) {
 
         Order cart = (Order) session.getAttribute("order");
-        if (cart == null) {
-            return "redirect:/menu";
+        if (cart == null || cart.getProductOrders().isEmpty()) {
+            return CompletableFuture.completedFuture("redirect:/menu");
         }
 
         // 1) Sync the quantities from the form into the in-memory cart
@@ -245,11 +246,57 @@ public class CartController {
         cart.setNotes(notes);
         cart.setOrderTime(LocalDateTime.now());
 
-        // 3) Persist and clear the session
-        orderPersister.save(cart);
+        // 3) Queue a copy for the next batch and clear the session
         session.removeAttribute("order");
+        CompletableFuture<Long> submitted;
+        try {
+            submitted = orderIntake.submit(toSubmission(cart));
+        } catch (ValidationException e) {
+            session.setAttribute("order", cart);
+            return CompletableFuture.completedFuture("redirect:/cart?submitError");
+        }
+        return submitted
+                .thenApply(orderId -> {
+                    // 4) Count the ordered units towards the trending ranking (in memory only)
+                    cart.getProductOrders().forEach(po ->
+                            popularity.record(po.getProduct().getId(), po.getAmount()));
+                    return "redirect:/orders/" + orderId;
+                })
+                .exceptionally(e -> {
+                    if (session.getAttribute("order") == null) {
+                        session.setAttribute("order", cart);
+                    }
+                    return "redirect:/cart?submitError";
+                });
+    }
 
-        return "redirect:/orders";
+    /**
+     * Copies the cart into a new order to persist, so that the cart itself
+     * stays unsaved and can be submitted again if its batch fails. Products
+     * are looked up again, all with one query, so that the new lines attach
+     * to current entities.
+     *
+     * @param cart the session cart
+     * @return the new order
+     */
+    private Order toSubmission(Order cart) {
+        Order order = new Order(
+                cart.getTableNumber(),
+                cart.getOrderTime(),
+                OrderStatus.NEW,
+                PaymentStatus.UNPAID,
+                cart.getNotes(),
+                cart.getCustomer(),
+                cart.getOrderService());
+        Map<Long, Product> products = productService.getProductEntitiesByIds(cart.getProductOrders().stream()
+                .map(po -> po.getProduct().getId())
+                .collect(Collectors.toSet()));
+        cart.getProductOrders().forEach(po -> new ProductOrder(
+                products.get(po.getProduct().getId()),
+                order,
+                po.getAmount(),
+                po.getProductOrderPrice()));
+        return order;
     }
 
 }
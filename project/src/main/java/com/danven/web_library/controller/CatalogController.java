@@ -0,0 +1,74 @@
+package com.danven.web_library.controller;
+
+import com.danven.web_library.dto.CatalogImportResultDto;
+import com.danven.web_library.service.CatalogFormat;
+import com.danven.web_library.service.CatalogService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Controller for employees to import and export the whole product catalog.
+ * Both directions are streamed, so catalogs of any size can be transferred
+ * without being held in memory.
+ */
+@RestController
+@RequestMapping("/employee/catalog")
+@PreAuthorize("hasRole('EMPLOYEE')")
+public class CatalogController {
+
+    private final CatalogService catalogService;
+
+    public CatalogController(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    /**
+     * Imports products from the request body, sent as CSV ({@code text/csv})
+     * or JSON lines ({@code application/x-ndjson}).
+     *
+     * @param contentType the {@code Content-Type} of the body
+     * @param request     the request whose body is read as a stream
+     * @return the number of imported products and the rejected rows
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping("/import")
+    public CatalogImportResultDto importCatalog(
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            HttpServletRequest request) throws IOException {
+        CatalogFormat format = CatalogFormat.fromContentType(contentType)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                        "Expected text/csv or application/x-ndjson"));
+        return catalogService.importCatalog(request.getInputStream(), format);
+    }
+
+    /**
+     * Exports all products as a download in the requested format.
+     *
+     * @param format {@code jsonl} (default) or {@code csv}
+     * @return the streamed catalog
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCatalog(
+            @RequestParam(defaultValue = "jsonl") String format) {
+        CatalogFormat catalogFormat = CatalogFormat.fromParam(format)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format));
+        StreamingResponseBody body = out -> catalogService.exportCatalog(out, catalogFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(catalogFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("catalog." + catalogFormat.getParam())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -4,13 +4,18 @@ package com.danven.web_library.controller;
 import com.danven.web_library.domain.order.Order;
 import com.danven.web_library.domain.order.OrderStatus;
 import com.danven.web_library.domain.order.PaymentStatus;
-import com.danven.web_library.domain.product.ProductOrder;
 import com.danven.web_library.dto.EmployeeProfileUpdateDto;
-import com.danven.web_library.dto.ImageDto;
+import com.danven.web_library.dto.KitchenBoardDto;
+import com.danven.web_library.dto.OrderVersionDto;
+import com.danven.web_library.exceptions.IllegalOrderTransitionException;
+import com.danven.web_library.exceptions.OrderConflictException;
 import com.danven.web_library.service.EmployeeService;
 import com.danven.web_library.service.FeedbackService;
-import com.danven.web_library.service.ImageService;
+import com.danven.web_library.service.KitchenBoardService;
+import com.danven.web_library.service.KitchenDisplayHub;
 import com.danven.web_library.service.OrderPersistenceService;
+import com.danven.web_library.service.OrderStateService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.web.csrf.CsrfToken;
@@ -19,13 +24,13 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.security.Principal;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.Set;
 
 /**
  * Controller for employees to view and manage all customer orders.
@@ -36,21 +41,28 @@ import java.util.stream.Collectors;
 @RequestMapping("/employee")
 @PreAuthorize("hasRole('EMPLOYEE')")
 public class EmployeeOrderController {
+    private static final int MAX_BOARD_PAGE_SIZE = 100;
 
     private final OrderPersistenceService orderService;
     private final EmployeeService         employeeService;
-    private final ImageService            imageService;
     private final FeedbackService feedbackService;
+    private final KitchenBoardService     kitchenBoard;
+    private final KitchenDisplayHub       kitchenDisplay;
+    private final OrderStateService       orderStates;
 
 
     public EmployeeOrderController(OrderPersistenceService orderService,
                                    EmployeeService employeeService,
-                                   ImageService imageService,
-                                   FeedbackService feedbackService) {
+                                   FeedbackService feedbackService,
+                                   KitchenBoardService kitchenBoard,
+                                   KitchenDisplayHub kitchenDisplay,
+                                   OrderStateService orderStates) {
         this.orderService    = orderService;
         this.employeeService = employeeService;
-        this.imageService    = imageService;
         this.feedbackService = feedbackService;
+        this.kitchenBoard    = kitchenBoard;
+        this.kitchenDisplay  = kitchenDisplay;
+        this.orderStates     = orderStates;
     }
 
     /**
@@ -66,26 +78,53 @@ public class EmployeeOrderController {
         return ResponseEntity.ok().build();
     }
     /**
-     * Displays the employee dashboard ("card") with all orders and related data.
+     * Displays the employee dashboard ("card"): the kitchen board of active
+     * orders, or with filters a page of the order history. Tickets are read
+     * as flat projections, so the page costs the same however many orders
+     * have ever been placed. The unfiltered board then keeps itself current
+     * over the kitchen display WebSocket, starting from the position read
+     * before the tickets.
      *
+     * @param status    statuses to show; none for the active board
+     * @param table     table to show, or none for all
+     * @param from      earliest order time (inclusive), or none
+     * @param to        latest order time (exclusive), or none
+     * @param cursor    the cursor of the next page, or none for the first page
+     * @param size      page size (1–{@value #MAX_BOARD_PAGE_SIZE})
      * @param model     Spring MVC model for view attributes
      * @param principal security principal of the logged-in employee
      * @return the view name "employee/card"
      */
     @GetMapping("/card")
-    public String viewEmployeeCard(Model model, Principal principal) {
-        List<Order> allOrders = orderService.findAll();
-
-        // Build a map: ProductOrder.id → List<ImageDto>
-        Map<Long, List<ImageDto>> imageMap = allOrders.stream()
-                .flatMap(o -> o.getProductOrders().stream())
-                .collect(Collectors.toMap(
-                        ProductOrder::getId,
-                        po -> imageService.findAllByProduct(po.getProduct().getId())
-                ));
-
-        model.addAttribute("orders",   allOrders);
-        model.addAttribute("imageMap", imageMap);
+    public String viewEmployeeCard(
+            @RequestParam(value = "status", required = false) Set<OrderStatus> status,
+            @RequestParam(value = "table", required = false) Integer table,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm") LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm") LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            Model model,
+            Principal principal) {
+        int capped = Math.max(1, Math.min(size, MAX_BOARD_PAGE_SIZE));
+        boolean live = (status == null || status.isEmpty())
+                && table == null && from == null && to == null && cursor == null;
+        // read before the board, so that live updates resume from no later than what it shows
+        KitchenDisplayHub.Position position = kitchenDisplay.position();
+        KitchenBoardDto board = kitchenBoard.getBoard(status, table, from, to, cursor, capped);
+
+        model.addAttribute("orders",       board.getTickets());
+        model.addAttribute("nextCursor",   board.getNextCursor());
+        model.addAttribute("live",         live);
+        model.addAttribute("liveEpoch",    position.getEpoch());
+        model.addAttribute("liveSeq",      position.getSeq());
+        model.addAttribute("statuses",     OrderStatus.values());
+        model.addAttribute("filterStatus", status == null ? Set.of() : status);
+        model.addAttribute("filterTable",  table);
+        model.addAttribute("filterFrom",   from);
+        model.addAttribute("filterTo",     to);
+        model.addAttribute("filterSize",   capped);
         model.addAttribute("user",     employeeService.getEmployeeByEmail(principal.getName()));
         model.addAttribute("activeTab","card");
 
@@ -98,86 +137,78 @@ public class EmployeeOrderController {
             model.addAttribute("_csrf", token);
         }
 
-        // Map order ID to whether it has feedback
-        Map<Long, Boolean> hasFeedbackMap = allOrders.stream()
-                .collect(Collectors.toMap(
-                        Order::getId,
-                        o -> feedbackService.hasFeedbacks(o.getId())
-                ));
-
-        model.addAttribute("hasFeedbackMap", hasFeedbackMap);
-
         return "employee/card";
     }
 
     /**
-     * Processes status and payment updates for a given order.
-     * If both status=SERVED and paymentStatus=PAID, marks the order COMPLETED.
+     * Processes status and payment updates for a given order through
+     * {@link OrderStateService}. If both status=SERVED and paymentStatus=PAID,
+     * the order becomes COMPLETED. A change the lifecycle forbids, or one based
+     * on a version of the order that another employee already changed, is
+     * reported on the board instead of being applied.
      *
-     * @param orderId       ID of the order to update
-     * @param status        new {@link OrderStatus} value
-     * @param paymentStatus new {@link PaymentStatus} value
+     * @param orderId            ID of the order to update
+     * @param status             new {@link OrderStatus} value
+     * @param paymentStatus      new {@link PaymentStatus} value
+     * @param version            version of the order the employee saw, if known
+     * @param redirectAttributes for reporting a rejected change
      * @return redirect to the employee card view
      */
     @PostMapping("/order/updateStatus")
     public String updateOrderStatus(@RequestParam Long orderId,
                                     @RequestParam String status,
-                                    @RequestParam String paymentStatus) {
-
-        Order o = orderService.findById(orderId);
+                                    @RequestParam String paymentStatus,
+                                    @RequestParam(required = false) Long version,
+                                    RedirectAttributes redirectAttributes) {
+        OrderStatus newStatus;
+        PaymentStatus newPayment;
         try {
-            OrderStatus newStatus     = OrderStatus.valueOf(status);
-            PaymentStatus newPayment  = PaymentStatus.valueOf(paymentStatus);
-
-            if (o.getStatus() != OrderStatus.CANCELED
-                    && o.getStatus() != OrderStatus.COMPLETED) {
-
-                o.setStatus(newStatus);
-                o.setPaymentStatus(newPayment);
-
-                if (newStatus == OrderStatus.SERVED
-                        && newPayment == PaymentStatus.PAID) {
-                    o.setStatus(OrderStatus.COMPLETED);
-                }
-
-                orderService.save(o);
-            }
-
+            newStatus  = OrderStatus.valueOf(status);
+            newPayment = PaymentStatus.valueOf(paymentStatus);
         } catch (IllegalArgumentException ignored) {
             // invalid enum values – ignore
+            return "redirect:/employee/card";
+        }
+        try {
+            orderStates.change(orderId, newStatus, newPayment, version);
+        } catch (IllegalOrderTransitionException | OrderConflictException e) {
+            redirectAttributes.addFlashAttribute("orderError", e.getMessage());
         }
-
         return "redirect:/employee/card";
     }
 
     /**
-     * Cancels or deletes a NEW order based on the flag.
+     * Cancels or deletes a NEW order based on the flag, both through
+     * {@link OrderStateService} with the version the employee saw.
      * Canceled orders remain visible; deleted orders are removed entirely.
      *
-     * @param orderId           ID of the order to cancel/delete
-     * @param deleteCompletely  true to hard-delete, false to soft-cancel
-     * @param request           HTTP servlet request for setting session flags
+     * @param orderId            ID of the order to cancel/delete
+     * @param deleteCompletely   true to hard-delete, false to soft-cancel
+     * @param version            version of the order the employee saw, if known
+     * @param request            HTTP servlet request for setting session flags
+     * @param redirectAttributes for reporting a rejected cancellation or deletion
      * @return redirect to the employee card view
      */
     @PostMapping("/order/cancel")
     public String cancelOrder(@RequestParam Long orderId,
                               @RequestParam boolean deleteCompletely,
-                              HttpServletRequest request) {
-
-        Order o = orderService.findById(orderId);
-        if (o.getStatus() == OrderStatus.NEW) {
-            if (deleteCompletely) {
-                orderService.deleteById(orderId);
-            } else {
-                o.setStatus(OrderStatus.CANCELED);
-                orderService.save(o);
-            }
-            // notify customer view
-            request.getSession()
-                    .setAttribute("employeeCanceledCustomerId",
-                            o.getCustomer().getId());
-            request.getSession().setAttribute("employeeCanceledOrder", true);
+                              @RequestParam(required = false) Long version,
+                              HttpServletRequest request,
+                              RedirectAttributes redirectAttributes) {
+
+        OrderVersionDto state;
+        try {
+            state = deleteCompletely
+                    ? orderStates.delete(orderId, version)
+                    : orderStates.cancel(orderId, version);
+        } catch (IllegalOrderTransitionException | OrderConflictException e) {
+            redirectAttributes.addFlashAttribute("orderError", e.getMessage());
+            return "redirect:/employee/card";
         }
+        // notify customer view
+        request.getSession()
+                .setAttribute("employeeCanceledCustomerId", state.getCustomerId());
+        request.getSession().setAttribute("employeeCanceledOrder", true);
 
         return "redirect:/employee/card";
     }
@@ -0,0 +1,118 @@
+package com.danven.web_library.controller;
+
+import com.danven.web_library.domain.product.ImageVariant;
+import com.danven.web_library.dto.ImageMetadataDto;
+import com.danven.web_library.service.ImageService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller streaming the raw bytes of stored product images.
+ * Images never change once uploaded, so responses carry a strong ETag
+ * (the SHA-256 of the content) and an immutable one-year cache lifetime.
+ * {@code If-None-Match} is answered from image metadata alone, without
+ * loading the bytes; byte ranges ({@code Range}) are served by Spring MVC
+ * from the returned {@link ResponseEntity}.
+ * <p>
+ * With {@code ?w=<pixels>} the smallest generated derivative covering that
+ * width is served instead of the original. Until the derivatives exist the
+ * original is returned with {@code no-cache}, so clients pick up the smaller
+ * rendition once it is ready.
+ * <p>
+ * Full responses for blobs kept as files are handed to Tomcat's sendfile
+ * support, so the bytes go from the page cache to the socket without
+ * passing through the JVM heap.
+ */
+@Controller
+@RequestMapping("/images")
+public class ImageController {
+
+    /** Cache-Control value for image responses; Spring 5 has no builder flag for "immutable". */
+    private static final String IMMUTABLE_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
+    /** Cache-Control value while a requested derivative is not generated yet. */
+    private static final String REVALIDATE_CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+
+    private static final String SENDFILE_SUPPORT  = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START    = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END      = "org.apache.tomcat.sendfile.end";
+
+    private final ImageService imageService;
+
+    public ImageController(ImageService imageService) {
+        this.imageService = imageService;
+    }
+
+    /**
+     * Streams the image with the given ID.
+     * Only numeric IDs are matched so that static files under {@code /images/}
+     * (e.g. {@code no-image.png}) keep being served as resources.
+     *
+     * @param id             the image ID
+     * @param width          optional display width in device pixels; selects a derivative
+     * @param request        the current request, used for ETag evaluation
+     * @param servletRequest the raw servlet request, used to hand the file to sendfile
+     * @return 200 with the full image, 206 for a range request,
+     *         or 304 when the client's ETag still matches
+     * @throws IOException if the stored file cannot be inspected
+     */
+    @GetMapping("/{id:\\d+}")
+    public ResponseEntity<Resource> image(@PathVariable Long id,
+                                          @RequestParam(name = "w", required = false) Integer width,
+                                          WebRequest request,
+                                          HttpServletRequest servletRequest) throws IOException {
+        ImageMetadataDto meta = null;
+        if (width != null) {
+            meta = imageService.findVariantMetadata(id, ImageVariant.smallestFor(width)).orElse(null);
+        }
+        // a requested derivative that is still being generated must not be cached for good
+        String cacheControl = meta == null && width != null ? REVALIDATE_CACHE_CONTROL : IMMUTABLE_CACHE_CONTROL;
+        if (meta == null) {
+            meta = imageService.getMetadata(id);
+        }
+        String etag = "\"" + meta.getContentHash() + "\"";
+
+        if (request.checkNotModified(etag)) {
+            // checkNotModified has already written the ETag header
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+
+        Resource content = imageService.openContent(meta.getContentHash());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(meta.getFormat().getContentType()))
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (servletRequest.getHeader(HttpHeaders.RANGE) == null
+                && content.isFile()
+                && Boolean.TRUE.equals(servletRequest.getAttribute(SENDFILE_SUPPORT))) {
+            File file = content.getFile();
+            long length = file.length();
+            servletRequest.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            servletRequest.setAttribute(SENDFILE_START, 0L);
+            servletRequest.setAttribute(SENDFILE_END, length);
+            return response.contentLength(length).build();
+        }
+        return response.body(content);
+    }
+}
@@ -0,0 +1,52 @@
+package com.danven.web_library.controller;
+
+import com.danven.web_library.dto.KitchenDisplaySubscriptionDto;
+import com.danven.web_library.service.KitchenDisplayHub;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+
+/**
+ * WebSocket endpoint of the kitchen displays. A display sends a
+ * {@link KitchenDisplaySubscriptionDto} after connecting (and again to change
+ * station); everything else is pushed by the {@link KitchenDisplayHub}.
+ */
+@Component
+public class KitchenDisplaySocketHandler extends TextWebSocketHandler {
+
+    private final KitchenDisplayHub hub;
+    private final ObjectMapper      objectMapper;
+
+    public KitchenDisplaySocketHandler(KitchenDisplayHub hub, ObjectMapper objectMapper) {
+        this.hub          = hub;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        hub.open(session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        KitchenDisplaySubscriptionDto subscription;
+        try {
+            subscription = objectMapper.readValue(message.getPayload(), KitchenDisplaySubscriptionDto.class);
+        } catch (JsonProcessingException e) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        hub.subscribe(session, subscription);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        hub.close(session);
+    }
+}
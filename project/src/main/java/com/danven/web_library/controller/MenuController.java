@@ -3,28 +3,61 @@ package com.danven.web_library.controller;
 import com.danven.web_library.config.CustomUserDetailsService;
 import com.danven.web_library.domain.user.Employee;
 import com.danven.web_library.domain.user.User;
+import com.danven.web_library.dto.FacetedMenuDto;
 import com.danven.web_library.dto.ImageDto;
 import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.dto.ProductPageDto;
+import com.danven.web_library.dto.RecommendationDto;
 import com.danven.web_library.service.CategoryService;
 import com.danven.web_library.service.ImageService;
+import com.danven.web_library.service.MenuChangeStream;
+import com.danven.web_library.service.MenuFacet;
+import com.danven.web_library.service.MenuResponseCache;
+import com.danven.web_library.service.MenuSnapshotService;
+import com.danven.web_library.service.PopularityTracker;
 import com.danven.web_library.service.ProductService;
+import com.danven.web_library.service.ProductSort;
+import com.danven.web_library.service.RecommendationService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Controller responsible for displaying the product menu and details.
- * Supports listing categories, fetching products and images via AJAX,
+ * Supports listing categories, searching, filtering and fetching products and images via AJAX,
  * and rendering the product details page.
  */
 @Controller
 @RequestMapping("/menu")
 public class MenuController {
+    private static final int MAX_SEARCH_RESULTS  = 100;
+    private static final int MAX_PAGE_SIZE       = 100;
+    private static final int MAX_RECOMMENDATIONS = 20;
+    private static final int BESTSELLERS         = 10;
+
+    /** ID of the virtual "Bestsellers" category of the product list. */
+    public static final long BESTSELLERS_CATEGORY_ID = -1L;
+
     private final CategoryService          categoryService;
     private final ProductService           productService;
     private final ImageService             imageService;
+    private final MenuSnapshotService      menuSnapshots;
+    private final MenuResponseCache        responseCache;
+    private final MenuChangeStream         changeStream;
+    private final RecommendationService    recommendations;
+    private final PopularityTracker        popularity;
     private final CustomUserDetailsService userDetailsService;
 
     /**
@@ -33,15 +66,30 @@ public class MenuController {
      * @param categoryService      service for retrieving product categories
      * @param productService       service for retrieving product data
      * @param imageService         service for retrieving product images
+     * @param menuSnapshots        holder of the current menu snapshot
+     * @param responseCache        cache of encoded menu responses
+     * @param changeStream         stream of committed menu changes
+     * @param recommendations      service for "often ordered with" suggestions
+     * @param popularity           time-decayed popularity of products
      * @param userDetailsService   service for obtaining the current user
      */
     public MenuController(CategoryService categoryService,
                           ProductService productService,
                           ImageService imageService,
+                          MenuSnapshotService menuSnapshots,
+                          MenuResponseCache responseCache,
+                          MenuChangeStream changeStream,
+                          RecommendationService recommendations,
+                          PopularityTracker popularity,
                           CustomUserDetailsService userDetailsService) {
         this.categoryService    = categoryService;
         this.productService     = productService;
         this.imageService       = imageService;
+        this.menuSnapshots      = menuSnapshots;
+        this.responseCache      = responseCache;
+        this.changeStream       = changeStream;
+        this.recommendations      = recommendations;
+        this.popularity           = popularity;
         this.userDetailsService = userDetailsService;
     }
 
@@ -63,16 +111,148 @@ public class MenuController {
     /**
      * Returns a list of products in the given category as JSON.
      * If categoryId is 0, returns all products.
+     * The body is served pre-serialized (and pre-compressed when the client
+     * accepts gzip) from the {@link MenuResponseCache}; a weak ETag derived
+     * from the menu snapshot version lets clients revalidate with
+     * {@code If-None-Match} and get a 304 while the menu is unchanged.
      *
-     * @param categoryId the ID of the category to filter by, or 0 for all
-     * @return list of {@link ProductDto}
+     * @param categoryId     the ID of the category to filter by, or 0 for all
+     * @param acceptEncoding the {@code Accept-Encoding} request header, if any
+     * @param request        the current request, used for ETag evaluation
+     * @return the JSON list of {@link ProductDto}, or 304 when the client's ETag still matches
      */
     @GetMapping("/products")
+    public ResponseEntity<byte[]> productsByCategory(
+            @RequestParam("categoryId") Long categoryId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        MenuResponseCache.EncodedBody body = responseCache.productsByCategory(menuSnapshots.current(), categoryId);
+
+        if (request.checkNotModified(body.getEtag())) {
+            // checkNotModified has already written the ETag header
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(body.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.getGzip());
+        }
+        return response.body(body.getIdentity());
+    }
+
+    /**
+     * Returns one page of the product list as slim JSON items (ID, name, price,
+     * preview image URL, category names), keyset-paginated so that every page
+     * costs the same regardless of catalog size.
+     * <p>
+     * The {@code trending} sort and the virtual "Bestsellers" category
+     * ({@value #BESTSELLERS_CATEGORY_ID}, a single page of the top products by
+     * time-decayed popularity) are served from memory without a database query.
+     *
+     * @param categoryId the ID of the category to filter by, 0 for all, or
+     *                   {@value #BESTSELLERS_CATEGORY_ID} for the bestsellers
+     * @param sort       {@code price}, {@code price-desc}, {@code name}, {@code popularity}
+     *                   or {@code trending}; ignored for the bestsellers
+     * @param cursor     the {@code nextCursor} of the previous page; omitted for the first page
+     * @param size       page size (1–{@value #MAX_PAGE_SIZE})
+     * @return the page and the cursor of the next one
+     */
+    @GetMapping("/products/page")
+    @ResponseBody
+    public ProductPageDto productPage(@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+                                      @RequestParam(value = "sort", defaultValue = "name") String sort,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "size", defaultValue = "24") int size) {
+        ProductSort order = ProductSort.fromParam(sort)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort: " + sort));
+        int capped = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (categoryId == BESTSELLERS_CATEGORY_ID) {
+            return new ProductPageDto(menuSnapshots.current().bestsellers(popularity.ranking(), BESTSELLERS), null);
+        }
+        if (order == ProductSort.TRENDING) {
+            return menuSnapshots.current().pageByPopularity(popularity.ranking(), categoryId, cursor, capped);
+        }
+        return productService.getProductPage(categoryId, order, cursor, capped);
+    }
+
+    /**
+     * Full-text search over product names, descriptions and ingredients as JSON.
+     * The last word is matched as a prefix, so the endpoint can be called on
+     * every keystroke for typeahead suggestions.
+     *
+     * @param query       the search text
+     * @param categoryIds optional category filter; products in any of them match
+     * @param limit       maximum number of results (1–{@value #MAX_SEARCH_RESULTS})
+     * @return the best matching {@link ProductDto}s, best first
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    public List<ProductDto> search(@RequestParam("q") String query,
+                                   @RequestParam(value = "categoryId", required = false) List<Long> categoryIds,
+                                   @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        int capped = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return menuSnapshots.current().search(query, categoryIds, capped);
+    }
+
+    /**
+     * Faceted filtering of the menu as JSON. Every facet is selected by its
+     * parameter name ({@code category}, {@code type}, {@code calories},
+     * {@code price}, {@code weight}, {@code alcohol}, {@code carbonated},
+     * {@code sugar}, {@code iceCream}); values may be repeated or comma-separated,
+     * e.g. {@code ?calories=0-200,200-400&alcohol=none}. Other parameters are ignored.
+     *
+     * @param params the request parameters
+     * @return the matching products and the counts of every facet value
+     */
+    @GetMapping("/filter")
+    @ResponseBody
+    public FacetedMenuDto filter(@RequestParam MultiValueMap<String, String> params) {
+        Map<MenuFacet, Set<String>> selection = new EnumMap<>(MenuFacet.class);
+        params.forEach((name, values) -> MenuFacet.fromParam(name).ifPresent(facet ->
+                selection.put(facet, values.stream()
+                        .flatMap(v -> Arrays.stream(v.split(",")))
+                        .map(String::trim)
+                        .filter(v -> !v.isEmpty())
+                        .collect(Collectors.toSet()))));
+        return menuSnapshots.current().filter(selection);
+    }
+
+    /**
+     * Server-Sent Events stream of committed menu changes. Each {@code change}
+     * event carries a {@code MenuChangeDto}; a {@code reset} event tells the
+     * client to reload the menu because changes it missed are no longer
+     * available. Browsers send {@code Last-Event-ID} when reconnecting.
+     *
+     * @param lastEventId the ID of the last event the client received, if any
+     * @return the event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeStream.subscribe(lastEventId);
+    }
+
+    /**
+     * Products often ordered together with the given ones as JSON, e.g. for
+     * the contents of the cart. Loaded by the page after rendering.
+     *
+     * @param productIds the products to find companions for
+     * @param limit      maximum number of suggestions (1–{@value #MAX_RECOMMENDATIONS})
+     * @return the suggestions, best first; empty when there are none
+     */
+    @GetMapping("/recommendations")
     @ResponseBody
-    public List<ProductDto> productsByCategory(@RequestParam("categoryId") Long categoryId) {
-        return categoryId == 0
-                ? productService.getAllProducts()
-                : productService.getProductsByCategory(categoryId);
+    public List<RecommendationDto> oftenOrderedWith(@RequestParam("productId") List<Long> productIds,
+                                                    @RequestParam(value = "limit", defaultValue = "4") int limit) {
+        int capped = Math.max(1, Math.min(limit, MAX_RECOMMENDATIONS));
+        return recommendations.recommend(productIds, capped);
     }
 
     /**
@@ -87,9 +267,30 @@ public class MenuController {
         return imageService.findAllByProduct(productId);
     }
 
+    /**
+     * @return true unless the header is missing or refuses gzip with {@code q=0}
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                boolean refused = parts.length > 1
+                        && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+                if (!refused) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Renders the product details page for a single product.
-     * Adds product DTO, preview image URI, inferred product type,
+     * Adds product DTO, preview image URL, inferred product type,
      * and user context to the model.
      *
      * @param id    the ID of the product to view
@@ -102,23 +303,15 @@ public class MenuController {
         ProductDto product = productService.getProductById(id);
         model.addAttribute("product", product);
 
-        // 2) select preview image and build data URI
-        List<ImageDto> images = imageService.findAllByProduct(id);
-        ImageDto chosen = images.stream()
+        // 2) select preview image and take its URL
+        List<ImageDto> images = product.getImages();
+        String previewUrl = images.stream()
                 .filter(ImageDto::isPreview)
                 .findFirst()
-                .orElse(images.isEmpty() ? null : images.get(0));
-
-        String previewDataUri = "";
-        if (chosen != null
-                && chosen.getBase64Data() != null
-                && !chosen.getBase64Data().isBlank()) {
-            previewDataUri = "data:image/"
-                    + chosen.getFormat().toLowerCase()
-                    + ";base64,"
-                    + chosen.getBase64Data();
-        }
-        model.addAttribute("previewImage", previewDataUri);
+                .or(() -> images.stream().findFirst())
+                .map(ImageDto::getUrl)
+                .orElse("");
+        model.addAttribute("previewImage", previewUrl);
 
         // 3) infer product type for UI
         String type;
@@ -8,10 +8,14 @@ import com.danven.web_library.domain.order.PaymentStatus;
 import com.danven.web_library.domain.user.Customer;
 import com.danven.web_library.domain.user.User;
 import com.danven.web_library.dto.FeedbackDto;
-import com.danven.web_library.dto.ImageDto;
+import com.danven.web_library.exceptions.IllegalOrderTransitionException;
+import com.danven.web_library.exceptions.OrderConflictException;
+import com.danven.web_library.service.CustomerOrderStream;
 import com.danven.web_library.service.FeedbackService;
-import com.danven.web_library.service.ImageService;
 import com.danven.web_library.service.OrderPersistenceService;
+import com.danven.web_library.service.PreviewImageResolver;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -19,6 +23,9 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
@@ -37,18 +44,21 @@ import java.util.stream.Collectors;
 public class OrderController {
 
     private final OrderPersistenceService orderService;
-    private final ImageService imageService;
+    private final PreviewImageResolver previewResolver;
     private final CustomUserDetailsService userDetails;
     private final FeedbackService feedbackService;
+    private final CustomerOrderStream orderStream;
 
     public OrderController(OrderPersistenceService orderService,
-                           ImageService imageService,
+                           PreviewImageResolver previewResolver,
                            CustomUserDetailsService userDetails,
-                           FeedbackService feedbackService) {
+                           FeedbackService feedbackService,
+                           CustomerOrderStream orderStream) {
         this.orderService = orderService;
-        this.imageService = imageService;
+        this.previewResolver = previewResolver;
         this.userDetails  = userDetails;
         this.feedbackService = feedbackService;
+        this.orderStream  = orderStream;
     }
 
     /**
@@ -66,6 +76,25 @@ public class OrderController {
         model.addAttribute("PAID_STATUS",       PaymentStatus.PAID);
     }
 
+    /**
+     * Runs a state change requested by the customer; a change the order's
+     * lifecycle forbids, or one that lost to concurrent changes, is reported
+     * as a flash message instead of failing the request.
+     *
+     * @param change             the change
+     * @param redirectAttributes where to put the message
+     * @return true if the change was applied
+     */
+    private boolean changeState(Runnable change, RedirectAttributes redirectAttributes) {
+        try {
+            change.run();
+            return true;
+        } catch (IllegalOrderTransitionException | OrderConflictException e) {
+            redirectAttributes.addFlashAttribute("orderError", e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Lists the current customer's orders, excluding canceled unless just canceled.
      *
@@ -106,17 +135,12 @@ public class OrderController {
                         || (justCanceled && o.getId().equals(canceledId)))
                 .collect(Collectors.toList());
 
-        // Build preview image map productId → base64
-        Map<Long,String> previewMap = orders.stream()
-                .flatMap(o -> o.getProductOrders().stream())
-                .collect(Collectors.toMap(
-                        po -> po.getProduct().getId(),
-                        po -> imageService.findAllByProduct(po.getProduct().getId()).stream()
-                                .filter(ImageDto::isPreview)
-                                .map(ImageDto::getBase64Data)
-                                .findFirst().orElse(""),
-                        (a, b) -> a
-                ));
+        // Build preview image map productId → image URL
+        Map<Long,String> previewMap = previewResolver.resolvePreviewUrls(
+                orders.stream()
+                        .flatMap(o -> o.getProductOrders().stream())
+                        .map(po -> po.getProduct().getId())
+                        .collect(Collectors.toSet()));
 
         ServletRequestAttributes attrs =
                 (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
@@ -136,6 +160,57 @@ public class OrderController {
     }
 
 
+    /**
+     * Server-Sent Events stream of the current customer's order states: a
+     * {@code snapshot} event with the state of every order on connect, then a
+     * {@code state} event (an {@code OrderStateDto}) per committed change.
+     *
+     * @return the event stream
+     * @throws ResponseStatusException 403 if the user is not a customer
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter stream() {
+        User u = userDetails.getLoggedInUser();
+        if (!(u instanceof Customer)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only customers have orders");
+        }
+        return orderStream.subscribe(u.getId());
+    }
+
+    /**
+     * Renders the card of a single order, for the order list to swap in when
+     * the order's state changes.
+     *
+     * @param id    order ID
+     * @param model Spring MVC model
+     * @return the card fragment
+     * @throws ResponseStatusException 404 if the order is not the customer's
+     */
+    @GetMapping("/{id}/card")
+    public String orderCard(@PathVariable Long id, Model model) {
+        User u = userDetails.getLoggedInUser();
+        Order o = orderService.findById(id);
+        if (!(u instanceof Customer) || !o.getCustomer().equals(u)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+
+        Map<Long, String> previewMap = previewResolver.resolvePreviewUrls(
+                o.getProductOrders().stream()
+                        .map(po -> po.getProduct().getId())
+                        .collect(Collectors.toSet()));
+
+        CsrfToken csrf = (CsrfToken)((ServletRequestAttributes)
+                RequestContextHolder.getRequestAttributes())
+                .getRequest().getAttribute("_csrf");
+
+        model.addAttribute("order",      o);
+        model.addAttribute("previewMap", previewMap);
+        model.addAttribute("user",       u);
+        model.addAttribute("_csrf",      csrf);
+        return "order/cardFragment";
+    }
+
     /**
      * Displays the details of a specific order if owned by the customer.
      *
@@ -163,17 +238,10 @@ public class OrderController {
         }
 
         // Build preview map as above
-        Map<Long, String> previewMap = o.getProductOrders().stream()
-                .map(po -> po.getProduct().getId())
-                .distinct()
-                .collect(Collectors.toMap(
-                        pid -> pid,
-                        pid -> imageService.findAllByProduct(pid).stream()
-                                .filter(ImageDto::isPreview)
-                                .map(ImageDto::getBase64Data)
-                                .findFirst().orElse(""),
-                        (a, b) -> a
-                ));
+        Map<Long, String> previewMap = previewResolver.resolvePreviewUrls(
+                o.getProductOrders().stream()
+                        .map(po -> po.getProduct().getId())
+                        .collect(Collectors.toSet()));
 
         CsrfToken csrf = (CsrfToken)((ServletRequestAttributes)
                 RequestContextHolder.getRequestAttributes())
@@ -191,16 +259,19 @@ public class OrderController {
     /**
      * Cancels the given order (sets status to CANCELED) and marks session flag.
      *
-     * @param id      order ID to cancel
-     * @param request HTTP request to set cancellation flag
+     * @param id                 order ID to cancel
+     * @param request            HTTP request to set cancellation flag
+     * @param redirectAttributes for reporting a rejected cancellation
      * @return redirect to "/orders"
      */
     @PostMapping("/{id}/cancel")
     public String cancel(@PathVariable Long id,
-                         HttpServletRequest request) {
-        orderService.cancel(id);
-        request.getSession().setAttribute("customerCanceledOrder", true);
-        request.getSession().setAttribute("customerCanceledOrderId", id);
+                         HttpServletRequest request,
+                         RedirectAttributes redirectAttributes) {
+        if (changeState(() -> orderService.cancel(id), redirectAttributes)) {
+            request.getSession().setAttribute("customerCanceledOrder", true);
+            request.getSession().setAttribute("customerCanceledOrderId", id);
+        }
 
         return "redirect:/orders";
     }
@@ -209,12 +280,13 @@ public class OrderController {
     /**
      * Reactivates a previously canceled order.
      *
-     * @param id order ID to reactivate
+     * @param id                 order ID to reactivate
+     * @param redirectAttributes for reporting a rejected reactivation
      * @return redirect to "/orders"
      */
     @PostMapping("/{id}/reactivate")
-    public String reactivate(@PathVariable Long id) {
-        orderService.reactivate(id);
+    public String reactivate(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        changeState(() -> orderService.reactivate(id), redirectAttributes);
         return "redirect:/orders";
     }
 
@@ -234,24 +306,26 @@ public class OrderController {
     /**
      * Marks the order as paid via card.
      *
-     * @param id order ID to pay
+     * @param id                 order ID to pay
+     * @param redirectAttributes for reporting a rejected payment
      * @return redirect to "/orders"
      */
     @PostMapping("/{id}/pay/card")
-    public String payCard(@PathVariable Long id) {
-        orderService.pay(id, PaymentStatus.PAID);
+    public String payCard(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        changeState(() -> orderService.pay(id, PaymentStatus.PAID), redirectAttributes);
         return "redirect:/orders";
     }
 
     /**
      * Marks the order as paid via cash.
      *
-     * @param id order ID to pay
+     * @param id                 order ID to pay
+     * @param redirectAttributes for reporting a rejected payment
      * @return redirect to "/orders"
      */
     @PostMapping("/{id}/pay/cash")
-    public String payCash(@PathVariable Long id) {
-        orderService.pay(id, PaymentStatus.PAID);
+    public String payCash(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        changeState(() -> orderService.pay(id, PaymentStatus.PAID), redirectAttributes);
         return "redirect:/orders";
     }
 
@@ -114,22 +114,17 @@ public class ProductController {
         ProductDto dto = productService.getProductById(id);
         List<ImageDto> imgs = dto.getImages();
 
-        String previewDataUri = "";
+        String previewUrl = "";
         if (!imgs.isEmpty()) {
             ImageDto chosen = imgs.stream()
                     .filter(ImageDto::isPreview)
                     .findFirst()
                     .orElse(imgs.get(0));
-            if (chosen.getBase64Data() != null && !chosen.getBase64Data().isBlank()) {
-                previewDataUri = "data:image/"
-                        + chosen.getFormat().toLowerCase()
-                        + ";base64,"
-                        + chosen.getBase64Data();
-            }
+            previewUrl = chosen.getUrl();
         }
 
         model.addAttribute("product", dto);
-        model.addAttribute("previewImage", previewDataUri);
+        model.addAttribute("previewImage", previewUrl);
         model.addAttribute("productType", dto.getType());
         model.addAttribute("isEmployee", isEmployee());
         model.addAttribute("user", userDetailsService.getLoggedInUser());
@@ -83,7 +83,7 @@ public class UserController {
      */
     @GetMapping("/profile/offers")
     public String offerPage(Model model, HttpSession session) {
-        // load DTOs, each ProductDto.images[].base64Data already contains the "data:image/…;base64,…" string
+        // load DTOs, each ProductDto.images[].url points at the binary image endpoint
         List<ProductDto> products = productService.getAllProducts();
 
         model.addAttribute("products", products);
@@ -85,6 +85,19 @@ public class HolidayOrderService extends OrderService {
                 !orderTime.isAfter(holidayEndTime);
     }
 
+    /**
+     * The holiday discount if the time falls within the holiday period, 0 otherwise.
+     *
+     * @param orderTime when the order was placed
+     * @return the rate between 0 and 1
+     */
+    @Override
+    public double discountRateAt(LocalDateTime orderTime) {
+        return !orderTime.isBefore(holidayStartTime) && !orderTime.isAfter(holidayEndTime)
+                ? getDiscountRate()
+                : 0.0;
+    }
+
     /**
      * Applies this holiday service to the given order.
      * If the order falls within the holiday window, a 10% discount
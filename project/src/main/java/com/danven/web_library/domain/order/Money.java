@@ -0,0 +1,171 @@
+package com.danven.web_library.domain.order;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Immutable amount of money held as a {@code long} of minor units (grosze for
+ * PLN) together with its currency.
+ * <p>
+ * Arithmetic is integer arithmetic with overflow checks; rates (service fee,
+ * discounts) are applied in basis points and rounded half-up to the minor
+ * unit, so no {@link BigDecimal} is created on the way. {@link BigDecimal} is
+ * only used at the boundaries: parsing catalog prices with {@link #of} and
+ * formatting with {@link #toBigDecimal}.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    /** Currency of all prices in the restaurant. */
+    public static final Currency PLN = Currency.getInstance("PLN");
+
+    /** Zero in the restaurant currency. */
+    public static final Money ZERO = new Money(0, PLN);
+
+    private static final long BASIS_POINTS = 10_000;
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    private final long     minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency   = currency;
+    }
+
+    /**
+     * @param minorUnits amount in grosze
+     * @return the amount in PLN
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits, PLN);
+    }
+
+    /**
+     * @param minorUnits amount in minor units of {@code currency}
+     * @param currency   the currency
+     * @return the amount
+     */
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return PLN.equals(currency) ? ofMinor(minorUnits) : new Money(minorUnits, Objects.requireNonNull(currency));
+    }
+
+    /**
+     * Converts a decimal PLN amount, rounding half-up to the grosz.
+     *
+     * @param amount the amount, e.g. a catalog price
+     * @return the amount in PLN
+     * @throws ArithmeticException if it does not fit in a {@code long} of grosze
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(PLN.getDefaultFractionDigits(), RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact());
+    }
+
+    /**
+     * @return the amount in minor units
+     */
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * @return the currency
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    /**
+     * @param quantity number of units
+     * @return this amount times {@code quantity}
+     */
+    public Money times(int quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    /**
+     * Applies a rate such as a service fee or discount. The rate is taken to
+     * four decimal places (basis points) and the result is rounded half-up
+     * (away from zero) to the minor unit.
+     *
+     * @param rate the rate, e.g. 0.10 for 10%
+     * @return this amount times {@code rate}
+     */
+    public Money timesRate(double rate) {
+        long basisPoints = Math.round(rate * BASIS_POINTS);
+        long product = Math.multiplyExact(Math.abs(minorUnits), basisPoints);
+        long rounded = (product + BASIS_POINTS / 2) / BASIS_POINTS;
+        return ofMinor(minorUnits < 0 ? -rounded : rounded, currency);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    /**
+     * @return the amount in major units as a double, for legacy callers
+     */
+    public double toDouble() {
+        return (double) minorUnits / POWERS_OF_TEN[fractionDigits()];
+    }
+
+    /**
+     * @return the amount in major units, for formatting
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits());
+    }
+
+    /**
+     * Digits of the minor unit; pseudo-currencies without one (reported as
+     * -1, e.g. gold or the test code XXX) count whole units.
+     */
+    private int fractionDigits() {
+        return Math.max(0, currency.getDefaultFractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException(
+                    "Currency mismatch: " + currency.getCurrencyCode() + " vs " + other.currency.getCurrencyCode());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money that)) return false;
+        return minorUnits == that.minorUnits && currency.equals(that.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+}
@@ -3,13 +3,15 @@ package com.danven.web_library.domain.order;
 import com.danven.web_library.domain.feedback.Feedback;
 import com.danven.web_library.domain.product.Product;
 import com.danven.web_library.domain.product.ProductOrder;
+import com.danven.web_library.domain.config.custom_types.MoneyType;
 import com.danven.web_library.domain.user.Customer;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.TypeDef;
 
 import javax.persistence.*;
 import javax.validation.ValidationException;
 import javax.validation.constraints.Min;
 import java.io.Serializable;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashSet;
@@ -20,16 +22,32 @@ import java.util.stream.Collectors;
 /**
  * Represents a customer's placed order, containing products and associated services.
  * Supports calculations for pricing, service fees, and maintains integrity constraints.
+ * <p>
+ * The totals are kept as exact {@link Money} amounts (grosze) in columns of their
+ * own and maintained incrementally as lines are added, removed or changed, so
+ * that lists and the kitchen board read them without touching the lines.
+ * <p>
+ * Status changes follow {@link OrderStateMachine} and are guarded by the
+ * optimistic-lock {@link #version}, so concurrent writers cannot silently
+ * overwrite each other.
+ * <p>
+ * The indexes serve the kitchen board, which reads active orders by status and
+ * order history by time, so its queries do not slow down as history grows.
  */
 @Entity
-@Table(name = "ORDERS")
+@Table(name = "ORDERS", indexes = {
+        @Index(name = "idx_orders_status_time_id", columnList = "status, order_time, order_id"),
+        @Index(name = "idx_orders_time_id", columnList = "order_time, order_id")
+})
+@TypeDef(name = "money", typeClass = MoneyType.class)
 public class Order implements Serializable {
 
     /**
      * Primary key identifier of the order.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "ORDER_SEQ", allocationSize = 50)
     @Column(name = "order_id")
     private Long id;
 
@@ -92,8 +110,44 @@ public class Order implements Serializable {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ProductOrder> productOrders = new HashSet<>();
 
+    /**
+     * Sum of the line subtotals.
+     */
+    @Type(type = "money")
+    @Column(name = "subtotal_minor", nullable = false)
+    private Money subtotal = Money.ZERO;
 
-    private static final double DEFAULT_SERVICE_FEE_RATE = 0.10;
+    /**
+     * Restaurant service fee on the subtotal.
+     */
+    @Type(type = "money")
+    @Column(name = "service_fee_minor", nullable = false)
+    private Money serviceFee = Money.ZERO;
+
+    /**
+     * Discount granted by the order service on subtotal plus fee.
+     */
+    @Type(type = "money")
+    @Column(name = "discount_minor", nullable = false)
+    private Money discount = Money.ZERO;
+
+    /**
+     * Amount payable: subtotal plus fee minus discount.
+     */
+    @Type(type = "money")
+    @Column(name = "final_price_minor", nullable = false)
+    private Money finalPrice = Money.ZERO;
+
+    /**
+     * Optimistic-lock version; null until the order is persisted.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+
+    /** Restaurant-wide service fee rate applied to the product subtotal. */
+    public static final double DEFAULT_SERVICE_FEE_RATE = 0.10;
 
     /**
      * Default constructor initializing a new, unpaid order in NEW status.
@@ -134,66 +188,71 @@ public class Order implements Serializable {
     }
 
     /**
-     * Calculates the total price of all ordered products.
+     * Returns the total price of all ordered products.
      *
      * @return sum of (unit price * quantity)
      */
     public double calculateTotalAmount() {
-        return productOrders.stream()
-                .map(ProductOrder::calculateSubtotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .doubleValue();
+        return subtotal.toDouble();
     }
 
 
     /**
-     * Calculates the restaurant-wide service fee at 10%.
+     * Returns the restaurant-wide service fee at 10%.
      *
      * @return service fee amount
      */
     public double calculateServiceFee() {
-        return calculateTotalAmount() * 0.10; // 10% restaurant-wide service fee
+        return serviceFee.toDouble();
     }
 
     /**
-     * Calculates final payable amount including service fee and any applicable discounts.
+     * Returns the final payable amount: the product subtotals plus the
+     * restaurant service fee (10%), less the configured service's discount
+     * if it applies at the order time.
      *
-     * @return final order price
+     * @return the total after fee and any service‐level discount
      */
+    public double calculateFinalPrice() {
+        return finalPrice.toDouble();
+    }
+
     /**
-     * Calculates the final payable amount by:
-     * 1) summing all product subtotals,
-     * 2) adding the restaurant service fee (10%),
-     * 3) then applying the configured service’s discount rate, if and only if it’s applicable.
+     * Adjusts the subtotal after a line of this order changed its amount or
+     * price, and recomputes the derived totals. Called by {@link ProductOrder}.
      *
-     * @return the total after fee and any service‐level discount
+     * @param oldLineSubtotal the line's subtotal before the change
+     * @param newLineSubtotal the line's subtotal after the change
      */
-    public double calculateFinalPrice() {
-        // 1) sum of product subtotals
-        double total      = calculateTotalAmount();
-        // 2) service fee (10% of subtotal)
-        double serviceFee = calculateServiceFee();
-        // 3) combined total before discount
-        double base       = total + serviceFee;
-
-        // default no discount
-        double discountRate = 0.0;
-
-        // if the service offers a rate >0, check applicability
-        if (orderService.getDiscountRate() > 0) {
-            if (orderService instanceof HolidayOrderService holiday) {
-                // only apply if we're in the holiday window
-                if (holiday.isHolidayApplicable(this)) {
-                    discountRate = holiday.getDiscountRate();
-                }
-            } else {
-                // any other service with a non-zero rate (e.g. future DishService)
-                discountRate = orderService.getDiscountRate();
-            }
+    public void lineSubtotalChanged(Money oldLineSubtotal, Money newLineSubtotal) {
+        subtotal = subtotal.minus(oldLineSubtotal).plus(newLineSubtotal);
+        updateDerivedTotals();
+    }
+
+    /**
+     * Recomputes all totals from the lines, e.g. after lines were changed
+     * outside the entity.
+     */
+    public void recalculateTotals() {
+        long minorUnits = 0;
+        for (ProductOrder productOrder : productOrders) {
+            minorUnits = Math.addExact(minorUnits, productOrder.calculateSubtotalPrice().getMinorUnits());
         }
+        subtotal = Money.ofMinor(minorUnits);
+        updateDerivedTotals();
+    }
 
-        // 4) apply the rate to the full amount
-        return base * (1 - discountRate);
+    /**
+     * Recomputes fee, discount and final price from the subtotal: the fee is
+     * rounded half-up to the grosz, the discount applies to subtotal plus fee
+     * and is rounded half-up as well.
+     */
+    private void updateDerivedTotals() {
+        serviceFee = subtotal.timesRate(DEFAULT_SERVICE_FEE_RATE);
+        Money base = subtotal.plus(serviceFee);
+        double rate = orderService == null || orderTime == null ? 0.0 : orderService.discountRateAt(orderTime);
+        discount   = base.timesRate(rate);
+        finalPrice = base.minus(discount);
     }
 
 
@@ -220,7 +279,10 @@ public class Order implements Serializable {
         if (productOrder.getOrder() != this) {
             throw new ValidationException("ProductOrder must reference this Order.");
         }
-        productOrders.add(productOrder);
+        if (!productOrder.isCountedByOrder() && productOrders.add(productOrder)) {
+            productOrder.setCountedByOrder(true);
+            lineSubtotalChanged(Money.ZERO, productOrder.calculateSubtotalPrice());
+        }
     }
 
     /**
@@ -229,7 +291,11 @@ public class Order implements Serializable {
      * @param productOrder product line to remove
      */
     public void removeProductOrder(ProductOrder productOrder) {
-        if (productOrders.remove(productOrder)) {
+        if (productOrder.getOrder() == this && productOrder.isCountedByOrder()) {
+            // by identity: the line's hash code changes once this order gets its ID
+            productOrders.removeIf(po -> po == productOrder);
+            productOrder.setCountedByOrder(false);
+            lineSubtotalChanged(productOrder.calculateSubtotalPrice(), Money.ZERO);
             productOrder.removeProductOrder(); // unlink both sides safely
         }
     }
@@ -357,6 +423,41 @@ public class Order implements Serializable {
     }
 
 
+    /**
+     * @return sum of the line subtotals
+     */
+    public Money getSubtotal() {
+        return subtotal;
+    }
+
+    /**
+     * @return restaurant service fee on the subtotal
+     */
+    public Money getServiceFee() {
+        return serviceFee;
+    }
+
+    /**
+     * @return discount granted by the order service
+     */
+    public Money getDiscount() {
+        return discount;
+    }
+
+    /**
+     * @return amount payable after fee and discount
+     */
+    public Money getFinalPrice() {
+        return finalPrice;
+    }
+
+    /**
+     * @return the optimistic-lock version, or null if not persisted yet
+     */
+    public Long getVersion() {
+        return version;
+    }
+
     public OrderService getOrderService() {
         return orderService;
     }
@@ -372,8 +473,14 @@ public class Order implements Serializable {
             throw new ValidationException("Order service must not be null.");
         }
         this.orderService = orderService;
+        updateDerivedTotals();
     }
 
+    /**
+     * Marks the order paid; a served order becomes COMPLETED.
+     *
+     * @throws ValidationException if it is already paid or not in progress or served
+     */
     public void processPayment() {
         if (paymentStatus == PaymentStatus.PAID) {
             throw new ValidationException("Order has already been paid.");
@@ -381,11 +488,8 @@ public class Order implements Serializable {
         if (status != OrderStatus.IN_PROGRESS && status != OrderStatus.SERVED) {
             throw new ValidationException("Order must be in progress or served before payment.");
         }
+        this.status        = OrderStateMachine.transition(status, paymentStatus, status, PaymentStatus.PAID);
         this.paymentStatus = PaymentStatus.PAID;
-
-        if (status == OrderStatus.SERVED) {
-            this.status = OrderStatus.COMPLETED;
-        }
     }
 
     /**
@@ -408,6 +512,7 @@ public class Order implements Serializable {
             throw new ValidationException("Order time must be set and not in the future.");
         }
         this.orderTime = orderTime;
+        updateDerivedTotals();
     }
 
 
@@ -420,12 +525,37 @@ public class Order implements Serializable {
         return Collections.unmodifiableSet(feedbacks);
     }
 
+    /**
+     * Creates an unsaved copy of this order with the same lines, e.g. to
+     * insert it again after the transaction that saved this one rolled back.
+     * Feedback is not copied.
+     *
+     * @return a new order in the same state, without ID
+     * @throws ValidationException if this order's fields are invalid
+     */
+    public Order copyUnsaved() {
+        Order copy = new Order(tableNumber, orderTime, status, paymentStatus, notes, customer, orderService);
+        productOrders.forEach(po -> new ProductOrder(
+                po.getProduct(), copy, po.getAmount(), po.getProductOrderPrice()));
+        return copy;
+    }
+
     /**
      * Ensures required fields and constraints before persisting or updating.
      */
     @PrePersist
     @PreUpdate
     private void validateOrderBeforeSave() {
+        validateForSave();
+    }
+
+    /**
+     * Checks the invariants enforced before every insert or update, so that
+     * callers can reject an order before handing it to the database.
+     *
+     * @throws ValidationException if a required field is missing or invalid
+     */
+    public void validateForSave() {
         if (orderTime == null || orderTime.isAfter(LocalDateTime.now())) {
             throw new ValidationException("Order time must be set and not in the future.");
         }
@@ -1,15 +1,25 @@
 package com.danven.web_library.domain.order;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.ValidationException;
+import java.time.LocalDateTime;
 
 /**
  * Abstract base class for order services (e.g., Holiday or Regular).
  * Applies service-related business logic to orders.
+ * <p>
+ * Order services are looked up for every new cart but almost never change, so
+ * they are kept in the second-level cache. The cache is declared here, on the
+ * root of the hierarchy: all subclasses share its region, so a write to any of
+ * them invalidates the entry however it is looked up.
  */
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
 @Table(name = "ORDER_SERVICE")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "order-service")
 public abstract class OrderService implements IOrderService {
 
     @Id
@@ -56,6 +66,16 @@ public abstract class OrderService implements IOrderService {
         this.discountRate = discountRate;
     }
 
+    /**
+     * Discount rate this service grants an order placed at the given time.
+     *
+     * @param orderTime when the order was placed
+     * @return the rate between 0 and 1
+     */
+    public double discountRateAt(LocalDateTime orderTime) {
+        return discountRate;
+    }
+
     /**
      * Applies this service's business logic to the given order.
      */
@@ -0,0 +1,100 @@
+package com.danven.web_library.domain.order;
+
+import com.danven.web_library.exceptions.IllegalOrderTransitionException;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The lifecycle rules of an order in one place: which status may follow
+ * which, and how the payment status constrains it.
+ * <p>
+ * Status transitions:
+ * <pre>
+ * NEW         → IN_PROGRESS, SERVED, COMPLETED, CANCELED
+ * IN_PROGRESS → SERVED, COMPLETED
+ * SERVED      → IN_PROGRESS, COMPLETED
+ * CANCELED    → NEW
+ * COMPLETED   → (final)
+ * </pre>
+ * On top of that, only IN_PROGRESS, SERVED and COMPLETED orders can be paid,
+ * payment cannot be taken back, COMPLETED requires payment, and a SERVED
+ * order that is paid becomes COMPLETED.
+ */
+public final class OrderStateMachine {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    /** Statuses in which an order may be paid. */
+    private static final Set<OrderStatus> PAYABLE =
+            EnumSet.of(OrderStatus.IN_PROGRESS, OrderStatus.SERVED, OrderStatus.COMPLETED);
+
+    static {
+        TRANSITIONS.put(OrderStatus.NEW, EnumSet.of(
+                OrderStatus.IN_PROGRESS, OrderStatus.SERVED, OrderStatus.COMPLETED, OrderStatus.CANCELED));
+        TRANSITIONS.put(OrderStatus.IN_PROGRESS, EnumSet.of(OrderStatus.SERVED, OrderStatus.COMPLETED));
+        TRANSITIONS.put(OrderStatus.SERVED, EnumSet.of(OrderStatus.IN_PROGRESS, OrderStatus.COMPLETED));
+        TRANSITIONS.put(OrderStatus.CANCELED, EnumSet.of(OrderStatus.NEW));
+        TRANSITIONS.put(OrderStatus.COMPLETED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    private OrderStateMachine() {
+    }
+
+    /**
+     * @param from current status
+     * @param to   requested status
+     * @return whether the status table allows the move; staying is always allowed
+     *         except in a final status
+     */
+    public static boolean canMove(OrderStatus from, OrderStatus to) {
+        return from == to ? !isFinal(from) : TRANSITIONS.get(from).contains(to);
+    }
+
+    /**
+     * @param status a status
+     * @return whether nothing may follow it
+     */
+    public static boolean isFinal(OrderStatus status) {
+        return TRANSITIONS.get(status).isEmpty();
+    }
+
+    /**
+     * Validates a requested change of status and payment status.
+     *
+     * @param status        current status
+     * @param paymentStatus current payment status
+     * @param targetStatus  requested status
+     * @param targetPayment requested payment status
+     * @return the status to store: {@code targetStatus}, or COMPLETED for a
+     *         paid SERVED order
+     * @throws IllegalOrderTransitionException if the rules forbid the change
+     */
+    public static OrderStatus transition(OrderStatus status,
+                                         PaymentStatus paymentStatus,
+                                         OrderStatus targetStatus,
+                                         PaymentStatus targetPayment) {
+        if (targetStatus == OrderStatus.SERVED && targetPayment == PaymentStatus.PAID) {
+            targetStatus = OrderStatus.COMPLETED;
+        }
+        if (status == targetStatus && paymentStatus == targetPayment) {
+            return targetStatus;
+        }
+        if (!canMove(status, targetStatus)) {
+            throw new IllegalOrderTransitionException(
+                    "An order cannot go from " + status + " to " + targetStatus + ".");
+        }
+        if (paymentStatus == PaymentStatus.PAID && targetPayment != PaymentStatus.PAID) {
+            throw new IllegalOrderTransitionException("A paid order cannot become unpaid.");
+        }
+        if (targetPayment == PaymentStatus.PAID && !PAYABLE.contains(targetStatus)) {
+            throw new IllegalOrderTransitionException("A " + targetStatus + " order cannot be paid.");
+        }
+        if (targetStatus == OrderStatus.COMPLETED && targetPayment != PaymentStatus.PAID) {
+            throw new IllegalOrderTransitionException("An order must be paid to be completed.");
+        }
+        return targetStatus;
+    }
+}
@@ -1,6 +1,8 @@
 package com.danven.web_library.domain.product;
 
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -13,6 +15,10 @@ import java.util.Set;
  * Represents a category of products, allowing products to be grouped under named labels.
  * Categories can be assigned to multiple {@link Product} entities (many-to-many).
  * Provides methods to manage the bidirectional relationship and ensures data integrity.
+ * <p>
+ * Categories are read on nearly every request and rarely written, so they are
+ * kept in the second-level cache. Their {@link #products} collection is not:
+ * it changes with every product write and is also filled by bulk inserts.
  */
 
 
@@ -22,6 +28,7 @@ import java.util.Set;
 )
 @Entity
 @Table(name = "CATEGORY")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 public class Category implements Serializable {
 
     /**
@@ -1,6 +1,8 @@
 package com.danven.web_library.domain.product;
 
 import com.danven.web_library.exceptions.ValidationException;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
@@ -15,6 +17,7 @@ import java.util.Set;
 public class Food extends Product {
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "food_ingredients", joinColumns = @JoinColumn(name = "food_id"))
     @Column(name = "ingredient", nullable = false)
     @NotEmpty(message = "Food must have at least one ingredient.")
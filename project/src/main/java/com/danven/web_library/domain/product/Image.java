@@ -1,18 +1,23 @@
 package com.danven.web_library.domain.product;
 
 import com.danven.web_library.exceptions.ValidationException;
+import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * Represents a binary image associated with a {@link Product}.
  * <p>
- * Stores image data, tracks its format, and whether it is
- * used as a preview. Manages a bidirectional relationship to Product,
+ * Tracks the image format, whether it is used as a preview and the
+ * SHA-256 hash of its content. The bytes themselves live in the
+ * content-addressed {@code ImageStore}; the database only keeps the hash.
+ * Manages a bidirectional relationship to Product,
  * ensuring correct linking and unlinking behavior.
  */
 @Entity
@@ -20,20 +25,22 @@ import java.util.Objects;
 public class Image implements Serializable {
 
     /**
-     * Primary key for the Image entity.
+     * Primary key for the Image entity, taken from a pooled sequence so that
+     * inserts can be batched (like the product ID).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_seq")
+    @SequenceGenerator(name = "image_seq", sequenceName = "IMAGE_SEQ", allocationSize = 50)
     @Column(name = "image_id")
     private Long id;
 
     /**
-     * Raw binary data of the image. Cannot be null.
+     * SHA-256 hex digest of the image bytes: the address of the content in the
+     * image store, also used as ETag. Cannot be null.
      */
-    @NotNull(message = "Image data must not be null.")
-    @Lob
-    @Column(name = "image", nullable = false)
-    private byte[] image;
+    @NotNull(message = "Image content hash must not be null.")
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
 
     /**
      * Format of the image (e.g., PNG, JPEG). Cannot be null.
@@ -57,6 +64,16 @@ public class Image implements Serializable {
     @JoinColumn(name = "product_id", nullable = false, updatable = false)
     private Product product;
 
+    /**
+     * Sized renditions of this image, filled in asynchronously after upload.
+     * Empty until the derivative pipeline has processed the image.
+     */
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "IMAGE_DERIVATIVE", joinColumns = @JoinColumn(name = "image_id"))
+    @MapKeyEnumerated(EnumType.STRING)
+    @MapKeyColumn(name = "variant")
+    private Map<ImageVariant, ImageDerivative> derivatives = new HashMap<>();
+
     /**
      * Default constructor for Image.
      */
@@ -66,14 +83,14 @@ public class Image implements Serializable {
     /**
      * Constructs a new Image linked to a product.
      *
-     * @param image     the binary image data; must not be null
+     * @param contentHash the SHA-256 hash of the stored content; must not be null
      * @param format    the enum format of the image; must not be null
      * @param isPreview true if this image is a preview thumbnail
      * @param product   the product to associate; must not be null
      * @throws ValidationException if linking to a different product is attempted
      */
-    public Image(byte[] image, ImageFormat format, boolean isPreview, Product product) {
-        this.image = image;
+    public Image(String contentHash, ImageFormat format, boolean isPreview, Product product) {
+        this.contentHash = contentHash;
         this.format = format;
         this.isPreview = isPreview;
         setProduct(product);
@@ -117,21 +134,22 @@ public class Image implements Serializable {
     }
 
     /**
-     * Gets the byte array representing the image.
+     * Gets the SHA-256 hex digest of the image bytes.
      *
-     * @return the image byte array.
+     * @return the content hash.
      */
-    public byte[] getImage() {
-        return image;
+    public String getContentHash() {
+        return contentHash;
     }
 
     /**
-     * Sets the byte array representing the image.
+     * Sets the SHA-256 hex digest of the image bytes, i.e. points the image
+     * at other content in the image store.
      *
-     * @param image the image byte array to set.
+     * @param contentHash the content hash to set.
      */
-    public void setImage(byte[] image) {
-        this.image = image;
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
     }
 
     /**
@@ -179,24 +197,45 @@ public class Image implements Serializable {
         return product;
     }
 
+    /**
+     * Gets the generated derivatives of the image.
+     *
+     * @return an unmodifiable view of the derivatives by variant.
+     */
+    public Map<ImageVariant, ImageDerivative> getDerivatives() {
+        return Collections.unmodifiableMap(derivatives);
+    }
+
+    /**
+     * Replaces the generated derivatives of the image.
+     *
+     * @param derivatives the derivatives by variant.
+     */
+    public void setDerivatives(Map<ImageVariant, ImageDerivative> derivatives) {
+        this.derivatives.clear();
+        this.derivatives.putAll(derivatives);
+    }
+
 
 
+    /**
+     * Equality based on the database identifier; never compares image bytes.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (!(o instanceof Image)) return false;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
         Image that = (Image) o;
-        return isPreview == that.isPreview &&
-                Objects.equals(id, that.id) &&
-                Arrays.equals(image, that.image) &&
-                format == that.format &&
-                Objects.equals(product, that.product);
+        return id != null && Objects.equals(id, that.id);
     }
 
+    /**
+     * Constant per entity class, as the ID is only assigned on persist; uses
+     * the same class as {@link #equals}, so a proxy and its target agree.
+     */
     @Override
     public int hashCode() {
-        int h = Objects.hash(id, format, isPreview, product);
-        return 31*h + Arrays.hashCode(image);
+        return Hibernate.getClass(this).hashCode();
     }
 
 }
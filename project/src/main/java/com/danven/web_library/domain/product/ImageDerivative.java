@@ -0,0 +1,86 @@
+package com.danven.web_library.domain.product;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A sized rendition of an {@link Image}, kept in the image store under its own
+ * content hash. Used as the value of {@link Image#getDerivatives()}.
+ */
+@Embeddable
+public class ImageDerivative implements Serializable {
+
+    /** SHA-256 hex digest of the derivative bytes. */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    /** Format of the derivative; the original's format when re-encoding did not pay off. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format", nullable = false)
+    private ImageFormat format;
+
+    /** Width in pixels. */
+    @Column(name = "width", nullable = false)
+    private int width;
+
+    /** Height in pixels. */
+    @Column(name = "height", nullable = false)
+    private int height;
+
+    /**
+     * Default no-args constructor required by JPA.
+     */
+    protected ImageDerivative() {
+    }
+
+    /**
+     * Constructs a derivative description.
+     *
+     * @param contentHash hash of the stored bytes
+     * @param format      format of the stored bytes
+     * @param width       width in pixels
+     * @param height      height in pixels
+     */
+    public ImageDerivative(String contentHash, ImageFormat format, int width, int height) {
+        this.contentHash = contentHash;
+        this.format = format;
+        this.width = width;
+        this.height = height;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public ImageFormat getFormat() {
+        return format;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ImageDerivative)) return false;
+        ImageDerivative that = (ImageDerivative) o;
+        return width == that.width
+                && height == that.height
+                && Objects.equals(contentHash, that.contentHash)
+                && format == that.format;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(contentHash, format, width, height);
+    }
+}
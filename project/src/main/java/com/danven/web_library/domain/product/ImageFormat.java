@@ -4,7 +4,25 @@ import java.util.Locale;
 
 public enum ImageFormat {
 
-    PNG,JPG,JPEG;
+    PNG("image/png"),
+    JPG("image/jpeg"),
+    JPEG("image/jpeg");
+
+    /**
+     * MIME type sent as {@code Content-Type} when the raw bytes are served.
+     */
+    private final String contentType;
+
+    ImageFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return the MIME type of images stored in this format
+     */
+    public String getContentType() {
+        return contentType;
+    }
 
     public static ImageFormat fromContentType(String contentType) {
         if (contentType == null) {
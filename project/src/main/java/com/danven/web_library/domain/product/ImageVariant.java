@@ -0,0 +1,57 @@
+package com.danven.web_library.domain.product;
+
+/**
+ * Sized derivatives generated for every uploaded {@link Image}.
+ * Each variant is scaled to fit a square of {@link #getMaxEdge()} pixels
+ * (never upscaled) and re-encoded as JPEG without metadata.
+ */
+public enum ImageVariant {
+
+    THUMB(200, 0.75f),
+    CARD(600, 0.80f),
+    FULL(1600, 0.85f);
+
+    /**
+     * Longest edge of the derivative, in pixels.
+     */
+    private final int maxEdge;
+
+    /**
+     * JPEG quality (0..1) used when encoding the derivative.
+     */
+    private final float quality;
+
+    ImageVariant(int maxEdge, float quality) {
+        this.maxEdge = maxEdge;
+        this.quality = quality;
+    }
+
+    /**
+     * @return the longest edge of the derivative, in pixels
+     */
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    /**
+     * @return the JPEG quality used when encoding the derivative
+     */
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * Picks the smallest variant that still covers the requested width.
+     *
+     * @param width requested width in device pixels
+     * @return the smallest adequate variant, or {@link #FULL} if none is large enough
+     */
+    public static ImageVariant smallestFor(int width) {
+        for (ImageVariant v : values()) {
+            if (v.maxEdge >= width) {
+                return v;
+            }
+        }
+        return FULL;
+    }
+}
@@ -3,12 +3,15 @@ package com.danven.web_library.domain.product;
 
 import com.danven.web_library.exceptions.ValidationException;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -19,12 +22,16 @@ import java.util.Set;
  * Contains common fields like name, description, price, calorie, and weight.
  * Also manages relationships to categories, images, and order lines.
  *
+ * Lists of products are read without join-fetching: fetching two collections
+ * in one join multiplies the rows (products x categories x images). The
+ * collections are loaded by subselect instead, one statement each.
+ *
  * Named Entity Graphs:
  * Two graphs are defined to optimize JPA fetch strategies:
  * product-with-categories-and-images:
  *       Fetches both {@link #categories} and {@link #images} when loading a Product.
- *       Useful for use cases where full product details (including categories and images)
- *       must be displayed in a single transaction.
+ *       Useful for loading a single product with full details (including
+ *       categories and images) in one query.
  * product-with-images:
  *       Fetches only {@link #images} when loading a Product.
  *       Applicable when categories are not needed, reducing join overhead.
@@ -44,15 +51,22 @@ import java.util.Set;
         )
 })
 @Entity
-@Table(name = "PRODUCT")
+@Table(name = "PRODUCT", indexes = {
+        @Index(name = "idx_product_price_id", columnList = "price, product_id"),
+        @Index(name = "idx_product_name_id", columnList = "product_name, product_id"),
+        @Index(name = "idx_product_popularity_id", columnList = "popularity, product_id")
+})
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class Product implements Serializable {
 
     /**
-     * Primary key for Product.
+     * Primary key for Product. Taken from a pooled sequence (50 values per
+     * round trip) rather than an identity column, so that inserts can be
+     * JDBC-batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "PRODUCT_SEQ", allocationSize = 50)
     @Column(name = "product_id")
     protected Long id;
 
@@ -90,8 +104,34 @@ public abstract class Product implements Serializable {
     @Column(name = "weight_grams", nullable = false)
     protected double weightInGrams;
 
+    /**
+     * Number of units ordered so far. Denormalized from the order lines so
+     * that product lists can be sorted (and keyset-paginated) by popularity
+     * using an index. Only changed by bulk updates, never by entity updates,
+     * so that saving a stale product cannot reset concurrent increments.
+     */
+    @Column(name = "popularity", nullable = false, updatable = false)
+    protected long popularity;
+
+    /**
+     * Exponentially time-decayed number of units ordered, as of
+     * {@link #decayedPopularityAt}. Maintained in memory by the
+     * {@code PopularityTracker} and only written by its periodic bulk updates.
+     */
+    @Column(name = "decayed_popularity", nullable = false, updatable = false)
+    protected double decayedPopularity;
+
+    /**
+     * When {@link #decayedPopularity} was last written; null if never.
+     */
+    @Column(name = "decayed_popularity_at", updatable = false)
+    protected Instant decayedPopularityAt;
+
     /**
      * Categories assigned to this product. Bidirectional many-to-many.
+     * Loaded by one subselect for all products of the query that loaded this
+     * one, so reading a list of products costs one extra statement however
+     * long the list is.
      */
     @ManyToMany(
             fetch = FetchType.LAZY,
@@ -102,12 +142,14 @@ public abstract class Product implements Serializable {
             joinColumns = @JoinColumn(name = "product_id"),
             inverseJoinColumns = @JoinColumn(name = "category_id")
     )
+    @Fetch(FetchMode.SUBSELECT)
 
     protected Set<Category> categories = new HashSet<>();
 
     /**
      * Images associated with this product. Bidirectional one-to-many.
      * Orphan removal ensures images are deleted when no longer linked.
+     * Loaded by subselect, like {@link #categories}.
      */
     @OneToMany(
             mappedBy = "product",
@@ -115,6 +157,7 @@ public abstract class Product implements Serializable {
             cascade = CascadeType.ALL,
             orphanRemoval = true
     )
+    @Fetch(FetchMode.SUBSELECT)
     protected Set<Image> images = new HashSet<>();
 
     /**
@@ -406,6 +449,13 @@ public abstract class Product implements Serializable {
         this.weightInGrams = weightInGrams;
     }
 
+    /**
+     * @return number of units of this product ordered so far
+     */
+    public long getPopularity() {
+        return popularity;
+    }
+
     /**
      * Equality based on the database identifier.
      */
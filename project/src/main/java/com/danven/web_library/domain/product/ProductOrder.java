@@ -1,7 +1,11 @@
 package com.danven.web_library.domain.product;
 
+import com.danven.web_library.domain.config.custom_types.MoneyType;
+import com.danven.web_library.domain.order.Money;
 import com.danven.web_library.domain.order.Order;
 import com.danven.web_library.exceptions.ValidationException;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.TypeDef;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -16,13 +20,15 @@ import java.util.Objects;
 @Table(name = "PRODUCT_ORDER", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"product_id", "order_id"})
 })
+@TypeDef(name = "money", typeClass = MoneyType.class)
 public class ProductOrder implements Serializable {
 
     /**
      * Primary key for the ProductOrder entity.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_order_seq")
+    @SequenceGenerator(name = "product_order_seq", sequenceName = "PRODUCT_ORDER_SEQ", allocationSize = 50)
     @Column(name = "product_order_id")
     private Long id;
 
@@ -35,8 +41,9 @@ public class ProductOrder implements Serializable {
     /**
      * Price per unit of the product at the time the order was created. Must be non-negative.
      */
-    @Column(name = "product_order_price", nullable = false)
-    private BigDecimal productOrderPrice;
+    @Type(type = "money")
+    @Column(name = "product_order_price_minor", nullable = false)
+    private Money productOrderPrice;
 
     /**
      * Reference to the associated product. Cannot be null.
@@ -52,6 +59,14 @@ public class ProductOrder implements Serializable {
     @JoinColumn(name = "order_id", nullable = false, updatable = false)
     private Order order;
 
+    /**
+     * Whether the order's totals include this line. Tracked explicitly, since
+     * the hash code changes once the order is assigned its ID, so looking the
+     * line up in the order's set is unreliable.
+     */
+    @Transient
+    private boolean countedByOrder;
+
     /**
      * JPA-only no-args constructor.
      */
@@ -65,10 +80,24 @@ public class ProductOrder implements Serializable {
      * @param product           the product to include in the order; must not be null
      * @param order             the order in which the product is included; must not be null
      * @param amount            the number of product units; must be greater than zero
-     * @param productOrderPrice the price per unit at order time; must be non-negative
+     * @param productOrderPrice the price per unit at order time, e.g. the catalog price; must be non-negative
      * @throws ValidationException if any validation constraint is violated
      */
     public ProductOrder(Product product, Order order, int amount, BigDecimal productOrderPrice) {
+        this(product, order, amount, productOrderPrice == null ? null : Money.of(productOrderPrice));
+    }
+
+    /**
+     * Creates a new ProductOrder linking the specified product and order,
+     * with the given quantity and unit price.
+     *
+     * @param product           the product to include in the order; must not be null
+     * @param order             the order in which the product is included; must not be null
+     * @param amount            the number of product units; must be greater than zero
+     * @param productOrderPrice the price per unit at order time; must be non-negative
+     * @throws ValidationException if any validation constraint is violated
+     */
+    public ProductOrder(Product product, Order order, int amount, Money productOrderPrice) {
         validateProduct(product);
         validateOrder(order);
         validateAmount(amount);
@@ -83,6 +112,30 @@ public class ProductOrder implements Serializable {
         this.order.addProductOrder(this);
     }
 
+    /**
+     * Lines loaded from the database are part of their order's totals.
+     */
+    @PostLoad
+    private void markLoaded() {
+        countedByOrder = order != null;
+    }
+
+    /**
+     * @return whether the order's totals include this line
+     */
+    public boolean isCountedByOrder() {
+        return countedByOrder;
+    }
+
+    /**
+     * Records whether the order's totals include this line. Called by {@link Order}.
+     *
+     * @param countedByOrder true once the order has added the line
+     */
+    public void setCountedByOrder(boolean countedByOrder) {
+        this.countedByOrder = countedByOrder;
+    }
+
     /**
      * Removes this link from both the product and the order,
      * effectively disassociating this instance.
@@ -103,8 +156,8 @@ public class ProductOrder implements Serializable {
      *
      * @return the subtotal price for this product in the order
      */
-    public BigDecimal calculateSubtotalPrice() {
-        return productOrderPrice.multiply(BigDecimal.valueOf(amount));
+    public Money calculateSubtotalPrice() {
+        return productOrderPrice.times(amount);
     }
 
     private void validateProduct(Product product) {
@@ -125,8 +178,8 @@ public class ProductOrder implements Serializable {
         }
     }
 
-    private void validateProductOrderPrice(BigDecimal productOrderPrice) {
-        if (productOrderPrice == null || productOrderPrice.compareTo(BigDecimal.ZERO) < 0) {
+    private void validateProductOrderPrice(Money productOrderPrice) {
+        if (productOrderPrice == null || productOrderPrice.isNegative()) {
             throw new ValidationException("ProductOrderPrice must be non-negative.");
         }
     }
@@ -148,7 +201,7 @@ public class ProductOrder implements Serializable {
     /**
      * @return the price per unit at the time of order creation
      */
-    public BigDecimal getProductOrderPrice() {
+    public Money getProductOrderPrice() {
         return productOrderPrice;
     }
 
@@ -168,25 +221,39 @@ public class ProductOrder implements Serializable {
 
 
     /**
-     * Updates the quantity of the product in the order.
+     * Updates the quantity of the product in the order, and the order's totals.
      *
      * @param amount the new quantity; must be greater than zero
      * @throws ValidationException if the new amount is invalid
      */
     public void setAmount(int amount) {
         validateAmount(amount);
+        Money oldSubtotal = calculateSubtotalPrice();
         this.amount = amount;
+        notifyOrder(oldSubtotal);
     }
 
     /**
-     * Updates the price per unit for this product in the order.
+     * Updates the price per unit for this product in the order, and the order's totals.
      *
      * @param productOrderPrice the new unit price; must be non-negative
      * @throws ValidationException if the new price is invalid
      */
-    public void setProductOrderPrice(BigDecimal productOrderPrice) {
+    public void setProductOrderPrice(Money productOrderPrice) {
         validateProductOrderPrice(productOrderPrice);
+        Money oldSubtotal = calculateSubtotalPrice();
         this.productOrderPrice = productOrderPrice;
+        notifyOrder(oldSubtotal);
+    }
+
+    /**
+     * Passes a change of this line's subtotal on to its order, once the
+     * order counts the line.
+     */
+    private void notifyOrder(Money oldSubtotal) {
+        if (order != null && countedByOrder) {
+            order.lineSubtotalChanged(oldSubtotal, calculateSubtotalPrice());
+        }
     }
 
     /**
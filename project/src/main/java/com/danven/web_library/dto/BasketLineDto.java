@@ -0,0 +1,18 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One product of a past order, as loaded for building recommendations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketLineDto {
+    /** The order the product was part of. */
+    private Long orderId;
+    /** The ordered product. */
+    private Long productId;
+}
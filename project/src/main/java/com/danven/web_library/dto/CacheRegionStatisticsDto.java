@@ -0,0 +1,24 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hit, miss and put counts of one second-level or query cache region.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatisticsDto {
+    /** Name of the region. */
+    private String region;
+    /** Lookups answered from the region. */
+    private long   hits;
+    /** Lookups that had to go to the database. */
+    private long   misses;
+    /** Entries written to the region. */
+    private long   puts;
+    /** Entries currently held; -1 if the provider does not report it. */
+    private long   elementsInMemory;
+}
@@ -0,0 +1,31 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Totals and per-region figures of the Hibernate second-level and query caches
+ * since startup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatisticsDto {
+    /** Entity and collection lookups answered from the second-level cache. */
+    private long                           secondLevelHits;
+    /** Entity and collection lookups that missed the second-level cache. */
+    private long                           secondLevelMisses;
+    /** Entities and collections put into the second-level cache. */
+    private long                           secondLevelPuts;
+    /** Query executions answered from the query cache. */
+    private long                           queryHits;
+    /** Cacheable query executions that missed the query cache. */
+    private long                           queryMisses;
+    /** Query results put into the query cache. */
+    private long                           queryPuts;
+    /** Figures per region, ordered by name. */
+    private List<CacheRegionStatisticsDto> regions;
+}
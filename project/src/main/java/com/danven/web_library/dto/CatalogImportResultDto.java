@@ -0,0 +1,22 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk catalog import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImportResultDto {
+    /** Number of products created. */
+    private int                      imported;
+    /** Number of rows rejected. */
+    private int                      failed;
+    /** Rejected rows ordered by line; capped, so it may hold fewer than {@code failed}. */
+    private List<CatalogRowErrorDto> errors;
+}
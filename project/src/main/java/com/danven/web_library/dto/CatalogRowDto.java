@@ -0,0 +1,51 @@
+package com.danven.web_library.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One product of a bulk catalog import or export: a JSON line, or a CSV
+ * record whose columns are named like these fields (list fields being
+ * separated by {@code |}).
+ * <p>
+ * Images are either paths relative to the configured import directory, or
+ * references {@code store:<hash>.<format>} to content already in the image
+ * store, as written by the export. The first image becomes the preview.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogRowDto {
+    /** Product subtype: FOOD, DRINK, DESSERT or MILK_COCKTAIL. */
+    private String       type;
+    /** Display name of the product. */
+    private String       productName;
+    /** Optional description. */
+    private String       productDescription;
+    /** Base price, non-negative. */
+    private BigDecimal   price;
+    /** Caloric value in kcal, at least 1. */
+    private Integer      calorie;
+    /** Weight in grams, at least 1. */
+    private Double       weightInGrams;
+    /** Category names; missing categories are created. */
+    private List<String> categories;
+    /** Ingredients (food only, required there). */
+    private List<String> ingredients;
+    /** Alcohol percentage (drinks and milk cocktails); defaults to 0. */
+    private Double       alcohol;
+    /** Whether the drink is carbonated; defaults to false. */
+    private Boolean      carbonated;
+    /** Sugar per gram (desserts and milk cocktails); defaults to 0. */
+    private Double       sugarPerGram;
+    /** Ice cream type (milk cocktails only, required there). */
+    private String       iceCreamType;
+    /** Image references, preview first. */
+    private List<String> images;
+}
@@ -0,0 +1,18 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A catalog row that could not be imported.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRowErrorDto {
+    /** Line of the input on which the row starts (1-based). */
+    private long   line;
+    /** Why the row was rejected. */
+    private String message;
+}
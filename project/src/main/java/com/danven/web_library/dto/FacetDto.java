@@ -0,0 +1,21 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for a menu facet (filter dimension) with the counts
+ * of all its values.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetDto {
+    /** Request parameter name of the facet, e.g. "calories". */
+    private String              name;
+    /** All values of the facet with their counts. */
+    private List<FacetValueDto> values;
+}
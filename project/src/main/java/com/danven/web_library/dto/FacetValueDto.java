@@ -0,0 +1,23 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for one value (bucket) of a menu facet,
+ * e.g. the calorie range "200-400" or the ice cream type "STRAWBERRY".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetValueDto {
+    /** Key used to select this value in a filter request. */
+    private String  key;
+    /** Human-readable label. */
+    private String  label;
+    /** Number of products having this value under all other active filters. */
+    private int     count;
+    /** True if this value is currently selected. */
+    private boolean selected;
+}
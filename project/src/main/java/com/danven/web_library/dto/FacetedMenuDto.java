@@ -0,0 +1,21 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for the result of a faceted menu query:
+ * the matching products plus the counts of every facet value.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedMenuDto {
+    /** Products matching all active filters, ordered by ID. */
+    private List<ProductDto> products;
+    /** Facets with counts computed as if the facet's own filter were not set. */
+    private List<FacetDto>   facets;
+}
@@ -0,0 +1,30 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How much feedback an order has received. Built directly by a grouped JPQL
+ * query; orders without feedback get a summary with count 0.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedbackSummaryDto {
+    /** The order. */
+    private Long          orderId;
+    /** Number of feedback entries left for the order. */
+    private long          count;
+    /** When the latest feedback was submitted, or null if there is none. */
+    private LocalDateTime lastSubmittedAt;
+
+    /**
+     * @return true if at least one feedback entry exists
+     */
+    public boolean hasFeedback() {
+        return count > 0;
+    }
+}
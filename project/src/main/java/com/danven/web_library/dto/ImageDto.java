@@ -1,4 +1,3 @@
-
 package com.danven.web_library.dto;
 
 import lombok.AllArgsConstructor;
@@ -6,8 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 /**
  * Data Transfer Object representing an image associated with a product.
- * Contains metadata (ID, preview flag, format) and the image content
- * as a Base64-encoded string (or URL).
+ * Contains metadata (ID, preview flag, format) and the URL from which
+ * the raw image bytes are streamed.
  */
 @Data
 @NoArgsConstructor
@@ -16,5 +15,5 @@ public class ImageDto {
     private Long      id;
     private boolean   isPreview;
     private String  format;
-    private String    base64Data;
+    private String    url;
 }
@@ -0,0 +1,26 @@
+package com.danven.web_library.dto;
+
+import com.danven.web_library.domain.product.ImageFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metadata-only projection of an image.
+ * Built by JPQL constructor expressions so that the image bytes stay in the database.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageMetadataDto {
+    /** Unique identifier of the image. */
+    private Long        id;
+    /** ID of the product the image belongs to. */
+    private Long        productId;
+    /** True if this image is the product's preview. */
+    private boolean     isPreview;
+    /** Stored format of the image. */
+    private ImageFormat format;
+    /** SHA-256 hex digest of the image bytes. */
+    private String      contentHash;
+}
@@ -0,0 +1,20 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the kitchen board.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenBoardDto {
+    /** Tickets of this page, oldest first. */
+    private List<KitchenTicketDto> tickets;
+    /** Opaque cursor for the next page; null if this is the last page. */
+    private String                 nextCursor;
+}
@@ -0,0 +1,31 @@
+package com.danven.web_library.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Message pushed to kitchen displays over the kitchen display WebSocket:
+ * a snapshot of the board, a change of one order, or a ping.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class KitchenDisplayMessageDto {
+    /** "snapshot", "change" or "ping". */
+    private String                 type;
+    /** Server run the sequence number belongs to. */
+    private long                   epoch;
+    /** Sequence number of the change, or of the last change a snapshot includes. */
+    private long                   seq;
+    /** Kind of change, e.g. "PAID"; changes only. */
+    private String                 change;
+    /** The changed order; changes only. */
+    private Long                   orderId;
+    /** The order after the change; absent if it was deleted. */
+    private KitchenTicketDto       ticket;
+    /** The active board for the display's station; snapshots only. */
+    private List<KitchenTicketDto> tickets;
+}
@@ -0,0 +1,22 @@
+package com.danven.web_library.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Subscription sent by a kitchen display: what it shows and what it has seen.
+ */
+@Data
+@NoArgsConstructor
+public class KitchenDisplaySubscriptionDto {
+    /** Product types of the station, e.g. FOOD and DESSERT; empty for all. */
+    private Set<String>  types;
+    /** Tables to show; empty for all. */
+    private Set<Integer> tables;
+    /** Server run of {@code since}, or null on first connect. */
+    private Long         epoch;
+    /** Sequence number of the last change the display has applied, or null. */
+    private Long         since;
+}
@@ -0,0 +1,70 @@
+package com.danven.web_library.dto;
+
+import com.danven.web_library.domain.order.Money;
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An order as shown on the kitchen board.
+ * Built directly by a JPQL constructor expression; the items and feedback
+ * flag are filled in afterwards.
+ */
+@Data
+@NoArgsConstructor
+public class KitchenTicketDto {
+    /** Unique identifier of the order. */
+    private Long                       id;
+    /** When the order was placed. */
+    private LocalDateTime              orderTime;
+    /** Table the order was placed at. */
+    private int                        tableNumber;
+    /** Current status of the order. */
+    private OrderStatus                status;
+    /** Current payment status of the order. */
+    private PaymentStatus              paymentStatus;
+    /** Customer notes; may be null. */
+    private String                     notes;
+    /** Optimistic-lock version, sent back with status changes. */
+    private Long                       version;
+    /** Whether any feedback was left for the order; not part of the query. */
+    private boolean                    hasFeedback;
+    /** Ordered products. */
+    private List<KitchenTicketItemDto> items;
+    /** Sum of the item subtotals, as stored with the order. */
+    private BigDecimal                 subtotal;
+    /** Restaurant service fee, as stored with the order. */
+    private BigDecimal                 serviceFee;
+    /** Final price after fee and discount, as stored with the order. */
+    private BigDecimal                 total;
+
+    /**
+     * Constructor used by the JPQL constructor expression.
+     */
+    public KitchenTicketDto(Long id,
+                            LocalDateTime orderTime,
+                            int tableNumber,
+                            OrderStatus status,
+                            PaymentStatus paymentStatus,
+                            String notes,
+                            Long version,
+                            Money subtotal,
+                            Money serviceFee,
+                            Money total) {
+        this.id             = id;
+        this.orderTime      = orderTime;
+        this.tableNumber    = tableNumber;
+        this.status         = status;
+        this.paymentStatus  = paymentStatus;
+        this.notes          = notes;
+        this.version        = version;
+        this.subtotal       = subtotal.toBigDecimal();
+        this.serviceFee     = serviceFee.toBigDecimal();
+        this.total          = total.toBigDecimal();
+    }
+}
@@ -0,0 +1,44 @@
+package com.danven.web_library.dto;
+
+import com.danven.web_library.domain.order.Money;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a kitchen ticket. Built directly by a JPQL constructor
+ * expression; no order, product or customer entity is loaded.
+ */
+@Data
+@NoArgsConstructor
+public class KitchenTicketItemDto {
+    /** ID of the order the line belongs to. */
+    private Long       orderId;
+    /** ID of the ordered product. */
+    private Long       productId;
+    /** Display name of the ordered product. */
+    private String     productName;
+    /** Number of units ordered. */
+    private int        amount;
+    /** Unit price at the time of ordering. */
+    private BigDecimal unitPrice;
+    /** Unit price times amount. */
+    private BigDecimal subtotal;
+    /** Menu type of the product (FOOD, DRINK, ...), or null if it is off the menu; not part of the query. */
+    private String     productType;
+    /** URL of the product's preview image, or null; not part of the query. */
+    private String     previewUrl;
+
+    /**
+     * Constructor used by the JPQL constructor expression.
+     */
+    public KitchenTicketItemDto(Long orderId, Long productId, String productName, int amount, Money unitPrice) {
+        this.orderId     = orderId;
+        this.productId   = productId;
+        this.productName = productName;
+        this.amount      = amount;
+        this.unitPrice   = unitPrice.toBigDecimal();
+        this.subtotal    = unitPrice.times(amount).toBigDecimal();
+    }
+}
@@ -0,0 +1,22 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Compact menu change pushed to clients over the menu event stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuChangeDto {
+    /** Sequence number of the change; also the SSE event ID. */
+    private long       id;
+    /** Kind of change, e.g. "PRICE_CHANGED". */
+    private String     type;
+    /** Affected products; empty if the whole menu changed. */
+    private List<Long> productIds;
+}
@@ -0,0 +1,22 @@
+package com.danven.web_library.dto;
+
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Status and payment status of one order, pushed to the customer who placed it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStateDto {
+    /** The order. */
+    private Long          orderId;
+    /** Its status; null if it was deleted. */
+    private OrderStatus   status;
+    /** Its payment status; null if it was deleted. */
+    private PaymentStatus paymentStatus;
+}
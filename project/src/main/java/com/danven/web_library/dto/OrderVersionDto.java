@@ -0,0 +1,27 @@
+package com.danven.web_library.dto;
+
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of one order together with its optimistic-lock version, read before
+ * a conditional state update. Built by a JPQL constructor expression.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderVersionDto {
+    /** The order. */
+    private Long          orderId;
+    /** The customer who placed it. */
+    private Long          customerId;
+    /** Its status. */
+    private OrderStatus   status;
+    /** Its payment status. */
+    private PaymentStatus paymentStatus;
+    /** Its version; incremented by every change. */
+    private Long          version;
+}
@@ -0,0 +1,23 @@
+package com.danven.web_library.dto;
+
+import com.danven.web_library.domain.product.ImageFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metadata-only projection of a product's preview image.
+ * Built directly by a JPQL constructor expression so that the image bytes
+ * are never selected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreviewImageDto {
+    /** ID of the product the preview belongs to. */
+    private Long        productId;
+    /** ID of the preview image. */
+    private Long        imageId;
+    /** Stored format of the preview image. */
+    private ImageFormat format;
+}
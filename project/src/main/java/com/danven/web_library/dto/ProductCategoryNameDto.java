@@ -0,0 +1,19 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Projection pairing a product ID with the name of one of its categories.
+ * Built by a JPQL constructor expression.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCategoryNameDto {
+    /** ID of the product. */
+    private Long   productId;
+    /** Name of one category of the product. */
+    private String categoryName;
+}
@@ -1,6 +1,7 @@
 package com.danven.web_library.dto;
 
 import com.danven.web_library.domain.product.*;
+import com.danven.web_library.util.ImageUtil;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -137,10 +138,9 @@ public class ProductEditDto {
         }
 
         List<ImageDto> images = p.getImages().stream()
-                .map(img -> {
-                    String base64 = Base64.getEncoder().encodeToString(img.getImage());
-                    return new ImageDto(img.getId(), img.isPreview(), img.getFormat().name(), base64);
-                })
+                .map(img -> new ImageDto(
+                        img.getId(), img.isPreview(), img.getFormat().name(),
+                        ImageUtil.getImageUrl(img.getId())))
                 .collect(Collectors.toList());
         dto.setExistingImages(images);
 
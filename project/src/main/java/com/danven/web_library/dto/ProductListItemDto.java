@@ -0,0 +1,45 @@
+package com.danven.web_library.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Slim projection of a product for paginated lists.
+ * Built directly by a JPQL constructor expression so that no {@code Product}
+ * entity, image bytes or collections are loaded; category names and the
+ * preview URL are filled in afterwards.
+ */
+@Data
+@NoArgsConstructor
+public class ProductListItemDto {
+    /** Unique identifier of the product. */
+    private Long         id;
+    /** Display name of the product. */
+    private String       productName;
+    /** Base price of the product. */
+    private BigDecimal   price;
+    /** Number of units ordered so far; not set in lists served from the menu snapshot. */
+    private long         popularity;
+    /** Time-decayed popularity; only set in lists sorted by it. */
+    private Double       trendingScore;
+    /** ID of the preview image; null if the product has none. */
+    private Long         previewImageId;
+    /** URL of the preview image; null if the product has none. */
+    private String       previewUrl;
+    /** Names of the product's categories. */
+    private List<String> categoryNames;
+
+    /**
+     * Constructor used by the JPQL constructor expression.
+     */
+    public ProductListItemDto(Long id, String productName, BigDecimal price, long popularity, Long previewImageId) {
+        this.id             = id;
+        this.productName    = productName;
+        this.price          = price;
+        this.popularity     = popularity;
+        this.previewImageId = previewImageId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated product list.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageDto {
+    /** Products of this page in list order. */
+    private List<ProductListItemDto> items;
+    /** Opaque cursor for the next page; null if this is the last page. */
+    private String                   nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Units of one product sold by one order, with the time of the order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSaleDto {
+    /** ID of the product sold. */
+    private Long          productId;
+    /** Number of units ordered. */
+    private int           amount;
+    /** When the order was placed. */
+    private LocalDateTime orderTime;
+}
@@ -0,0 +1,26 @@
+package com.danven.web_library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A product suggested as "often ordered with" the products a customer looks at.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationDto {
+    /** Unique identifier of the product. */
+    private Long       id;
+    /** Display name of the product. */
+    private String     productName;
+    /** Base price of the product. */
+    private BigDecimal price;
+    /** URL of the preview image; null if the product has none. */
+    private String     previewUrl;
+    /** Relevance; only meaningful relative to other suggestions of the same request. */
+    private double     score;
+}
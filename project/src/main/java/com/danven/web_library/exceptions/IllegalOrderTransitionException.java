@@ -0,0 +1,12 @@
+package com.danven.web_library.exceptions;
+
+/**
+ * Thrown when a status or payment change is not allowed by the order lifecycle.
+ */
+public class IllegalOrderTransitionException extends RuntimeException {
+
+    public IllegalOrderTransitionException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.danven.web_library.exceptions;
+
+/**
+ * Thrown when an order was changed concurrently: either it is no longer in
+ * the version the caller saw, or a change kept losing to concurrent writers.
+ */
+public class OrderConflictException extends RuntimeException {
+
+    public OrderConflictException(String message) {
+        super(message);
+    }
+
+}
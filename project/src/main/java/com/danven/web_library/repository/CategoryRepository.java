@@ -4,16 +4,35 @@ package com.danven.web_library.repository;
 import com.danven.web_library.domain.product.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for performing CRUD operations on Category entities.
  * Extends JpaRepository to provide basic data access methods.
+ * <p>
+ * The lookups below are cached in the {@code category-queries} region of the
+ * query cache. Hibernate invalidates cached results whenever the CATEGORY
+ * table is written through it.
  */
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
+    /**
+     * Retrieves all categories (cached).
+     *
+     * @return all categories
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "category-queries")
+    })
+    List<Category> findAll();
+
     /**
      * Retrieves a category by its exact name.
      *
@@ -21,6 +40,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return an Optional containing the category if found
      */
     @Query("SELECT c FROM Category c WHERE c.name = :name")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "category-queries")
+    })
     Optional<Category> findByName(@Param("name") String name);
 
     /**
@@ -30,5 +53,9 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return true if a matching category exists
      */
     @Query("SELECT COUNT(c) > 0 FROM Category c WHERE c.name = :name")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "category-queries")
+    })
     boolean existsByName(@Param("name") String name);
 }
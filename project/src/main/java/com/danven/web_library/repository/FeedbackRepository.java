@@ -3,8 +3,12 @@ package com.danven.web_library.repository;
 import com.danven.web_library.domain.feedback.Feedback;
 import com.danven.web_library.domain.order.Order;
 import com.danven.web_library.domain.user.Customer;
+import com.danven.web_library.dto.FeedbackSummaryDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -27,4 +31,19 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
      * @return list of feedback
      */
     List<Feedback> findAllByOrder(Order order);
+
+    /**
+     * Counts the feedback of many orders in one grouped query.
+     *
+     * @param orderIds the orders
+     * @return one summary per order that has feedback; orders without feedback are absent
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.FeedbackSummaryDto(
+            f.order.id, COUNT(f), MAX(f.submittedAt))
+        FROM Feedback f
+        WHERE f.order.id IN :orderIds
+        GROUP BY f.order.id
+    """)
+    List<FeedbackSummaryDto> findSummariesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -2,13 +2,18 @@
 package com.danven.web_library.repository;
 
 import com.danven.web_library.domain.product.Image;
+import com.danven.web_library.domain.product.ImageVariant;
+import com.danven.web_library.dto.ImageMetadataDto;
+import com.danven.web_library.dto.PreviewImageDto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for accessing and managing Image entities.
@@ -27,4 +32,89 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
 
     List<Image> findAllByProductId(Long productId);
 
+    /**
+     * Loads the metadata of all images of a product without their bytes.
+     *
+     * @param productId the product whose images to list
+     * @return one {@link ImageMetadataDto} per image
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ImageMetadataDto(
+            i.id, i.product.id, i.isPreview, i.format, i.contentHash)
+        FROM Image i
+        WHERE i.product.id = :productId
+    """)
+    List<ImageMetadataDto> findMetadataByProductId(@Param("productId") Long productId);
+
+    /**
+     * Loads the metadata of a single image without its bytes.
+     *
+     * @param id the image ID
+     * @return the metadata, or empty if no such image exists
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ImageMetadataDto(
+            i.id, i.product.id, i.isPreview, i.format, i.contentHash)
+        FROM Image i
+        WHERE i.id = :id
+    """)
+    Optional<ImageMetadataDto> findMetadataById(@Param("id") Long id);
+
+    /**
+     * Loads the metadata of one derivative of an image, reporting the
+     * derivative's format and content hash.
+     *
+     * @param id      the image ID
+     * @param variant the derivative to look up
+     * @return the metadata, or empty if the image or its derivative does not exist (yet)
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ImageMetadataDto(
+            i.id, i.product.id, i.isPreview, d.format, d.contentHash)
+        FROM Image i JOIN i.derivatives d
+        WHERE i.id = :id AND KEY(d) = :variant
+    """)
+    Optional<ImageMetadataDto> findVariantMetadataById(@Param("id") Long id,
+                                                       @Param("variant") ImageVariant variant);
+
+    /**
+     * Lists the IDs of images the derivative pipeline has not processed yet.
+     *
+     * @return image IDs without derivatives
+     */
+    @Query("SELECT i.id FROM Image i WHERE i.derivatives IS EMPTY")
+    List<Long> findIdsWithoutDerivatives();
+
+    /**
+     * Lists every content hash still referenced by an image derivative.
+     * Used together with {@link #findAllContentHashes()} by the image store GC.
+     *
+     * @return distinct derivative content hashes
+     */
+    @Query("SELECT DISTINCT d.contentHash FROM Image i JOIN i.derivatives d")
+    List<String> findAllDerivativeContentHashes();
+
+    /**
+     * Lists every content hash still referenced by an image.
+     * Used to garbage-collect unreferenced blobs in the image store.
+     *
+     * @return distinct content hashes
+     */
+    @Query("SELECT DISTINCT i.contentHash FROM Image i")
+    List<String> findAllContentHashes();
+
+    /**
+     * Loads the preview image metadata of all given products in one query.
+     * Only rows flagged as preview are read and the image bytes are never selected.
+     *
+     * @param productIds the products whose previews to load
+     * @return one {@link PreviewImageDto} per preview image found
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.PreviewImageDto(i.product.id, i.id, i.format)
+        FROM Image i
+        WHERE i.isPreview = true AND i.product.id IN :productIds
+    """)
+    List<PreviewImageDto> findPreviewsByProductIds(@Param("productIds") Collection<Long> productIds);
+
 }
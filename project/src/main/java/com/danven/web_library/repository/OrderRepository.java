@@ -2,11 +2,23 @@ package com.danven.web_library.repository;
 
 import com.danven.web_library.domain.order.Order;
 import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
 import com.danven.web_library.domain.user.Customer;
+import com.danven.web_library.dto.KitchenTicketDto;
+import com.danven.web_library.dto.KitchenTicketItemDto;
+import com.danven.web_library.dto.OrderStateDto;
+import com.danven.web_library.dto.OrderVersionDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for accessing Order entities from the database.
@@ -39,4 +51,148 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      *         sorted by {@code orderTime} in descending order
      */
     List<Order> findByCustomerOrderByOrderTimeDesc(Customer customer);
+
+    /**
+     * First or next page of kitchen tickets ordered by order time, then ID.
+     * An order matches if its status is one of {@code statuses}, or if it is
+     * COMPLETED and was placed at or after {@code completedSince}. Keyset
+     * pagination: pass the order time and ID of the last ticket of the
+     * previous page (or a time before {@code from} and 0 for the first page).
+     *
+     * @param statuses       statuses to include
+     * @param completedSince completed orders placed since then are included as well
+     * @param tableNumber    table filter (0 = all)
+     * @param from           earliest order time (inclusive)
+     * @param to             latest order time (exclusive)
+     * @param afterTime      order time of the last ticket of the previous page
+     * @param afterId        ID of the last ticket of the previous page
+     * @param limit          page size (only the size is used)
+     * @return the ticket headers, without items
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.KitchenTicketDto(
+            o.id, o.orderTime, o.tableNumber, o.status, o.paymentStatus, o.notes, o.version,
+            o.subtotal, o.serviceFee, o.finalPrice)
+        FROM Order o
+        WHERE (o.status IN :statuses
+               OR (o.status = com.danven.web_library.domain.order.OrderStatus.COMPLETED
+                   AND o.orderTime >= :completedSince))
+          AND (:tableNumber = 0 OR o.tableNumber = :tableNumber)
+          AND o.orderTime >= :from AND o.orderTime < :to
+          AND (o.orderTime > :afterTime OR (o.orderTime = :afterTime AND o.id > :afterId))
+        ORDER BY o.orderTime ASC, o.id ASC
+    """)
+    List<KitchenTicketDto> findKitchenTickets(@Param("statuses") Collection<OrderStatus> statuses,
+                                              @Param("completedSince") LocalDateTime completedSince,
+                                              @Param("tableNumber") int tableNumber,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("afterTime") LocalDateTime afterTime,
+                                              @Param("afterId") long afterId,
+                                              Pageable limit);
+
+    /**
+     * Looks up who placed an order without loading it.
+     *
+     * @param orderId the order
+     * @return the ID of the customer, or empty if the order does not exist or has none
+     */
+    @Query("SELECT o.customer.id FROM Order o WHERE o.id = :orderId")
+    Optional<Long> findCustomerIdById(@Param("orderId") Long orderId);
+
+    /**
+     * Loads the status and payment status of a customer's orders, without the orders themselves.
+     *
+     * @param customerId the customer
+     * @return one state per order
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.OrderStateDto(o.id, o.status, o.paymentStatus)
+        FROM Order o
+        WHERE o.customer.id = :customerId
+    """)
+    List<OrderStateDto> findStatesByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * Reads the state and version of an order without loading it.
+     *
+     * @param orderId the order
+     * @return its state, or empty if it does not exist
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.OrderVersionDto(
+            o.id, o.customer.id, o.status, o.paymentStatus, o.version)
+        FROM Order o
+        WHERE o.id = :orderId
+    """)
+    Optional<OrderVersionDto> findVersionById(@Param("orderId") Long orderId);
+
+    /**
+     * Changes the state of an order in one statement, only if it is still in
+     * the given version, and increments the version.
+     *
+     * @param orderId       the order
+     * @param version       the version the change was decided on
+     * @param status        the new status
+     * @param paymentStatus the new payment status
+     * @return 1 if the order was updated, 0 if it changed in the meantime
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Order o
+        SET o.status = :status, o.paymentStatus = :paymentStatus, o.version = o.version + 1
+        WHERE o.id = :orderId AND o.version = :version
+    """)
+    int updateStateIfVersion(@Param("orderId") Long orderId,
+                             @Param("version") Long version,
+                             @Param("status") OrderStatus status,
+                             @Param("paymentStatus") PaymentStatus paymentStatus);
+
+    /**
+     * Sums the final prices of paid orders placed in a period, in grosze, so
+     * that reports add primitive longs instead of decimal amounts.
+     *
+     * @param from earliest order time (inclusive)
+     * @param to   latest order time (exclusive)
+     * @return the revenue in grosze, 0 if there were no paid orders
+     */
+    @Query(value = """
+        SELECT COALESCE(SUM(o.final_price_minor), 0)
+        FROM ORDERS o
+        WHERE o.payment_status = 'PAID'
+          AND o.order_time >= :from AND o.order_time < :to
+    """, nativeQuery = true)
+    long sumPaidFinalPriceMinor(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Loads the header of one ticket, whatever its status.
+     *
+     * @param orderId the order
+     * @return the ticket header, without items
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.KitchenTicketDto(
+            o.id, o.orderTime, o.tableNumber, o.status, o.paymentStatus, o.notes, o.version,
+            o.subtotal, o.serviceFee, o.finalPrice)
+        FROM Order o
+        WHERE o.id = :orderId
+    """)
+    Optional<KitchenTicketDto> findKitchenTicketById(@Param("orderId") Long orderId);
+
+    /**
+     * Loads the lines of the given orders in one join query.
+     *
+     * @param orderIds the orders
+     * @return their lines, grouped by order and ordered by product name within an order
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.KitchenTicketItemDto(
+            o.id, p.id, p.productName, po.amount, po.productOrderPrice)
+        FROM ProductOrder po
+        JOIN po.order o
+        JOIN po.product p
+        WHERE o.id IN :orderIds
+        ORDER BY o.id, p.productName
+    """)
+    List<KitchenTicketItemDto> findKitchenTicketItems(@Param("orderIds") Collection<Long> orderIds);
 }
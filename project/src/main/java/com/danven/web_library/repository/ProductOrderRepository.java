@@ -1,7 +1,10 @@
 package com.danven.web_library.repository;
 
 import com.danven.web_library.domain.product.ProductOrder;
+import com.danven.web_library.dto.BasketLineDto;
+import com.danven.web_library.dto.ProductSaleDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -30,4 +33,27 @@ public interface ProductOrderRepository extends JpaRepository<ProductOrder, Long
      * @return list of product orders that contain the product
      */
     List<ProductOrder> findByProductId(Long productId);
+
+    /**
+     * Loads which products were ordered together, for all orders.
+     *
+     * @return one row per order line, grouped by order
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.BasketLineDto(po.order.id, po.product.id)
+        FROM ProductOrder po
+        ORDER BY po.order.id
+    """)
+    List<BasketLineDto> findAllBasketLines();
+
+    /**
+     * Every order line as a sale with the time of its order.
+     *
+     * @return all sales
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ProductSaleDto(po.product.id, po.amount, po.order.orderTime)
+        FROM ProductOrder po
+    """)
+    List<ProductSaleDto> findAllSales();
 }
@@ -2,39 +2,46 @@
 package com.danven.web_library.repository;
 
 import com.danven.web_library.domain.product.Product;
+import com.danven.web_library.dto.ProductCategoryNameDto;
+import com.danven.web_library.dto.ProductListItemDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for accessing {@link Product} entities.
- * Extends JpaRepository to provide CRUD operations and custom queries
- * that eagerly fetch associated categories and images without using EntityGraph.
+ * Extends JpaRepository to provide CRUD operations and custom queries.
+ * List queries leave categories and images to the subselect fetching
+ * configured on {@link Product}; only single-product lookups join-fetch them.
  */
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     /**
-     * Retrieves all products, eagerly loading their categories and images
-     * via the {@code product-with-categories-and-images} graph.
+     * Retrieves all products without fetching any association. Their
+     * categories, images and ingredients are loaded on first access by one
+     * subselect each (see {@link Product}), so the number of statements does
+     * not grow with the catalog.
      *
-     * @return list of all products with categories and images fetched
+     * @return list of all products
      */
-    @EntityGraph(value = "product-with-categories-and-images", type = EntityGraph.EntityGraphType.LOAD)
     @Query("SELECT p FROM Product p")
-    List<Product> findAllWithCategoriesAndImages();
+    List<Product> findAllProducts();
 
     /**
-     * Retrieves all products in the given category (by ID), eagerly loading
-     * categories and images via the {@code product-with-categories-and-images} graph.
+     * Retrieves all products in the given category (by ID); categories and
+     * images are loaded by subselect.
      *
      * @param categoryId the ID of the category to filter by
-     * @return list of products in that category with categories and images fetched
+     * @return list of products in that category
      */
-    @EntityGraph(value = "product-with-categories-and-images", type = EntityGraph.EntityGraphType.LOAD)
     @Query("SELECT p FROM Product p JOIN p.categories c WHERE c.id = :categoryId")
     List<Product> findByCategoryId(@Param("categoryId") Long categoryId);
 
@@ -46,16 +53,126 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByIdWithCategoriesAndImages(@Param("id") Long id);
 
     /**
-     * An alternative “all” fetch using the same graph but without a custom JPQL.
+     * Find by category name; categories and images are loaded by subselect.
      */
-    @EntityGraph(attributePaths = {"images", "categories"}, type = EntityGraph.EntityGraphType.LOAD)
-    @Query("SELECT p FROM Product p")
-    List<Product> findAllProductsWithCategoriesAndImages();
+    @Query("SELECT p FROM Product p JOIN p.categories c WHERE c.name = :categoryName")
+    List<Product> findByCategoryName(@Param("categoryName") String categoryName);
 
     /**
-     * Find by category name with categories and images loaded.
+     * Find the products with the given IDs; categories and images are loaded
+     * by subselect. IDs without a product are skipped.
      */
-    @EntityGraph(value = "product-with-categories-and-images", type = EntityGraph.EntityGraphType.LOAD)
-    @Query("SELECT p FROM Product p JOIN p.categories c WHERE c.name = :categoryName")
-    List<Product> findByCategoryName(@Param("categoryName") String categoryName);
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllByIdWithCategoriesAndImages(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Recomputes the popularity counter of every product from the order lines.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Product p SET p.popularity =
+            (SELECT COALESCE(SUM(po.amount), 0) FROM ProductOrder po WHERE po.product = p)
+    """)
+    void recomputePopularity();
+
+    /**
+     * First or next page of the product list ordered by price (ascending), then ID.
+     * Keyset pagination: pass the sort key and ID of the last row of the previous
+     * page (or {@code -1}/{@code 0} for the first page) and a {@link Pageable}
+     * with page 0 to limit the result size. The preview is picked by a
+     * correlated subquery (the lowest image ID among the previews), so a
+     * product with several preview images still yields exactly one row.
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ProductListItemDto(
+            p.id, p.productName, p.price, p.popularity,
+            (SELECT MIN(i.id) FROM Image i WHERE i.product = p AND i.isPreview = true))
+        FROM Product p
+        WHERE (:categoryId = 0L
+               OR EXISTS (SELECT c.id FROM Category c WHERE c.id = :categoryId AND c MEMBER OF p.categories))
+          AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId))
+        ORDER BY p.price ASC, p.id ASC
+    """)
+    List<ProductListItemDto> findPageByPriceAsc(@Param("categoryId") Long categoryId,
+                                                @Param("afterPrice") BigDecimal afterPrice,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    /**
+     * Like {@link #findPageByPriceAsc} ordered by price descending, then ID.
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ProductListItemDto(
+            p.id, p.productName, p.price, p.popularity,
+            (SELECT MIN(i.id) FROM Image i WHERE i.product = p AND i.isPreview = true))
+        FROM Product p
+        WHERE (:categoryId = 0L
+               OR EXISTS (SELECT c.id FROM Category c WHERE c.id = :categoryId AND c MEMBER OF p.categories))
+          AND (p.price < :afterPrice OR (p.price = :afterPrice AND p.id > :afterId))
+        ORDER BY p.price DESC, p.id ASC
+    """)
+    List<ProductListItemDto> findPageByPriceDesc(@Param("categoryId") Long categoryId,
+                                                 @Param("afterPrice") BigDecimal afterPrice,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    /**
+     * Like {@link #findPageByPriceAsc} ordered by name, then ID.
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ProductListItemDto(
+            p.id, p.productName, p.price, p.popularity,
+            (SELECT MIN(i.id) FROM Image i WHERE i.product = p AND i.isPreview = true))
+        FROM Product p
+        WHERE (:categoryId = 0L
+               OR EXISTS (SELECT c.id FROM Category c WHERE c.id = :categoryId AND c MEMBER OF p.categories))
+          AND (p.productName > :afterName OR (p.productName = :afterName AND p.id > :afterId))
+        ORDER BY p.productName ASC, p.id ASC
+    """)
+    List<ProductListItemDto> findPageByName(@Param("categoryId") Long categoryId,
+                                            @Param("afterName") String afterName,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    /**
+     * Like {@link #findPageByPriceAsc} ordered by popularity descending, then ID.
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ProductListItemDto(
+            p.id, p.productName, p.price, p.popularity,
+            (SELECT MIN(i.id) FROM Image i WHERE i.product = p AND i.isPreview = true))
+        FROM Product p
+        WHERE (:categoryId = 0L
+               OR EXISTS (SELECT c.id FROM Category c WHERE c.id = :categoryId AND c MEMBER OF p.categories))
+          AND (p.popularity < :afterPopularity OR (p.popularity = :afterPopularity AND p.id > :afterId))
+        ORDER BY p.popularity DESC, p.id ASC
+    """)
+    List<ProductListItemDto> findPageByPopularity(@Param("categoryId") Long categoryId,
+                                                  @Param("afterPopularity") long afterPopularity,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+
+    /**
+     * Loads the category names of the given products in one query.
+     *
+     * @param ids the product IDs
+     * @return one row per product and category
+     */
+    @Query("""
+        SELECT new com.danven.web_library.dto.ProductCategoryNameDto(p.id, c.name)
+        FROM Product p JOIN p.categories c
+        WHERE p.id IN :ids
+    """)
+    List<ProductCategoryNameDto> findCategoryNamesByProductIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Next chunk of product IDs in ascending order, for walking the whole
+     * catalog chunk by chunk (keyset pagination on the ID).
+     *
+     * @param afterId  the last ID of the previous chunk, or 0 for the first
+     * @param pageable page 0 with the chunk size
+     * @return the IDs, ascending
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,58 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.CacheRegionStatisticsDto;
+import com.danven.web_library.dto.CacheStatisticsDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads the Hibernate cache statistics for monitoring. Statistics are only
+ * collected with {@code hibernate.generate_statistics=true}; otherwise all
+ * figures stay zero.
+ */
+@Service
+public class CacheStatisticsService {
+
+    /** Query cache regions, which are not listed with the entity regions. */
+    private static final List<String> QUERY_REGIONS = List.of("category-queries", "default-query-results-region");
+
+    private final Statistics statistics;
+
+    public CacheStatisticsService(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * @return the current totals and per-region figures
+     */
+    public CacheStatisticsDto current() {
+        Set<String> names = new TreeSet<>(Arrays.asList(statistics.getSecondLevelCacheRegionNames()));
+        names.addAll(QUERY_REGIONS);
+        List<CacheRegionStatisticsDto> regions = new ArrayList<>(names.size());
+        for (String name : names) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.add(new CacheRegionStatisticsDto(name, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory()));
+            }
+        }
+        return new CacheStatisticsDto(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                regions
+        );
+    }
+}
@@ -0,0 +1,59 @@
+package com.danven.web_library.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * File formats of the bulk catalog import and export.
+ */
+public enum CatalogFormat {
+    JSON_LINES("jsonl", "application/x-ndjson"),
+    CSV("csv", "text/csv");
+
+    private final String param;
+    private final String contentType;
+
+    CatalogFormat(String param, String contentType) {
+        this.param       = param;
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return the request parameter value (and file extension) of this format
+     */
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * @return the MIME type of this format
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @param param a request parameter value
+     * @return the format with that value, or empty if there is none
+     */
+    public static Optional<CatalogFormat> fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(f -> f.param.equalsIgnoreCase(param))
+                .findFirst();
+    }
+
+    /**
+     * @param contentType a {@code Content-Type} header, possibly with parameters
+     * @return the format with that MIME type, or empty if there is none
+     */
+    public static Optional<CatalogFormat> fromContentType(String contentType) {
+        if (contentType == null) {
+            return Optional.empty();
+        }
+        String mime = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(f -> f.contentType.equals(mime))
+                .findFirst();
+    }
+}
@@ -0,0 +1,36 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.CatalogImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Service interface for bulk import and export of the product catalog
+ * (see {@link com.danven.web_library.dto.CatalogRowDto} for the row format).
+ */
+public interface CatalogService {
+
+    /**
+     * Import products from a stream. Rows are read and written in chunks, so
+     * the input is never held in memory as a whole; rows that fail validation
+     * are reported and skipped, all other rows are imported.
+     *
+     * @param in     the catalog, UTF-8 encoded
+     * @param format the format of the catalog
+     * @return the number of imported products and the rejected rows
+     * @throws IOException if the input cannot be read or is malformed beyond a single row
+     */
+    CatalogImportResultDto importCatalog(InputStream in, CatalogFormat format) throws IOException;
+
+    /**
+     * Export all products to a stream, in ID order and in the same format the
+     * import reads. Images are exported as references into the image store.
+     *
+     * @param out    the output; written as UTF-8 and flushed but not closed
+     * @param format the format to write
+     * @throws IOException if the output cannot be written
+     */
+    void exportCatalog(OutputStream out, CatalogFormat format) throws IOException;
+}
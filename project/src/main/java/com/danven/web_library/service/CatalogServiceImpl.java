@@ -0,0 +1,606 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.product.*;
+import com.danven.web_library.dto.CatalogImportResultDto;
+import com.danven.web_library.dto.CatalogRowDto;
+import com.danven.web_library.dto.CatalogRowErrorDto;
+import com.danven.web_library.dto.CategoryDto;
+import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.exceptions.ValidationException;
+import com.danven.web_library.repository.CategoryRepository;
+import com.danven.web_library.repository.ProductRepository;
+import com.danven.web_library.util.CsvUtil;
+import com.danven.web_library.util.ProductMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk catalog import and export.
+ * <p>
+ * The import reads the input in chunks. Each chunk is parsed and validated in
+ * parallel (including reading and storing the images, the expensive part),
+ * then the valid rows are written in one transaction: products and images go
+ * through Hibernate with JDBC batching (their IDs come from pooled sequences),
+ * the category links are inserted with a plain JDBC batch so that categories
+ * never have their product collections loaded. The persistence context is
+ * cleared after every chunk, keeping memory flat however large the input.
+ * <p>
+ * Derivatives of imported images are left to the periodic backfill of the
+ * image pipeline rather than queued one by one.
+ * <p>
+ * The export walks the products in ID order, one chunk per read-only
+ * transaction, and writes each chunk before loading the next.
+ */
+@Service
+public class CatalogServiceImpl implements CatalogService {
+
+    private static final List<String> PRODUCT_TYPES = List.of("FOOD", "DRINK", "DESSERT", "MILK_COCKTAIL");
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "type", "productName", "productDescription", "price", "calorie", "weightInGrams",
+            "categories", "ingredients", "alcohol", "carbonated", "sugarPerGram", "iceCreamType", "images");
+
+    /** Separator of list items within a CSV field. */
+    private static final String LIST_SEPARATOR = "|";
+
+    /** Prefix of image references pointing into the image store. */
+    private static final String STORE_PREFIX = "store:";
+
+    private static final String INSERT_CATEGORY_LINK =
+            "INSERT INTO product_category (product_id, category_id) VALUES (?, ?)";
+
+    private final ProductRepository         productRepo;
+    private final CategoryRepository        categoryRepo;
+    private final ImageStore                imageStore;
+    private final JdbcTemplate              jdbc;
+    private final EntityManager             entityManager;
+    private final ObjectMapper              objectMapper;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate       writeTransaction;
+    private final TransactionTemplate       readTransaction;
+    private final Path                      imageRoot;
+    private final int                       chunkSize;
+    private final int                       maxReportedErrors;
+
+    public CatalogServiceImpl(ProductRepository productRepo,
+                              CategoryRepository categoryRepo,
+                              ImageStore imageStore,
+                              JdbcTemplate jdbc,
+                              EntityManager entityManager,
+                              ObjectMapper objectMapper,
+                              ApplicationEventPublisher events,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${palatos.catalog.image-root}") String imageRoot,
+                              @Value("${palatos.catalog.chunk-size:1000}") int chunkSize,
+                              @Value("${palatos.catalog.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productRepo       = productRepo;
+        this.categoryRepo      = categoryRepo;
+        this.imageStore        = imageStore;
+        this.jdbc              = jdbc;
+        this.entityManager     = entityManager;
+        this.objectMapper      = objectMapper;
+        this.events            = events;
+        this.writeTransaction  = new TransactionTemplate(transactionManager);
+        this.readTransaction   = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.imageRoot         = Paths.get(imageRoot).toAbsolutePath().normalize();
+        this.chunkSize         = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Chunks are committed one by one: if the input turns out to be broken
+     * half-way, the rows before the broken part stay imported.
+     */
+    @Override
+    public CatalogImportResultDto importCatalog(InputStream in, CatalogFormat format) throws IOException {
+        LineNumberReader reader = new LineNumberReader(
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        Map<String, Integer> header = format == CatalogFormat.CSV ? readHeader(reader) : Map.of();
+        Map<String, Long> categoryIds = new HashMap<>();
+        for (Category category : categoryRepo.findAll()) {
+            categoryIds.put(categoryKey(category.getName()), category.getId());
+        }
+
+        ImportResult result = new ImportResult();
+        List<SourceRow> chunk;
+        while (!(chunk = readChunk(reader, format)).isEmpty()) {
+            List<ParsedRow> parsed = chunk.parallelStream()
+                    .map(source -> parse(source, header))
+                    .collect(Collectors.toList());
+            List<ParsedRow> valid = new ArrayList<>(parsed.size());
+            for (ParsedRow row : parsed) {
+                if (row.error != null) {
+                    result.reject(row.line, row.error);
+                } else {
+                    valid.add(row);
+                }
+            }
+            write(valid, categoryIds, result);
+        }
+
+        if (result.imported > 0) {
+            events.publishEvent(MenuChangedEvent.wholeMenu());
+        }
+        result.errors.sort(Comparator.comparingLong(CatalogRowErrorDto::getLine));
+        return new CatalogImportResultDto(result.imported, result.failed, result.errors);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exportCatalog(OutputStream out, CatalogFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == CatalogFormat.CSV) {
+            CsvUtil.writeRecord(writer, CSV_COLUMNS);
+        }
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = productRepo.findIdsAfter(afterId, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<CatalogRowDto> rows = readTransaction.execute(status -> {
+                List<CatalogRowDto> loaded = productRepo.findAllByIdWithCategoriesAndImages(ids).stream()
+                        .sorted(Comparator.comparing(Product::getId))
+                        .map(this::toRow)
+                        .collect(Collectors.toList());
+                entityManager.clear();
+                return loaded;
+            });
+            for (CatalogRowDto row : rows) {
+                if (format == CatalogFormat.CSV) {
+                    CsvUtil.writeRecord(writer, toCsv(row));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+            afterId = ids.get(ids.size() - 1);
+        }
+        writer.flush();
+    }
+
+    // ---- import ----
+
+    private Map<String, Integer> readHeader(LineNumberReader reader) throws IOException {
+        List<String> columns = CsvUtil.readRecord(reader);
+        Map<String, Integer> header = new HashMap<>();
+        if (columns == null) {
+            return header;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim();
+            if (i == 0 && column.startsWith("\uFEFF")) {
+                column = column.substring(1);
+            }
+            header.put(column, i);
+        }
+        return header;
+    }
+
+    /**
+     * Reads up to {@code chunkSize} non-blank rows.
+     */
+    private List<SourceRow> readChunk(LineNumberReader reader, CatalogFormat format) throws IOException {
+        List<SourceRow> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize) {
+            long line = reader.getLineNumber() + 1;
+            if (format == CatalogFormat.CSV) {
+                List<String> fields = CsvUtil.readRecord(reader);
+                if (fields == null) {
+                    break;
+                }
+                if (fields.size() > 1 || !fields.get(0).isBlank()) {
+                    chunk.add(new SourceRow(line, null, fields));
+                }
+            } else {
+                String text = reader.readLine();
+                if (text == null) {
+                    break;
+                }
+                if (!text.isBlank()) {
+                    chunk.add(new SourceRow(line, text, null));
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Parses and validates one row and stores its images. Runs in parallel,
+     * so it must not touch the persistence context.
+     */
+    private ParsedRow parse(SourceRow source, Map<String, Integer> header) {
+        try {
+            CatalogRowDto row = source.json != null
+                    ? objectMapper.readValue(source.json, CatalogRowDto.class)
+                    : fromCsv(source.fields, header);
+            List<String> problems = validate(row);
+            List<StoredImage> images = problems.isEmpty() ? storeImages(row, problems) : List.of();
+            if (!problems.isEmpty()) {
+                return ParsedRow.rejected(source.line, String.join("; ", problems));
+            }
+            return new ParsedRow(source.line, row, images, null);
+        } catch (JsonProcessingException e) {
+            return ParsedRow.rejected(source.line, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return ParsedRow.rejected(source.line, e.getMessage());
+        }
+    }
+
+    private CatalogRowDto fromCsv(List<String> fields, Map<String, Integer> header) {
+        return new CatalogRowDto(
+                csvField(fields, header, "type"),
+                csvField(fields, header, "productName"),
+                csvField(fields, header, "productDescription"),
+                parseValue("price", csvField(fields, header, "price"), BigDecimal::new),
+                parseValue("calorie", csvField(fields, header, "calorie"), Integer::valueOf),
+                parseValue("weightInGrams", csvField(fields, header, "weightInGrams"), Double::valueOf),
+                splitList(csvField(fields, header, "categories")),
+                splitList(csvField(fields, header, "ingredients")),
+                parseValue("alcohol", csvField(fields, header, "alcohol"), Double::valueOf),
+                parseValue("carbonated", csvField(fields, header, "carbonated"), CatalogServiceImpl::parseBoolean),
+                parseValue("sugarPerGram", csvField(fields, header, "sugarPerGram"), Double::valueOf),
+                csvField(fields, header, "iceCreamType"),
+                splitList(csvField(fields, header, "images"))
+        );
+    }
+
+    /**
+     * Checks the row against the same rules as the entity constructors, so
+     * that invalid rows are rejected before anything is written.
+     * Normalizes the type as a side effect.
+     */
+    private List<String> validate(CatalogRowDto row) {
+        List<String> problems = new ArrayList<>();
+        String type = row.getType() == null ? null : row.getType().trim().toUpperCase(Locale.ROOT);
+        if (!PRODUCT_TYPES.contains(type)) {
+            problems.add("Unknown product type: " + row.getType());
+        }
+        row.setType(type);
+        if (row.getProductName() == null || row.getProductName().isBlank()) {
+            problems.add("Product name must not be blank.");
+        }
+        if (row.getPrice() == null || row.getPrice().signum() < 0) {
+            problems.add("Price must be non-negative.");
+        }
+        if (row.getCalorie() == null || row.getCalorie() < 1) {
+            problems.add("Calorie must be at least 1.");
+        }
+        if (row.getWeightInGrams() == null || row.getWeightInGrams() < 1) {
+            problems.add("Weight must be at least 1 gram.");
+        }
+        if ("FOOD".equals(type) && nonBlank(row.getIngredients()).isEmpty()) {
+            problems.add("Food must have at least one ingredient.");
+        }
+        if (("DRINK".equals(type) || "MILK_COCKTAIL".equals(type))
+                && row.getAlcohol() != null && row.getAlcohol() < 0) {
+            problems.add("Alcohol level cannot be negative.");
+        }
+        if (("DESSERT".equals(type) || "MILK_COCKTAIL".equals(type))
+                && row.getSugarPerGram() != null && row.getSugarPerGram() < 0) {
+            problems.add("Sugar amount per gram must be non-negative.");
+        }
+        if ("MILK_COCKTAIL".equals(type) && iceCreamType(row.getIceCreamType()) == null) {
+            problems.add("Unknown ice cream type: " + row.getIceCreamType());
+        }
+        return problems;
+    }
+
+    /**
+     * Resolves the image references of a row, storing files from the import
+     * directory in the image store. Unresolvable references are added to
+     * {@code problems}.
+     */
+    private List<StoredImage> storeImages(CatalogRowDto row, List<String> problems) {
+        List<StoredImage> images = new ArrayList<>();
+        for (String ref : nonBlank(row.getImages())) {
+            if (ref.startsWith(STORE_PREFIX)) {
+                String name = ref.substring(STORE_PREFIX.length());
+                int dot = name.lastIndexOf('.');
+                ImageFormat format = dot < 0 ? null : imageFormat(name.substring(dot + 1));
+                String hash = dot < 0 ? name : name.substring(0, dot);
+                if (format == null || !imageStore.exists(hash)) {
+                    problems.add("Image not in the image store: " + ref);
+                } else {
+                    images.add(new StoredImage(hash, format));
+                }
+                continue;
+            }
+            Path file = imageRoot.resolve(ref).normalize();
+            int dot = ref.lastIndexOf('.');
+            ImageFormat format = dot < 0 ? null : imageFormat(ref.substring(dot + 1));
+            if (format == null || !file.startsWith(imageRoot) || !Files.isRegularFile(file)) {
+                problems.add("Image not found or not a PNG/JPEG file: " + ref);
+                continue;
+            }
+            try {
+                images.add(new StoredImage(imageStore.put(Files.readAllBytes(file)), format));
+            } catch (IOException | UncheckedIOException e) {
+                problems.add("Image could not be read: " + ref);
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Writes the valid rows of one chunk in a single transaction.
+     */
+    private void write(List<ParsedRow> rows, Map<String, Long> categoryIds, ImportResult result) {
+        List<Product> products = new ArrayList<>(rows.size());
+        List<ParsedRow> built = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            try {
+                products.add(toEntity(row));
+                built.add(row);
+            } catch (ValidationException | IllegalArgumentException e) {
+                result.reject(row.line, e.getMessage());
+            }
+        }
+        if (products.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> createdCategories = new HashMap<>();
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                productRepo.saveAll(products);
+                productRepo.flush();
+
+                List<Object[]> links = new ArrayList<>();
+                for (int i = 0; i < products.size(); i++) {
+                    Set<Long> linked = new HashSet<>();
+                    for (String name : nonBlank(built.get(i).row.getCategories())) {
+                        Long categoryId = categoryIds.get(categoryKey(name));
+                        if (categoryId == null) {
+                            categoryId = createdCategories.computeIfAbsent(categoryKey(name),
+                                    key -> categoryRepo.save(new Category(name.trim())).getId());
+                        }
+                        if (linked.add(categoryId)) {
+                            links.add(new Object[]{products.get(i).getId(), categoryId});
+                        }
+                    }
+                }
+                jdbc.batchUpdate(INSERT_CATEGORY_LINK, links);
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            entityManager.clear();
+            for (ParsedRow row : built) {
+                result.reject(row.line, "Chunk could not be written: " + e.getMessage());
+            }
+            return;
+        }
+        categoryIds.putAll(createdCategories);
+        result.imported += products.size();
+    }
+
+    private Product toEntity(ParsedRow parsed) {
+        CatalogRowDto row = parsed.row;
+        String name = row.getProductName().trim();
+        double alcohol = row.getAlcohol() == null ? 0 : row.getAlcohol();
+        boolean carbonated = row.getCarbonated() != null && row.getCarbonated();
+        double sugar = row.getSugarPerGram() == null ? 0 : row.getSugarPerGram();
+
+        Product product = switch (row.getType()) {
+            case "FOOD" -> new Food(name, row.getProductDescription(), row.getPrice(),
+                    row.getCalorie(), row.getWeightInGrams(), null, nonBlank(row.getIngredients()));
+            case "DRINK" -> new Drink(name, row.getProductDescription(), row.getPrice(),
+                    row.getCalorie(), row.getWeightInGrams(), alcohol, carbonated, null);
+            case "DESSERT" -> new Dessert(name, row.getProductDescription(), row.getPrice(),
+                    row.getCalorie(), row.getWeightInGrams(), sugar, null);
+            default -> new MilkCocktail(name, row.getProductDescription(), row.getPrice(),
+                    row.getCalorie(), row.getWeightInGrams(), alcohol, carbonated,
+                    iceCreamType(row.getIceCreamType()), sugar, null);
+        };
+        for (int i = 0; i < parsed.images.size(); i++) {
+            Image image = new Image();
+            image.setContentHash(parsed.images.get(i).hash);
+            image.setFormat(parsed.images.get(i).format);
+            image.setPreview(i == 0);
+            product.addImage(image);
+        }
+        return product;
+    }
+
+    // ---- export ----
+
+    private CatalogRowDto toRow(Product p) {
+        ProductDto dto = ProductMapper.toDto(p);
+        List<String> images = p.getImages().stream()
+                .sorted(Comparator.comparing(Image::isPreview).reversed().thenComparing(Image::getId))
+                .map(img -> STORE_PREFIX + img.getContentHash() + "." + img.getFormat().name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+        return new CatalogRowDto(
+                dto.getType(), dto.getProductName(), dto.getProductDescription(),
+                dto.getPrice(), dto.getCalorie(), dto.getWeightInGrams(),
+                dto.getCategories().stream().map(CategoryDto::getName).sorted().collect(Collectors.toList()),
+                dto.getIngredients(), dto.getAlcohol(), dto.getCarbonated(), dto.getSugarPerGram(),
+                dto.getIceCreamType() == null ? null : dto.getIceCreamType().name(),
+                images
+        );
+    }
+
+    private static List<String> toCsv(CatalogRowDto row) {
+        return Arrays.asList(
+                row.getType(),
+                row.getProductName(),
+                row.getProductDescription(),
+                row.getPrice() == null ? null : row.getPrice().toPlainString(),
+                Objects.toString(row.getCalorie(), null),
+                Objects.toString(row.getWeightInGrams(), null),
+                joinList(row.getCategories()),
+                joinList(row.getIngredients()),
+                Objects.toString(row.getAlcohol(), null),
+                Objects.toString(row.getCarbonated(), null),
+                Objects.toString(row.getSugarPerGram(), null),
+                row.getIceCreamType(),
+                joinList(row.getImages())
+        );
+    }
+
+    // ---- helpers ----
+
+    private static String categoryKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String csvField(List<String> fields, Map<String, Integer> header, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> T parseValue(String column, String value, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "1" -> true;
+            case "false", "no", "0" -> false;
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    private static List<String> splitList(String value) {
+        if (value == null) {
+            return null;
+        }
+        return nonBlank(Arrays.asList(value.split("\\" + LIST_SEPARATOR)));
+    }
+
+    private static String joinList(List<String> values) {
+        return values == null || values.isEmpty() ? null : String.join(LIST_SEPARATOR, values);
+    }
+
+    private static List<String> nonBlank(List<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream()
+                .filter(v -> v != null && !v.isBlank())
+                .map(String::trim)
+                .collect(Collectors.toList());
+    }
+
+    private static IceCreamType iceCreamType(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return IceCreamType.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ImageFormat imageFormat(String extension) {
+        try {
+            return ImageFormat.valueOf(extension.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A raw row: either one JSON line or the fields of one CSV record.
+     */
+    private static final class SourceRow {
+
+        private final long         line;
+        private final String       json;
+        private final List<String> fields;
+
+        private SourceRow(long line, String json, List<String> fields) {
+            this.line   = line;
+            this.json   = json;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * A parsed row with its stored images, or the reason it was rejected.
+     */
+    private static final class ParsedRow {
+
+        private final long              line;
+        private final CatalogRowDto     row;
+        private final List<StoredImage> images;
+        private final String            error;
+
+        private ParsedRow(long line, CatalogRowDto row, List<StoredImage> images, String error) {
+            this.line   = line;
+            this.row    = row;
+            this.images = images;
+            this.error  = error;
+        }
+
+        static ParsedRow rejected(long line, String error) {
+            return new ParsedRow(line, null, List.of(), error);
+        }
+    }
+
+    /**
+     * An image whose content is in the image store.
+     */
+    private static final class StoredImage {
+
+        private final String      hash;
+        private final ImageFormat format;
+
+        private StoredImage(String hash, ImageFormat format) {
+            this.hash   = hash;
+            this.format = format;
+        }
+    }
+
+    /**
+     * Counters and the (capped) error list of a running import.
+     */
+    private final class ImportResult {
+
+        private int imported;
+        private int failed;
+        private final List<CatalogRowErrorDto> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new CatalogRowErrorDto(line, message));
+            }
+        }
+    }
+}
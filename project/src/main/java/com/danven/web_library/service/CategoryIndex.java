@@ -0,0 +1,197 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.CategoryDto;
+import com.danven.web_library.dto.ProductDto;
+
+import java.util.*;
+
+/**
+ * Immutable index from categories to products.
+ * <p>
+ * Products are addressed by ordinals (their slot in the menu snapshot's
+ * product list); every category keeps a {@link BitSet} of the ordinals of its
+ * products. Single- and multi-category queries are answered with bitwise
+ * AND/OR over these sets without touching any entity. Category names are
+ * resolved case-insensitively to IDs.
+ * <p>
+ * Ordinals are stable between snapshots: new products are appended and
+ * removed products leave an empty slot, so {@link #withChanges} only updates
+ * the sets of the categories a changed product left or joined and shares all
+ * other sets with the previous index.
+ */
+public final class CategoryIndex {
+
+    private static final BitSet EMPTY = new BitSet(0);
+
+    private final int                size;
+    private final Map<Long, BitSet>  productsByCategory;
+    private final Map<String, Long>  categoryIdsByName;
+
+    private CategoryIndex(int size,
+                          Map<Long, BitSet> productsByCategory,
+                          Map<String, Long> categoryIdsByName) {
+        this.size               = size;
+        this.productsByCategory = productsByCategory;
+        this.categoryIdsByName  = categoryIdsByName;
+    }
+
+    /**
+     * Builds the index for the given products; the ordinal of a product is its
+     * position in {@code products}.
+     *
+     * @param products   the products, in ordinal order; null for an empty slot
+     * @param categories all known categories, including those without products
+     * @return the new index
+     */
+    public static CategoryIndex build(List<ProductDto> products, List<CategoryDto> categories) {
+        Map<Long, BitSet> byCategory = new HashMap<>();
+        Map<String, Long> byName     = new HashMap<>();
+        for (CategoryDto c : categories) {
+            byName.put(normalize(c.getName()), c.getId());
+        }
+        for (int ordinal = 0; ordinal < products.size(); ordinal++) {
+            ProductDto p = products.get(ordinal);
+            if (p == null) {
+                continue;
+            }
+            for (CategoryDto c : p.getCategories()) {
+                byCategory.computeIfAbsent(c.getId(), k -> new BitSet(products.size())).set(ordinal);
+                byName.putIfAbsent(normalize(c.getName()), c.getId());
+            }
+        }
+        return new CategoryIndex(products.size(), Map.copyOf(byCategory), Map.copyOf(byName));
+    }
+
+    /**
+     * Derives the index for a changed product list from this one. Only the
+     * sets of the categories the changed products were or are in are copied
+     * and updated, so the cost is proportional to the changes plus the size
+     * of those sets, not to the whole menu.
+     *
+     * @param products the products after the change, in ordinal order; null
+     *                 for an empty slot; ordinals of this index must not move
+     * @param previous ordinal → product before the change (null if the slot
+     *                 is new) for every slot that changed
+     * @return the new index
+     */
+    public CategoryIndex withChanges(List<ProductDto> products, Map<Integer, ProductDto> previous) {
+        Map<Long, BitSet> byCategory = new HashMap<>(productsByCategory);
+        Map<String, Long> byName     = new HashMap<>(categoryIdsByName);
+        Set<Long>         copied     = new HashSet<>();
+        for (Map.Entry<Integer, ProductDto> e : previous.entrySet()) {
+            int ordinal = e.getKey();
+            if (e.getValue() != null) {
+                for (CategoryDto c : e.getValue().getCategories()) {
+                    BitSet set = byCategory.get(c.getId());
+                    if (set != null && set.get(ordinal)) {
+                        writable(byCategory, copied, c.getId(), products.size()).clear(ordinal);
+                    }
+                }
+            }
+            ProductDto now = products.get(ordinal);
+            if (now != null) {
+                for (CategoryDto c : now.getCategories()) {
+                    writable(byCategory, copied, c.getId(), products.size()).set(ordinal);
+                    byName.putIfAbsent(normalize(c.getName()), c.getId());
+                }
+            }
+        }
+        byCategory.values().removeIf(BitSet::isEmpty);
+        return new CategoryIndex(products.size(), Map.copyOf(byCategory), Map.copyOf(byName));
+    }
+
+    /**
+     * Returns the set of a category that {@link #withChanges} may modify,
+     * copying the shared one on first use.
+     */
+    private static BitSet writable(Map<Long, BitSet> byCategory, Set<Long> copied, Long categoryId, int size) {
+        if (copied.add(categoryId)) {
+            BitSet shared = byCategory.get(categoryId);
+            byCategory.put(categoryId, shared == null ? new BitSet(size) : (BitSet) shared.clone());
+        }
+        return byCategory.get(categoryId);
+    }
+
+    /**
+     * @return the number of ordinals, including empty slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the IDs of all categories having at least one product
+     */
+    public Set<Long> categoryIds() {
+        return productsByCategory.keySet();
+    }
+
+    /**
+     * @param categoryName the category name, matched case-insensitively
+     * @return the ID of that category, or empty if it is unknown
+     */
+    public Optional<Long> categoryId(String categoryName) {
+        if (categoryName == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(categoryIdsByName.get(normalize(categoryName)));
+    }
+
+    /**
+     * @param categoryId the category ID
+     * @return the ordinals of the products in that category (a fresh copy)
+     */
+    public BitSet inCategory(Long categoryId) {
+        return (BitSet) productsByCategory.getOrDefault(categoryId, EMPTY).clone();
+    }
+
+    /**
+     * @param categoryIds the category IDs; an empty collection matches nothing
+     * @return the ordinals of the products belonging to every given category
+     */
+    public BitSet inAllCategories(Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return new BitSet(0);
+        }
+        // start from the smallest set so that the intersection shrinks fastest
+        List<BitSet> sets = new ArrayList<>(categoryIds.size());
+        for (Long id : categoryIds) {
+            BitSet set = productsByCategory.get(id);
+            if (set == null) {
+                return new BitSet(0);
+            }
+            sets.add(set);
+        }
+        sets.sort(Comparator.comparingInt(BitSet::cardinality));
+        BitSet result = (BitSet) sets.get(0).clone();
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.and(sets.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @param categoryIds the category IDs; an empty collection matches nothing
+     * @return the ordinals of the products belonging to at least one given category
+     */
+    public BitSet inAnyCategory(Collection<Long> categoryIds) {
+        BitSet result = new BitSet(size);
+        for (Long id : categoryIds) {
+            BitSet set = productsByCategory.get(id);
+            if (set != null) {
+                result.or(set);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Case-folds a category name for lookups.
+     *
+     * @param name the category name
+     * @return the normalized name
+     */
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,170 @@
+package com.danven.web_library.service;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded outgoing queue of one connection of a push stream (Server-Sent
+ * Events or WebSocket), drained on an executor.
+ * <p>
+ * Publishers never block: {@link #offer} only queues the frame and makes
+ * sure a drain is scheduled. At most one drain per connection runs at a time,
+ * so frames are sent in order; if the executor is saturated they stay queued
+ * until the next offer (streams send heartbeats, so there always is one). A
+ * connection whose queue overflows, or whose send fails, is too far behind
+ * to catch up: the outbox closes and {@link #failed} disconnects it, and the
+ * client reconnects and resynchronizes.
+ * <p>
+ * {@link #send} is called while holding the outbox's monitor, so subclasses
+ * can send out of band (e.g. a snapshot) under the same monitor.
+ *
+ * @param <F> the pre-serialized frame type of the stream
+ */
+abstract class ClientOutbox<F> {
+
+    private final TaskExecutor     executor;
+    private final BlockingDeque<F> queue;
+    private final AtomicBoolean    draining = new AtomicBoolean();
+    private final AtomicBoolean    closed   = new AtomicBoolean();
+
+    /** Set while frames should queue up without being sent. */
+    private volatile boolean paused;
+
+    /**
+     * @param executor drains the queue
+     * @param capacity the most frames queued before the connection is dropped
+     * @param paused   whether to hold frames back until {@link #resume}
+     */
+    protected ClientOutbox(TaskExecutor executor, int capacity, boolean paused) {
+        this.executor = executor;
+        this.queue    = new LinkedBlockingDeque<>(capacity);
+        this.paused   = paused;
+    }
+
+    /**
+     * Sends one frame to the client.
+     *
+     * @param frame the frame
+     * @throws IOException if the connection is broken
+     */
+    protected abstract void send(F frame) throws IOException;
+
+    /**
+     * Called once when the outbox closes because the client fell behind or a
+     * send failed; unregisters the connection and closes it.
+     */
+    protected abstract void failed();
+
+    /**
+     * Queues a frame without blocking; fails the connection if the queue is full.
+     *
+     * @param frame the frame
+     */
+    void offer(F frame) {
+        if (closed.get()) {
+            return;
+        }
+        if (!queue.offer(frame)) {
+            fail();
+            return;
+        }
+        schedule();
+    }
+
+    /**
+     * Queues a frame ahead of all frames queued so far, e.g. a snapshot that
+     * the changes published meanwhile apply to.
+     *
+     * @param frame the frame
+     * @return false if the queue was full and the connection failed
+     */
+    boolean offerFirst(F frame) {
+        if (!queue.offerFirst(frame)) {
+            fail();
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * Holds queued frames back until {@link #resume}.
+     */
+    void pause() {
+        paused = true;
+    }
+
+    /**
+     * Sends the frames held back by {@link #pause}.
+     */
+    void resume() {
+        paused = false;
+        schedule();
+    }
+
+    /**
+     * Discards all queued frames.
+     */
+    void clear() {
+        queue.clear();
+    }
+
+    /**
+     * Stops sending and discards the queued frames.
+     *
+     * @return true if the outbox was still open
+     */
+    boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        queue.clear();
+        return true;
+    }
+
+    /**
+     * Closes the outbox and disconnects the client, unless already closed.
+     */
+    protected void fail() {
+        if (close()) {
+            failed();
+        }
+    }
+
+    /**
+     * Starts draining unless paused, closed or a drain is already running.
+     */
+    void schedule() {
+        if (paused || closed.get() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (TaskRejectedException e) {
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            F frame;
+            while (!paused && (frame = queue.poll()) != null) {
+                synchronized (this) {
+                    send(frame);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            fail();
+        } finally {
+            draining.set(false);
+        }
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.danven.web_library.service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongPredicate;
+
+/**
+ * Item-to-item co-occurrence counts over order baskets, for "often ordered
+ * with" suggestions.
+ * <p>
+ * Products get dense ordinals in the order they are first seen; every ordinal
+ * has a sparse row of primitive ordinal-to-count entries. Suggestions are
+ * ranked by cosine similarity, {@code count(a, b) / sqrt(orders(a) * orders(b))},
+ * so that products which are simply ordered a lot do not dominate.
+ * <p>
+ * Not thread-safe; callers guard it with a lock.
+ */
+public final class CoOccurrenceMatrix {
+
+    /** Number of baskets below which a build task counts sequentially. */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[]      productIds   = new long[16];
+    private int[]       basketCounts = new int[16];
+    private SparseRow[] rows         = new SparseRow[16];
+    private int         size;
+
+    /**
+     * Counts all pairs of the given baskets, splitting the work over the
+     * common fork-join pool.
+     *
+     * @param baskets the baskets, each holding distinct product IDs
+     * @return the new matrix
+     */
+    public static CoOccurrenceMatrix build(List<long[]> baskets) {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix();
+        int[][] ordinalBaskets = new int[baskets.size()][];
+        for (int i = 0; i < ordinalBaskets.length; i++) {
+            ordinalBaskets[i] = matrix.countBasket(baskets.get(i));
+        }
+        SparseRow[] rows = ForkJoinPool.commonPool()
+                .invoke(new CountTask(ordinalBaskets, 0, ordinalBaskets.length, matrix.size));
+        System.arraycopy(rows, 0, matrix.rows, 0, matrix.size);
+        return matrix;
+    }
+
+    /**
+     * Adds one basket.
+     *
+     * @param basket distinct product IDs ordered together
+     */
+    public void addBasket(long[] basket) {
+        int[] basketOrdinals = countBasket(basket);
+        for (int a : basketOrdinals) {
+            for (int b : basketOrdinals) {
+                if (a != b) {
+                    row(a).increment(b, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct products seen in any basket
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ranks the products most often ordered together with the given ones;
+     * scores of several given products add up.
+     *
+     * @param seeds  the products to find companions for
+     * @param limit  maximum number of suggestions
+     * @param accept products allowed in the result (e.g. those on the menu)
+     * @return the suggestions, best first; never contains a seed
+     */
+    public List<Suggestion> topK(Collection<Long> seeds, int limit, LongPredicate accept) {
+        Set<Integer> seedOrdinals = new HashSet<>();
+        for (Long id : seeds) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal != null) {
+                seedOrdinals.add(ordinal);
+            }
+        }
+        if (seedOrdinals.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        ScoreMap scores = new ScoreMap();
+        for (int s : seedOrdinals) {
+            SparseRow row = rows[s];
+            if (row == null) {
+                continue;
+            }
+            for (int i = 0; i < row.keys.length; i++) {
+                int o = row.keys[i];
+                if (o >= 0 && !seedOrdinals.contains(o)) {
+                    scores.add(o, row.counts[i] / Math.sqrt((double) basketCounts[s] * basketCounts[o]));
+                }
+            }
+        }
+
+        // the best ordinals so far, best first; limit is small, so insertion beats a heap
+        int[]    topOrdinals = new int[limit];
+        double[] topScores   = new double[limit];
+        int      found       = 0;
+        for (int i = 0; i < scores.keys.length; i++) {
+            int o = scores.keys[i];
+            if (o < 0) {
+                continue;
+            }
+            double score = scores.values[i];
+            if (found == limit && !ranksBefore(score, o, topScores[limit - 1], topOrdinals[limit - 1])) {
+                continue;
+            }
+            if (!accept.test(productIds[o])) {
+                continue;
+            }
+            int pos = found < limit ? found++ : limit - 1;
+            while (pos > 0 && ranksBefore(score, o, topScores[pos - 1], topOrdinals[pos - 1])) {
+                topScores[pos]   = topScores[pos - 1];
+                topOrdinals[pos] = topOrdinals[pos - 1];
+                pos--;
+            }
+            topScores[pos]   = score;
+            topOrdinals[pos] = o;
+        }
+        List<Suggestion> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(new Suggestion(productIds[topOrdinals[i]], topScores[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Higher scores first; ties go to the lower product ID.
+     */
+    private boolean ranksBefore(double score, int ordinal, double otherScore, int otherOrdinal) {
+        return score > otherScore || (score == otherScore && productIds[ordinal] < productIds[otherOrdinal]);
+    }
+
+    /**
+     * Assigns ordinals to the products of a basket and counts the basket
+     * towards each of them; pairs are not counted.
+     */
+    private int[] countBasket(long[] basket) {
+        int[] result = new int[basket.length];
+        for (int i = 0; i < basket.length; i++) {
+            int ordinal = ordinalOf(basket[i]);
+            basketCounts[ordinal]++;
+            result[i] = ordinal;
+        }
+        return result;
+    }
+
+    private int ordinalOf(long productId) {
+        Integer ordinal = ordinals.get(productId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        if (size == productIds.length) {
+            int capacity = size * 2;
+            productIds   = Arrays.copyOf(productIds, capacity);
+            basketCounts = Arrays.copyOf(basketCounts, capacity);
+            rows         = Arrays.copyOf(rows, capacity);
+        }
+        productIds[size] = productId;
+        ordinals.put(productId, size);
+        return size++;
+    }
+
+    private SparseRow row(int ordinal) {
+        SparseRow row = rows[ordinal];
+        if (row == null) {
+            row = rows[ordinal] = new SparseRow();
+        }
+        return row;
+    }
+
+    /**
+     * A product suggested with its score.
+     */
+    public static final class Suggestion {
+
+        private final long   productId;
+        private final double score;
+
+        private Suggestion(long productId, double score) {
+            this.productId = productId;
+            this.score     = score;
+        }
+
+        /**
+         * @return the suggested product
+         */
+        public long getProductId() {
+            return productId;
+        }
+
+        /**
+         * @return the cosine similarity to the seeds, summed over the seeds
+         */
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Counts the pairs of a range of baskets, halving the range until it is
+     * small enough and merging the partial rows on the way back.
+     */
+    private static final class CountTask extends RecursiveTask<SparseRow[]> {
+
+        private final int[][] baskets;
+        private final int     from;
+        private final int     to;
+        private final int     size;
+
+        private CountTask(int[][] baskets, int from, int to, int size) {
+            this.baskets = baskets;
+            this.from    = from;
+            this.to      = to;
+            this.size    = size;
+        }
+
+        @Override
+        protected SparseRow[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                SparseRow[] rows = new SparseRow[size];
+                for (int i = from; i < to; i++) {
+                    int[] basket = baskets[i];
+                    for (int a : basket) {
+                        for (int b : basket) {
+                            if (a != b) {
+                                if (rows[a] == null) {
+                                    rows[a] = new SparseRow();
+                                }
+                                rows[a].increment(b, 1);
+                            }
+                        }
+                    }
+                }
+                return rows;
+            }
+            int mid = (from + to) >>> 1;
+            CountTask right = new CountTask(baskets, mid, to, size);
+            right.fork();
+            SparseRow[] left = new CountTask(baskets, from, mid, size).compute();
+            SparseRow[] other = right.join();
+            for (int r = 0; r < size; r++) {
+                if (left[r] == null) {
+                    left[r] = other[r];
+                } else if (other[r] != null) {
+                    left[r].addAll(other[r]);
+                }
+            }
+            return left;
+        }
+    }
+
+    /**
+     * Open-addressing map from ordinal to count; free slots hold -1.
+     */
+    private static final class SparseRow {
+
+        private int[] keys   = emptyKeys(4);
+        private int[] counts = new int[4];
+        private int   used;
+
+        void increment(int key, int amount) {
+            int slot = slotOf(keys, key);
+            if (keys[slot] < 0) {
+                if ((used + 1) * 2 > keys.length) {
+                    grow();
+                    slot = slotOf(keys, key);
+                }
+                keys[slot] = key;
+                used++;
+            }
+            counts[slot] += amount;
+        }
+
+        void addAll(SparseRow other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] >= 0) {
+                    increment(other.keys[i], other.counts[i]);
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys   = keys;
+            int[] oldCounts = counts;
+            keys   = emptyKeys(oldKeys.length * 2);
+            counts = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) {
+                    int slot = slotOf(keys, oldKeys[i]);
+                    keys[slot]   = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Open-addressing map from ordinal to accumulated score; free slots hold -1.
+     */
+    private static final class ScoreMap {
+
+        private int[]    keys   = emptyKeys(16);
+        private double[] values = new double[16];
+        private int      used;
+
+        void add(int key, double amount) {
+            int slot = slotOf(keys, key);
+            if (keys[slot] < 0) {
+                if ((used + 1) * 2 > keys.length) {
+                    grow();
+                    slot = slotOf(keys, key);
+                }
+                keys[slot] = key;
+                used++;
+            }
+            values[slot] += amount;
+        }
+
+        private void grow() {
+            int[]    oldKeys   = keys;
+            double[] oldValues = values;
+            keys   = emptyKeys(oldKeys.length * 2);
+            values = new double[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) {
+                    int slot = slotOf(keys, oldKeys[i]);
+                    keys[slot]   = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    private static int[] emptyKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, -1);
+        return keys;
+    }
+
+    /**
+     * Linear probing over a power-of-two table: the slot holding {@code key},
+     * or the free slot where it belongs.
+     */
+    private static int slotOf(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 1 & mask;
+        while (keys[slot] >= 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
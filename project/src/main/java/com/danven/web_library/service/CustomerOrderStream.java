@@ -0,0 +1,200 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.OrderStateDto;
+import com.danven.web_library.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes status and payment changes of orders to the customers who placed
+ * them, as Server-Sent Events.
+ * <p>
+ * Connections are registered by customer ID and hold nothing but that ID and
+ * pre-serialized events. A new connection first gets a {@code snapshot} of
+ * the states of all the customer's orders, then a {@code state} event for
+ * every committed change; a reconnecting client simply gets a new snapshot,
+ * so no replay buffer is needed.
+ * <p>
+ * Publishing never blocks: each connection has a {@link ClientOutbox} drained
+ * by the {@code orderStreamExecutor}, and a connection whose queue overflows
+ * is closed (the browser reconnects and gets a fresh snapshot).
+ */
+@Service
+public class CustomerOrderStream {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String STATE_EVENT    = "state";
+
+    private final OrderRepository orderRepo;
+    private final ObjectMapper    objectMapper;
+    private final TaskExecutor    executor;
+    private final int             clientQueueCapacity;
+    private final long            timeoutMs;
+
+    private final Map<Long, Set<Client>> clientsByCustomer = new ConcurrentHashMap<>();
+
+    public CustomerOrderStream(OrderRepository orderRepo,
+                               ObjectMapper objectMapper,
+                               @Qualifier("orderStreamExecutor") TaskExecutor executor,
+                               @Value("${palatos.order-stream.client-queue-capacity:16}") int clientQueueCapacity,
+                               @Value("${palatos.order-stream.timeout-ms:1800000}") long timeoutMs) {
+        this.orderRepo           = orderRepo;
+        this.objectMapper        = objectMapper;
+        this.executor            = executor;
+        this.clientQueueCapacity = clientQueueCapacity;
+        this.timeoutMs           = timeoutMs;
+    }
+
+    /**
+     * Opens a stream of the given customer's order changes.
+     *
+     * @param customerId the logged-in customer
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(Long customerId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(customerId, emitter);
+        emitter.onCompletion(client::unregister);
+        emitter.onTimeout(client::unregister);
+        emitter.onError(e -> client.unregister());
+
+        // register before reading the snapshot, so that no change falls in between;
+        // changes queued meanwhile are newer than or included in the snapshot
+        clientsByCustomer.compute(customerId, (id, clients) -> {
+            Set<Client> result = clients == null ? ConcurrentHashMap.newKeySet() : clients;
+            result.add(client);
+            return result;
+        });
+        List<OrderStateDto> states = orderRepo.findStatesByCustomerId(customerId);
+        if (client.offerFirst(new Frame(SNAPSHOT_EVENT, toJson(states)))) {
+            client.resume();
+        }
+        return emitter;
+    }
+
+    /**
+     * Publishes an order change to its customer once its transaction has committed.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getCustomerId() == null) {
+            return;
+        }
+        Set<Client> clients = clientsByCustomer.get(event.getCustomerId());
+        if (clients == null || clients.isEmpty()) {
+            return;
+        }
+        Frame frame = new Frame(STATE_EVENT, toJson(
+                new OrderStateDto(event.getOrderId(), event.getStatus(), event.getPaymentStatus())));
+        clients.forEach(c -> c.offer(frame));
+    }
+
+    /**
+     * Sends a comment to every connection so that proxies keep idle
+     * connections open and dead connections are noticed.
+     */
+    @Scheduled(
+            initialDelayString = "${palatos.order-stream.heartbeat-interval-ms:25000}",
+            fixedDelayString   = "${palatos.order-stream.heartbeat-interval-ms:25000}"
+    )
+    public void heartbeat() {
+        clientsByCustomer.values().forEach(clients -> clients.forEach(c -> c.offer(Frame.HEARTBEAT)));
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    public int clientCount() {
+        return clientsByCustomer.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A pre-serialized event shared by all connections of a customer.
+     */
+    private static final class Frame {
+
+        static final Frame HEARTBEAT = new Frame(null, null);
+
+        private final String name;
+        private final String data;
+
+        private Frame(String name, String data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event()
+                    .name(name)
+                    .data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * One open connection of a customer. It starts paused: changes queue up
+     * behind the snapshot until that is queued.
+     */
+    private final class Client extends ClientOutbox<Frame> {
+
+        private final Long       customerId;
+        private final SseEmitter emitter;
+
+        private Client(Long customerId, SseEmitter emitter) {
+            super(executor, clientQueueCapacity, true);
+            this.customerId = customerId;
+            this.emitter    = emitter;
+        }
+
+        @Override
+        protected void send(Frame frame) throws IOException {
+            emitter.send(frame.toEvent());
+        }
+
+        @Override
+        protected void failed() {
+            unregister();
+            emitter.complete();
+        }
+
+        /**
+         * Removes the connection from the registry, and the customer once
+         * they have no connections left.
+         */
+        void unregister() {
+            close();
+            clientsByCustomer.computeIfPresent(customerId, (id, clients) -> {
+                clients.remove(this);
+                return clients.isEmpty() ? null : clients;
+            });
+        }
+    }
+}
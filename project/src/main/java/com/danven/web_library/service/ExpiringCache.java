@@ -0,0 +1,119 @@
+package com.danven.web_library.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Small in-memory cache for per-entity lookups that may be a little stale.
+ * <p>
+ * Entries expire a fixed time after they were loaded, and at most
+ * {@code maxEntries} are kept: the least recently used entry goes first.
+ * Misses of one lookup are loaded with a single call, so callers can answer
+ * them with one bulk query. Evicting from inside a transaction evicts again
+ * after the commit, since a concurrent reader may re-cache the old value
+ * before then.
+ *
+ * @param <K> the key, usually an entity ID
+ * @param <V> the cached value
+ */
+public final class ExpiringCache<K, V> {
+
+    private final long                ttlMillis;
+    /** Access-ordered; guarded by itself. */
+    private final Map<K, Entry<V>>    entries;
+
+    /**
+     * @param ttlMillis  how long an entry stays cached
+     * @param maxEntries the most entries kept
+     */
+    public ExpiringCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.entries   = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Looks up several keys, loading the missing and expired ones together.
+     *
+     * @param keys   the keys to look up
+     * @param loader loads the given keys; must return a value for every one
+     *               of them (callers map "nothing found" to a placeholder value)
+     * @return key → value for all {@code keys}
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        long now = System.currentTimeMillis();
+        Map<K, V> result = new HashMap<>();
+        Set<K> missing = new HashSet<>();
+
+        synchronized (entries) {
+            for (K key : keys) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null && entry.expiresAt > now) {
+                    result.put(key, entry.value);
+                } else {
+                    if (entry != null) {
+                        entries.remove(key);
+                    }
+                    missing.add(key);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<K, V> loaded = loader.apply(missing);
+            synchronized (entries) {
+                for (K key : missing) {
+                    entries.put(key, new Entry<>(loaded.get(key), now + ttlMillis));
+                }
+            }
+            for (K key : missing) {
+                result.put(key, loaded.get(key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the given keys now and, inside a transaction, again after commit.
+     *
+     * @param keys the keys to drop
+     */
+    public void evict(Collection<K> keys) {
+        List<K> copy = new ArrayList<>(keys);
+        removeAll(copy);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeAll(copy);
+                }
+            });
+        }
+    }
+
+    private void removeAll(List<K> keys) {
+        synchronized (entries) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    /**
+     * Cached value with its expiry timestamp.
+     */
+    private static final class Entry<V> {
+        private final V    value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value     = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,8 +2,11 @@
 package com.danven.web_library.service;
 
 import com.danven.web_library.domain.feedback.Feedback;
+import com.danven.web_library.dto.FeedbackSummaryDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FeedbackService {
 
@@ -31,4 +34,13 @@ public interface FeedbackService {
      * @return true, если хотя бы один отзыв есть
      */
     boolean hasFeedbacks(Long orderId);
+
+    /**
+     * Получить сводку по отзывам сразу для многих заказов (одним запросом,
+     * с кэшированием по заказу).
+     *
+     * @param orderIds идентификаторы заказов
+     * @return сводка для каждого заказа; у заказов без отзывов count = 0
+     */
+    Map<Long, FeedbackSummaryDto> getSummaries(Collection<Long> orderIds);
 }
@@ -4,24 +4,37 @@ package com.danven.web_library.service;
 import com.danven.web_library.domain.feedback.Feedback;
 import com.danven.web_library.domain.order.Order;
 import com.danven.web_library.domain.user.Customer;
+import com.danven.web_library.dto.FeedbackSummaryDto;
 import com.danven.web_library.repository.FeedbackRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * Service implementation for managing customer feedback.
  * Handles creation of Feedback entries and retrieval of feedback
- * associated with specific orders.
+ * associated with specific orders. Per-order summaries are loaded in bulk
+ * with one grouped query and kept in a small {@link ExpiringCache}; leaving
+ * feedback evicts the order's summary.
  */
 @Service
 public class FeedbackServiceImpl implements FeedbackService {
 
+    /** How long a feedback summary stays cached. */
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /** How many order summaries stay cached at most. */
+    private static final int MAX_CACHED = 10_000;
+
     private final FeedbackRepository    feedbackRepo;
     private final OrderPersistenceService orderService;
 
+    /** orderId → cached summary (count 0 when the order has none). */
+    private final ExpiringCache<Long, FeedbackSummaryDto> cache = new ExpiringCache<>(TTL_MILLIS, MAX_CACHED);
+
     public FeedbackServiceImpl(FeedbackRepository feedbackRepo,
                                OrderPersistenceService orderService) {
         this.feedbackRepo = feedbackRepo;
@@ -45,7 +58,9 @@ public class FeedbackServiceImpl implements FeedbackService {
         Customer customer = order.getCustomer();
 
         Feedback fb = new Feedback(text, LocalDateTime.now(), order, customer);
-        return feedbackRepo.save(fb);
+        Feedback saved = feedbackRepo.save(fb);
+        cache.evict(List.of(orderId));
+        return saved;
     }
 
     /**
@@ -68,6 +83,23 @@ public class FeedbackServiceImpl implements FeedbackService {
      */
     @Override
     public boolean hasFeedbacks(Long orderId) {
-        return !getByOrder(orderId).isEmpty();
+        return getSummaries(List.of(orderId)).get(orderId).hasFeedback();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Long, FeedbackSummaryDto> getSummaries(Collection<Long> orderIds) {
+        return cache.getAll(orderIds, missing -> {
+            Map<Long, FeedbackSummaryDto> loaded = new HashMap<>();
+            for (FeedbackSummaryDto s : feedbackRepo.findSummariesByOrderIds(missing)) {
+                loaded.put(s.getOrderId(), s);
+            }
+            for (Long id : missing) {
+                loaded.putIfAbsent(id, new FeedbackSummaryDto(id, 0, null));
+            }
+            return loaded;
+        });
     }
 }
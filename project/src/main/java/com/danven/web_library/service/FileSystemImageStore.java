@@ -0,0 +1,114 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.util.ImageUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * {@link ImageStore} keeping each blob as a file named after its SHA-256 hash.
+ * Files are sharded by the first two hex characters ({@code ab/abcdef...})
+ * and written through a temporary file plus atomic move, so readers never see
+ * partial content.
+ */
+@Component
+public class FileSystemImageStore implements ImageStore {
+
+    /** Blobs touched more recently than this are never garbage-collected. */
+    private static final Duration GC_GRACE_PERIOD = Duration.ofMinutes(10);
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public FileSystemImageStore(@Value("${palatos.image-store.root}") String root) throws IOException {
+        this.root = Files.createDirectories(Paths.get(root)).toAbsolutePath();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String put(byte[] bytes) {
+        String hash = ImageUtil.sha256Hex(bytes);
+        Path target = pathOf(hash);
+        try {
+            if (Files.exists(target)) {
+                // deduplicated: refresh the timestamp so GC keeps it until the new reference commits
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                return hash;
+            }
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                Files.write(tmp, bytes);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException raced) {
+                // another upload of the same content won the race
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store image " + hash, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean exists(String contentHash) {
+        return Files.exists(pathOf(contentHash));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Resource open(String contentHash) {
+        return new FileSystemResource(pathOf(contentHash));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int retainOnly(Set<String> liveHashes) {
+        Instant cutoff = Instant.now().minus(GC_GRACE_PERIOD);
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                if (HASH.matcher(name).matches() && liveHashes.contains(name)) {
+                    continue;
+                }
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+                        && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to collect unreferenced images", e);
+        }
+        return deleted;
+    }
+
+    private Path pathOf(String contentHash) {
+        if (contentHash == null || !HASH.matcher(contentHash).matches()) {
+            throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+        }
+        return root.resolve(contentHash.substring(0, 2)).resolve(contentHash);
+    }
+}
@@ -0,0 +1,28 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.product.Image;
+
+import java.util.Collection;
+
+/**
+ * Generates the sized derivatives ({@link com.danven.web_library.domain.product.ImageVariant})
+ * of uploaded images in the background.
+ */
+public interface ImageDerivativeService {
+
+    /**
+     * Queue derivative generation for the given images once the current
+     * transaction commits (immediately if no transaction is active).
+     * Returns without waiting for the images to be processed.
+     *
+     * @param images newly stored images; their IDs are read after commit
+     */
+    void generateAfterCommit(Collection<Image> images);
+
+    /**
+     * Queue derivative generation for every image that has none yet.
+     *
+     * @return number of images queued
+     */
+    int backfill();
+}
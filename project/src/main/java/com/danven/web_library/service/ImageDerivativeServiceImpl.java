@@ -0,0 +1,296 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.product.Image;
+import com.danven.web_library.domain.product.ImageDerivative;
+import com.danven.web_library.domain.product.ImageFormat;
+import com.danven.web_library.domain.product.ImageVariant;
+import com.danven.web_library.dto.ImageMetadataDto;
+import com.danven.web_library.repository.ImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default implementation of {@link ImageDerivativeService} based on {@code javax.imageio}.
+ * <p>
+ * Images are decoded once (subsampled while reading when far larger than the
+ * biggest variant), scaled down in halving steps from {@code FULL} to
+ * {@code THUMB}, and re-encoded as JPEG without any metadata. A rendition that
+ * would not be smaller than the next larger one simply reuses that one.
+ * All work runs on the bounded {@code imageProcessingExecutor}; images that
+ * could not be queued are retried by the periodic backfill.
+ */
+@Service
+public class ImageDerivativeServiceImpl implements ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeServiceImpl.class);
+
+    private final ImageRepository     imageRepo;
+    private final ImageStore          imageStore;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor        executor;
+
+    /** Images currently queued or being processed. */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    /** Images that could not be decoded; not retried until restart. */
+    private final Set<Long> failed = ConcurrentHashMap.newKeySet();
+
+    public ImageDerivativeServiceImpl(ImageRepository imageRepo,
+                                      ImageStore imageStore,
+                                      PlatformTransactionManager transactionManager,
+                                      @Qualifier("imageProcessingExecutor") TaskExecutor executor) {
+        this.imageRepo           = imageRepo;
+        this.imageStore          = imageStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor            = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateAfterCommit(Collection<Image> images) {
+        List<Image> pending = new ArrayList<>(images);
+        Runnable submitAll = () -> pending.stream()
+                .map(Image::getId)
+                .filter(Objects::nonNull)
+                .forEach(this::submit);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitAll.run();
+                }
+            });
+        } else {
+            submitAll.run();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Scheduled(
+            initialDelayString = "${palatos.image-processing.backfill-interval-ms:300000}",
+            fixedDelayString   = "${palatos.image-processing.backfill-interval-ms:300000}"
+    )
+    public int backfill() {
+        int submitted = 0;
+        for (Long id : imageRepo.findIdsWithoutDerivatives()) {
+            if (!failed.contains(id) && submit(id)) {
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+
+    /**
+     * Generates derivatives for images stored before the application was ready
+     * (sample data, migrated images, uploads lost on shutdown).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfill();
+    }
+
+    /**
+     * Hands one image to the executor unless it is already queued.
+     *
+     * @param imageId the image to process
+     * @return true if the image was queued
+     */
+    private boolean submit(Long imageId) {
+        if (!queued.add(imageId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(imageId);
+                } catch (IOException | RuntimeException e) {
+                    failed.add(imageId);
+                    log.warn("Failed to generate derivatives for image {}", imageId, e);
+                } finally {
+                    queued.remove(imageId);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            // queue is full; the next backfill picks the image up
+            queued.remove(imageId);
+            return false;
+        }
+    }
+
+    /**
+     * Decodes the original, encodes every variant and records them on the image.
+     *
+     * @param imageId the image to process
+     * @throws IOException if the original cannot be read or a variant cannot be encoded
+     */
+    private void process(Long imageId) throws IOException {
+        Optional<ImageMetadataDto> meta = imageRepo.findMetadataById(imageId);
+        if (meta.isEmpty()) {
+            return; // deleted meanwhile
+        }
+        Resource original = imageStore.open(meta.get().getContentHash());
+        Decoded decoded = decode(original, ImageVariant.FULL.getMaxEdge());
+        if (decoded == null) {
+            throw new IOException("Unsupported image data");
+        }
+
+        // walk from the largest variant down, each one scaled from the previous
+        ImageDerivative larger = new ImageDerivative(
+                meta.get().getContentHash(), meta.get().getFormat(), decoded.width, decoded.height);
+        long largerSize = original.contentLength();
+        BufferedImage current = decoded.image;
+        Map<ImageVariant, ImageDerivative> derivatives = new EnumMap<>(ImageVariant.class);
+
+        ImageVariant[] variants = ImageVariant.values();
+        for (int i = variants.length - 1; i >= 0; i--) {
+            ImageVariant variant = variants[i];
+            current = scaleToFit(current, variant.getMaxEdge());
+            byte[] jpeg = encodeJpeg(current, variant.getQuality());
+            if (jpeg.length < largerSize) {
+                larger = new ImageDerivative(
+                        imageStore.put(jpeg), ImageFormat.JPEG, current.getWidth(), current.getHeight());
+                largerSize = jpeg.length;
+            }
+            derivatives.put(variant, larger);
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                imageRepo.findById(imageId).ifPresent(img -> img.setDerivatives(derivatives)));
+    }
+
+    /**
+     * Decodes an image without its metadata. Very large images are subsampled
+     * while reading so that no more than about twice the target edge is held in memory.
+     *
+     * @param content    the encoded image
+     * @param targetEdge the largest edge that will be produced from the result
+     * @return the decoded image with the original dimensions, or null if no reader supports it
+     * @throws IOException if reading fails
+     */
+    private static Decoded decode(Resource content, int targetEdge) throws IOException {
+        try (InputStream raw = content.getInputStream();
+             ImageInputStream in = ImageIO.createImageInputStream(raw)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width  = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int step = Math.max(1, Math.max(width, height) / (2 * targetEdge));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return new Decoded(reader.read(0, param), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down to fit into a {@code maxEdge} square, never upscaling.
+     * Shrinks in halving steps, because a single bilinear step loses detail
+     * when reducing by more than a factor of two. The result is always an
+     * opaque RGB image, with transparency flattened onto white.
+     *
+     * @param source  the image to scale
+     * @param maxEdge the longest allowed edge
+     * @return the scaled image
+     */
+    private static BufferedImage scaleToFit(BufferedImage source, int maxEdge) {
+        int width  = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth  = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        do {
+            width  = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width > targetWidth || height > targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Encodes an image as baseline JPEG at the given quality, without EXIF or other metadata.
+     *
+     * @param image   the image to encode
+     * @param quality JPEG quality between 0 and 1
+     * @return the encoded bytes
+     * @throws IOException if encoding fails
+     */
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A decoded image together with the dimensions of the original.
+     */
+    private record Decoded(BufferedImage image, int width, int height) {
+    }
+}
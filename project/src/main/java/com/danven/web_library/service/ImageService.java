@@ -1,10 +1,14 @@
 // src/main/java/com/darina/PalaTOS/service/ImageService.java
 package com.danven.web_library.service;
 
+import com.danven.web_library.domain.product.ImageVariant;
 import com.danven.web_library.dto.ImageDto;
+import com.danven.web_library.dto.ImageMetadataDto;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service interface for handling Image-related operations.
@@ -30,4 +34,30 @@ public interface ImageService {
      * Delete an image by its ID.
      */
     void deleteImage(Long imageId);
+
+    /**
+     * Load the metadata (format, preview flag, content hash) of an image without its bytes.
+     *
+     * @param imageId the image to look up
+     * @return the image metadata
+     */
+    ImageMetadataDto getMetadata(Long imageId);
+
+    /**
+     * Load the metadata of a sized derivative of an image; format and content
+     * hash describe the derivative rather than the original.
+     *
+     * @param imageId the image to look up
+     * @param variant the requested derivative
+     * @return the derivative metadata, or empty if it has not been generated yet
+     */
+    Optional<ImageMetadataDto> findVariantMetadata(Long imageId, ImageVariant variant);
+
+    /**
+     * Open the stored bytes of an image for streaming.
+     *
+     * @param contentHash the content hash from the image metadata
+     * @return the stored content
+     */
+    Resource openContent(String contentHash);
 }
@@ -3,17 +3,24 @@ package com.danven.web_library.service;
 
 import com.danven.web_library.domain.product.Image;
 import com.danven.web_library.domain.product.ImageFormat;
+import com.danven.web_library.domain.product.ImageVariant;
 import com.danven.web_library.dto.ImageDto;
+import com.danven.web_library.dto.ImageMetadataDto;
 import com.danven.web_library.exceptions.ValidationException;
 import com.danven.web_library.repository.ImageRepository;
 import com.danven.web_library.repository.ProductRepository;
 import com.danven.web_library.util.ImageUtil;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.transaction.Transactional;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -27,23 +34,41 @@ public class ImageServiceImpl implements ImageService {
 
     private final ImageRepository   imageRepo;
     private final ProductRepository productRepo;
+    private final ImageStore        imageStore;
+    private final PreviewImageResolver   previewResolver;
+    private final ImageDerivativeService derivativeService;
+    private final ApplicationEventPublisher events;
 
     public ImageServiceImpl(ImageRepository imageRepo,
-                            ProductRepository productRepo) {
-        this.imageRepo   = imageRepo;
-        this.productRepo = productRepo;
+                            ProductRepository productRepo,
+                            ImageStore imageStore,
+                            PreviewImageResolver previewResolver,
+                            ImageDerivativeService derivativeService,
+                            ApplicationEventPublisher events) {
+        this.imageRepo         = imageRepo;
+        this.productRepo       = productRepo;
+        this.imageStore        = imageStore;
+        this.previewResolver   = previewResolver;
+        this.derivativeService = derivativeService;
+        this.events            = events;
     }
 
     /**
      * Retrieves all images for the given product and converts them to DTOs.
+     * Only metadata is read; the image bytes are not loaded.
      *
      * @param productId the ID of the product whose images to list
      * @return a list of {@link ImageDto} representing each image
      */
     @Override
     public List<ImageDto> findAllByProduct(Long productId) {
-        return imageRepo.findAllByProductId(productId).stream()
-                .map(this::toDto)
+        return imageRepo.findMetadataByProductId(productId).stream()
+                .map(m -> new ImageDto(
+                        m.getId(),
+                        m.isPreview(),
+                        m.getFormat().name(),
+                        ImageUtil.getImageUrl(m.getId())
+                ))
                 .collect(Collectors.toList());
     }
 
@@ -51,6 +76,7 @@ public class ImageServiceImpl implements ImageService {
      * Uploads a new image file for the specified product.
      * Reads the bytes from the {@link MultipartFile}, determines the image format,
      * creates and saves a new {@link Image} entity, and returns its DTO.
+     * Sized derivatives are generated in the background after commit.
      *
      * @param productId the ID of the product to attach the image to
      * @param file      the uploaded image file
@@ -71,13 +97,16 @@ public class ImageServiceImpl implements ImageService {
         }
 
         var img = new Image(
-                data,
+                imageStore.put(data),
                 ImageFormat.fromContentType(file.getContentType()),
                 preview,
                 product
         );
 
         imageRepo.save(img);
+        previewResolver.evict(List.of(productId));
+        derivativeService.generateAfterCommit(List.of(img));
+        events.publishEvent(new MenuChangedEvent(MenuChangeType.IMAGE_CHANGED, List.of(productId)));
         return toDto(img);
     }
 
@@ -89,16 +118,65 @@ public class ImageServiceImpl implements ImageService {
      */
     @Override
     public void deleteImage(Long imageId) {
-        if (!imageRepo.existsById(imageId)) {
-            throw new ValidationException("No image with ID " + imageId);
-        }
-        imageRepo.deleteById(imageId);
+        Image img = imageRepo.findById(imageId)
+                .orElseThrow(() -> new ValidationException("No image with ID " + imageId));
+        Long productId = img.getProduct().getId();
+        imageRepo.delete(img);
+        previewResolver.evict(List.of(productId));
+        events.publishEvent(new MenuChangedEvent(MenuChangeType.IMAGE_CHANGED, List.of(productId)));
+    }
+
+    /**
+     * Loads the metadata of the image with the specified ID without its bytes.
+     *
+     * @param imageId the ID of the image
+     * @return the {@link ImageMetadataDto} including the content hash
+     * @throws ResponseStatusException with 404 if no image exists with the given ID
+     */
+    @Override
+    public ImageMetadataDto getMetadata(Long imageId) {
+        return imageRepo.findMetadataById(imageId)
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND,
+                        "Image not found: " + imageId
+                ));
     }
 
+    /**
+     * Loads the metadata of one derivative of the image with the specified ID.
+     *
+     * @param imageId the ID of the image
+     * @param variant the requested derivative
+     * @return the derivative metadata, or empty if the image has not been processed yet
+     */
+    @Override
+    public Optional<ImageMetadataDto> findVariantMetadata(Long imageId, ImageVariant variant) {
+        return imageRepo.findVariantMetadataById(imageId, variant);
+    }
+
+    /**
+     * Opens the stored content with the given hash from the {@link ImageStore}.
+     *
+     * @param contentHash the content hash of the image
+     * @return the stored content as a {@link Resource}
+     * @throws ResponseStatusException with 404 if the content is missing from the store
+     */
+    @Override
+    public Resource openContent(String contentHash) {
+        Resource content = imageStore.open(contentHash);
+        if (!content.exists()) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    "Image content not found: " + contentHash
+            );
+        }
+        return content;
+    }
 
     /**
      * Converts an {@link Image} entity to its corresponding {@link ImageDto}.
-     * Encodes the raw bytes to a Base64 data URI via {@link ImageUtil}.
+     * The DTO only references the image by URL (see {@link ImageUtil});
+     * the bytes are served separately by the image endpoint.
      *
      * @param img the Image entity to convert
      * @return the resulting {@link ImageDto}
@@ -108,7 +186,7 @@ public class ImageServiceImpl implements ImageService {
                 img.getId(),
                 img.isPreview(),
                 img.getFormat().name(),             // pass the enum name (e.g. "PNG")
-                ImageUtil.getImgData(img.getImage())
+                ImageUtil.getImageUrl(img.getId())
         );
     }
 
@@ -0,0 +1,49 @@
+package com.danven.web_library.service;
+
+import org.springframework.core.io.Resource;
+
+import java.util.Set;
+
+/**
+ * Content-addressed storage for image bytes.
+ * <p>
+ * Bytes are stored under the SHA-256 hex digest of their content, so identical
+ * uploads (even for different products) are kept only once. The database only
+ * holds the hash (see {@code Image#contentHash}).
+ */
+public interface ImageStore {
+
+    /**
+     * Store the given bytes unless identical content is already present.
+     *
+     * @param bytes the image bytes
+     * @return the SHA-256 hex digest under which the bytes are stored
+     */
+    String put(byte[] bytes);
+
+    /**
+     * Check whether content with the given hash is stored.
+     *
+     * @param contentHash SHA-256 hex digest
+     * @return true if the content exists
+     */
+    boolean exists(String contentHash);
+
+    /**
+     * Open the stored content as a resource suitable for streaming to a client.
+     *
+     * @param contentHash SHA-256 hex digest
+     * @return the resource; {@link Resource#exists()} is false if nothing is stored
+     */
+    Resource open(String contentHash);
+
+    /**
+     * Delete every stored blob whose hash is not in the given set.
+     * Blobs written or re-used recently are kept, because the transaction
+     * referencing them may not have committed yet.
+     *
+     * @param liveHashes hashes still referenced by the database
+     * @return number of deleted blobs
+     */
+    int retainOnly(Set<String> liveHashes);
+}
@@ -0,0 +1,50 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.repository.ImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Periodically removes blobs from the {@link ImageStore} that are no longer
+ * referenced by any {@code Image} row or image derivative. Deleting an
+ * image or product only drops the database reference, so shared
+ * (deduplicated) content stays available until nothing points at it anymore.
+ */
+@Component
+public class ImageStoreGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStoreGarbageCollector.class);
+
+    private final ImageRepository imageRepo;
+    private final ImageStore      imageStore;
+
+    public ImageStoreGarbageCollector(ImageRepository imageRepo,
+                                      ImageStore imageStore) {
+        this.imageRepo  = imageRepo;
+        this.imageStore = imageStore;
+    }
+
+    /**
+     * Deletes every stored blob whose hash is not referenced by the database.
+     *
+     * @return number of deleted blobs
+     */
+    @Scheduled(
+            initialDelayString = "${palatos.image-store.gc-interval-ms:3600000}",
+            fixedDelayString   = "${palatos.image-store.gc-interval-ms:3600000}"
+    )
+    public int collect() {
+        Set<String> live = new HashSet<>(imageRepo.findAllContentHashes());
+        live.addAll(imageRepo.findAllDerivativeContentHashes());
+        int deleted = imageStore.retainOnly(live);
+        if (deleted > 0) {
+            log.info("Image store GC removed {} unreferenced blob(s).", deleted);
+        }
+        return deleted;
+    }
+}
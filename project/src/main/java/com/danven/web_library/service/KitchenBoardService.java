@@ -0,0 +1,44 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.dto.KitchenBoardDto;
+import com.danven.web_library.dto.KitchenTicketDto;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Service interface for the kitchen board: the orders employees work on,
+ * and the order history behind them.
+ */
+public interface KitchenBoardService {
+
+    /**
+     * Loads one page of tickets, oldest first. Each page costs two queries
+     * (ticket headers, then their lines) however long the order history is.
+     *
+     * @param statuses    statuses to show; null or empty for the active board
+     *                    (NEW, IN_PROGRESS, SERVED and recently COMPLETED orders)
+     * @param tableNumber table to show, or null for all
+     * @param from        earliest order time (inclusive), or null
+     * @param to          latest order time (exclusive), or null
+     * @param cursor      the cursor returned with the previous page, or null for the first page
+     * @param size        the page size
+     * @return the tickets and the cursor of the next page
+     */
+    KitchenBoardDto getBoard(Set<OrderStatus> statuses,
+                             Integer tableNumber,
+                             LocalDateTime from,
+                             LocalDateTime to,
+                             String cursor,
+                             int size);
+
+    /**
+     * Loads a single ticket with its lines and totals, whatever its status.
+     *
+     * @param orderId the order
+     * @return the ticket, or empty if the order does not exist
+     */
+    Optional<KitchenTicketDto> getTicket(Long orderId);
+}
@@ -0,0 +1,175 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.dto.FeedbackSummaryDto;
+import com.danven.web_library.dto.KitchenBoardDto;
+import com.danven.web_library.dto.KitchenTicketDto;
+import com.danven.web_library.dto.KitchenTicketItemDto;
+import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link KitchenBoardService} reading flat ticket
+ * projections instead of order entities, so that rendering the board never
+ * walks lazy associations.
+ * <p>
+ * Tickets are keyset-paginated on (order time, order ID), and their totals are
+ * the ones stored with the order. Product types and preview images come from
+ * the menu snapshot and the preview cache, and feedback flags from the bulk
+ * (cached) feedback summaries.
+ */
+@Service
+public class KitchenBoardServiceImpl implements KitchenBoardService {
+
+    private static final Set<OrderStatus> ACTIVE_STATUSES =
+            EnumSet.of(OrderStatus.NEW, OrderStatus.IN_PROGRESS, OrderStatus.SERVED);
+
+    /** Stand-ins for an open time window, within the range of SQL timestamps. */
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final OrderRepository        orderRepo;
+    private final MenuSnapshotService    menuSnapshots;
+    private final PreviewImageResolver   previewResolver;
+    private final FeedbackService        feedbackService;
+    private final Duration               completedWindow;
+
+    public KitchenBoardServiceImpl(OrderRepository orderRepo,
+                                   MenuSnapshotService menuSnapshots,
+                                   PreviewImageResolver previewResolver,
+                                   FeedbackService feedbackService,
+                                   @Value("${palatos.kitchen-board.completed-window-minutes:120}") long completedWindowMinutes) {
+        this.orderRepo        = orderRepo;
+        this.menuSnapshots    = menuSnapshots;
+        this.previewResolver  = previewResolver;
+        this.feedbackService  = feedbackService;
+        this.completedWindow  = Duration.ofMinutes(completedWindowMinutes);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ResponseStatusException if the cursor is malformed
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KitchenBoardDto getBoard(Set<OrderStatus> statuses,
+                                    Integer tableNumber,
+                                    LocalDateTime from,
+                                    LocalDateTime to,
+                                    String cursor,
+                                    int size) {
+        boolean activeBoard = statuses == null || statuses.isEmpty();
+        LocalDateTime lower = from == null ? MIN_TIME : from;
+        LocalDateTime upper = to == null ? MAX_TIME : to;
+        Cursor after = Cursor.decode(cursor);
+
+        List<KitchenTicketDto> rows = orderRepo.findKitchenTickets(
+                activeBoard ? ACTIVE_STATUSES : statuses,
+                activeBoard ? LocalDateTime.now().minus(completedWindow) : MAX_TIME,
+                tableNumber == null ? 0 : tableNumber,
+                lower,
+                upper,
+                after == null ? MIN_TIME : after.orderTime,
+                after == null ? 0L : after.orderId,
+                // one extra row tells whether there is a next page
+                PageRequest.of(0, size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<KitchenTicketDto> tickets = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        if (tickets.isEmpty()) {
+            return new KitchenBoardDto(tickets, null);
+        }
+
+        fillItems(tickets);
+        KitchenTicketDto last = tickets.get(tickets.size() - 1);
+        return new KitchenBoardDto(tickets, hasMore ? new Cursor(last.getOrderTime(), last.getId()).encode() : null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<KitchenTicketDto> getTicket(Long orderId) {
+        Optional<KitchenTicketDto> ticket = orderRepo.findKitchenTicketById(orderId);
+        ticket.ifPresent(t -> fillItems(List.of(t)));
+        return ticket;
+    }
+
+    /**
+     * Loads the lines of the given tickets in one query and flags the
+     * tickets with feedback.
+     */
+    private void fillItems(List<KitchenTicketDto> tickets) {
+        List<Long> ids = tickets.stream().map(KitchenTicketDto::getId).collect(Collectors.toList());
+        Map<Long, FeedbackSummaryDto> feedback = feedbackService.getSummaries(ids);
+        Map<Long, List<KitchenTicketItemDto>> itemsByOrder = orderRepo.findKitchenTicketItems(ids)
+                .stream()
+                .collect(Collectors.groupingBy(KitchenTicketItemDto::getOrderId));
+        Map<Long, String> previews = previewResolver.resolvePreviewUrls(
+                itemsByOrder.values().stream()
+                        .flatMap(List::stream)
+                        .map(KitchenTicketItemDto::getProductId)
+                        .collect(Collectors.toSet()));
+        MenuSnapshot menu = menuSnapshots.current();
+        for (KitchenTicketDto ticket : tickets) {
+            List<KitchenTicketItemDto> items = itemsByOrder.getOrDefault(ticket.getId(), List.of());
+            for (KitchenTicketItemDto item : items) {
+                item.setProductType(menu.getProduct(item.getProductId()).map(ProductDto::getType).orElse(null));
+                item.setPreviewUrl(previews.get(item.getProductId()));
+            }
+            ticket.setItems(items);
+            ticket.setHasFeedback(feedback.get(ticket.getId()).hasFeedback());
+        }
+    }
+
+    /**
+     * Position after the last ticket of a page, encoded as URL-safe Base64 of "time|id".
+     */
+    private static final class Cursor {
+
+        private final LocalDateTime orderTime;
+        private final long          orderId;
+
+        private Cursor(LocalDateTime orderTime, long orderId) {
+            this.orderTime = orderTime;
+            this.orderId   = orderId;
+        }
+
+        String encode() {
+            String raw = orderTime + "|" + orderId;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException(raw);
+                }
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.KitchenBoardDto;
+import com.danven.web_library.dto.KitchenDisplayMessageDto;
+import com.danven.web_library.dto.KitchenDisplaySubscriptionDto;
+import com.danven.web_library.dto.KitchenTicketDto;
+import com.danven.web_library.dto.KitchenTicketItemDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes committed order changes to kitchen displays over WebSocket.
+ * <p>
+ * Every change gets a sequence number and is sent as the full ticket as it
+ * stands after the change, so applying a change twice is harmless. A display
+ * subscribes for a station (product types) and optionally some tables, and
+ * passes the position it has seen. If the missed changes are still in the
+ * bounded replay buffer (and the server has not restarted since, which the
+ * epoch tells) they are replayed; otherwise the display gets a snapshot of
+ * the active board followed by the changes after it.
+ * <p>
+ * Publishing never blocks: each display has a {@link ClientOutbox} drained by
+ * the {@code kitchenDisplayExecutor}, and a display whose queue overflows is
+ * disconnected (it will reconnect and catch up).
+ */
+@Service
+public class KitchenDisplayHub {
+
+    private static final Logger log = LoggerFactory.getLogger(KitchenDisplayHub.class);
+
+    static final String SNAPSHOT_MESSAGE = "snapshot";
+    static final String CHANGE_MESSAGE   = "change";
+    static final String PING_MESSAGE     = "ping";
+
+    private final ObjectMapper        objectMapper;
+    private final KitchenBoardService kitchenBoard;
+    private final TaskExecutor        executor;
+    private final int                 replayCapacity;
+    private final int                 clientQueueCapacity;
+    private final int                 snapshotSize;
+    private final Frame               ping;
+
+    /** Identifies this server run; sequence numbers restart with it. */
+    private final long epoch = System.currentTimeMillis();
+
+    /** Recent changes, oldest first; guarded by {@code this}. */
+    private final Deque<Frame> replay = new ArrayDeque<>();
+
+    /** Sequence number of the latest change; guarded by {@code this}. */
+    private long lastSeq;
+
+    /**
+     * Version of the latest ticket published per recently changed order, so
+     * that a ticket loaded before a newer one but published after it is
+     * skipped; guarded by {@code this}. Orders that have not changed for a
+     * replay buffer's worth of changes cannot race any more and are forgotten.
+     */
+    private final Map<Long, Long> publishedVersions;
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+
+    public KitchenDisplayHub(ObjectMapper objectMapper,
+                             KitchenBoardService kitchenBoard,
+                             @Qualifier("kitchenDisplayExecutor") TaskExecutor executor,
+                             @Value("${palatos.kitchen-display.replay-capacity:512}") int replayCapacity,
+                             @Value("${palatos.kitchen-display.client-queue-capacity:64}") int clientQueueCapacity,
+                             @Value("${palatos.kitchen-display.snapshot-size:200}") int snapshotSize) {
+        this.objectMapper        = objectMapper;
+        this.kitchenBoard        = kitchenBoard;
+        this.executor            = executor;
+        this.replayCapacity      = replayCapacity;
+        this.clientQueueCapacity = clientQueueCapacity;
+        this.snapshotSize        = snapshotSize;
+        this.ping                = new Frame(0, null, 0, toJson(message(PING_MESSAGE, 0)));
+        this.publishedVersions   = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > replayCapacity;
+            }
+        };
+    }
+
+    /**
+     * @return the current position, to hand to a display together with a board it renders itself
+     */
+    public synchronized Position position() {
+        return new Position(epoch, lastSeq);
+    }
+
+    /**
+     * Registers a newly connected display. It receives nothing until it subscribes.
+     *
+     * @param session the display's session
+     */
+    public void open(WebSocketSession session) {
+        clients.put(session.getId(), new Client(session));
+    }
+
+    /**
+     * Forgets a disconnected display.
+     *
+     * @param session the display's session
+     */
+    public void close(WebSocketSession session) {
+        Client client = clients.remove(session.getId());
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    /**
+     * Subscribes a display, or changes its subscription, and brings it up to date.
+     *
+     * @param session      the display's session
+     * @param subscription the station, tables and last seen position of the display
+     */
+    public void subscribe(WebSocketSession session, KitchenDisplaySubscriptionDto subscription) {
+        Client client = clients.get(session.getId());
+        if (client == null) {
+            return;
+        }
+        long snapshotSeq;
+        synchronized (this) {
+            // filtering and replaying under the lock leaves no gap to concurrent publishes
+            client.filter = new StationFilter(subscription.getTypes(), subscription.getTables());
+            client.clear();
+            List<Frame> missed = missedFrames(subscription);
+            if (missed != null && missed.size() <= clientQueueCapacity) {
+                missed.forEach(client::offer);
+                return;
+            }
+            // changes from here on queue up behind the snapshot
+            client.pause();
+            snapshotSeq   = lastSeq;
+        }
+        client.sendSnapshot(snapshotSeq);
+    }
+
+    /**
+     * Publishes an order change to the displays once its transaction has committed.
+     * <p>
+     * The ticket is loaded without holding the lock, so commits of different
+     * orders do not wait for each other's queries; the lock only covers
+     * numbering the change and queueing it. Concurrent changes of the same
+     * order may finish loading out of order, so a ticket older than the one
+     * already published for its order is dropped.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        boolean deleted = event.getType() == OrderChangeType.DELETED;
+        KitchenTicketDto ticket = deleted ? null : kitchenBoard.getTicket(event.getOrderId()).orElse(null);
+        Long version = deleted ? Long.valueOf(Long.MAX_VALUE) : ticket == null ? null : ticket.getVersion();
+        synchronized (this) {
+            if (version != null) {
+                Long published = publishedVersions.get(event.getOrderId());
+                if (published != null && published >= version) {
+                    return;
+                }
+                publishedVersions.put(event.getOrderId(), version);
+            }
+            long seq = ++lastSeq;
+            KitchenDisplayMessageDto change = message(CHANGE_MESSAGE, seq);
+            change.setChange(event.getType().name());
+            change.setOrderId(event.getOrderId());
+            change.setTicket(ticket);
+            Frame frame = new Frame(seq,
+                    ticket == null ? null : productTypes(ticket),
+                    ticket == null ? 0 : ticket.getTableNumber(),
+                    toJson(change));
+            replay.addLast(frame);
+            if (replay.size() > replayCapacity) {
+                replay.removeFirst();
+            }
+            clients.values().forEach(c -> c.offer(frame));
+        }
+    }
+
+    /**
+     * Sends a ping to every subscribed display so that proxies keep idle
+     * connections open and displays notice a dead connection.
+     */
+    @Scheduled(
+            initialDelayString = "${palatos.kitchen-display.heartbeat-interval-ms:15000}",
+            fixedDelayString   = "${palatos.kitchen-display.heartbeat-interval-ms:15000}"
+    )
+    public void heartbeat() {
+        clients.values().forEach(c -> c.offer(ping));
+    }
+
+    /**
+     * @return the number of connected displays
+     */
+    public int clientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Frames a display has missed since the position it passed, or null if
+     * they are not all available. Must be called while holding the lock.
+     */
+    private List<Frame> missedFrames(KitchenDisplaySubscriptionDto subscription) {
+        Long since = subscription.getSince();
+        if (since == null || subscription.getEpoch() == null || subscription.getEpoch() != epoch) {
+            return null;
+        }
+        long oldest = replay.isEmpty() ? lastSeq + 1 : replay.peekFirst().seq;
+        if (since > lastSeq || since < oldest - 1) {
+            return null;
+        }
+        List<Frame> missed = new ArrayList<>();
+        for (Frame frame : replay) {
+            if (frame.seq > since) {
+                missed.add(frame);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * Product types of a ticket, or null if a line has no known type and the
+     * ticket therefore goes to every station.
+     */
+    private static Set<String> productTypes(KitchenTicketDto ticket) {
+        Set<String> types = new HashSet<>();
+        for (KitchenTicketItemDto item : ticket.getItems()) {
+            if (item.getProductType() == null) {
+                return null;
+            }
+            types.add(item.getProductType());
+        }
+        return types;
+    }
+
+    private KitchenDisplayMessageDto message(String type, long seq) {
+        KitchenDisplayMessageDto message = new KitchenDisplayMessageDto();
+        message.setType(type);
+        message.setEpoch(epoch);
+        message.setSeq(seq);
+        return message;
+    }
+
+    private String toJson(KitchenDisplayMessageDto message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Where a display stands: the server run and the last change it has seen.
+     */
+    public static final class Position {
+
+        private final long epoch;
+        private final long seq;
+
+        private Position(long epoch, long seq) {
+            this.epoch = epoch;
+            this.seq   = seq;
+        }
+
+        /**
+         * @return the server run
+         */
+        public long getEpoch() {
+            return epoch;
+        }
+
+        /**
+         * @return the sequence number of the last change
+         */
+        public long getSeq() {
+            return seq;
+        }
+    }
+
+    /**
+     * A pre-serialized message shared by all displays, with what is needed
+     * to route it.
+     */
+    private static final class Frame {
+
+        private final long        seq;
+        private final Set<String> types;
+        private final int         tableNumber;
+        private final String      json;
+
+        private Frame(long seq, Set<String> types, int tableNumber, String json) {
+            this.seq         = seq;
+            this.types       = types;
+            this.tableNumber = tableNumber;
+            this.json        = json;
+        }
+    }
+
+    /**
+     * The product types and tables a display shows; empty sets show everything.
+     */
+    private static final class StationFilter {
+
+        private final Set<String>  types;
+        private final Set<Integer> tables;
+
+        private StationFilter(Set<String> types, Set<Integer> tables) {
+            this.types  = types == null ? Set.of() : Set.copyOf(types);
+            this.tables = tables == null ? Set.of() : Set.copyOf(tables);
+        }
+
+        boolean accepts(Frame frame) {
+            if (frame.seq == 0) {
+                return true;
+            }
+            if (!tables.isEmpty() && frame.tableNumber != 0 && !tables.contains(frame.tableNumber)) {
+                return false;
+            }
+            return types.isEmpty() || frame.types == null || !Collections.disjoint(types, frame.types);
+        }
+
+        boolean accepts(KitchenTicketDto ticket) {
+            return accepts(new Frame(-1, productTypes(ticket), ticket.getTableNumber(), null));
+        }
+    }
+
+    /**
+     * One connected display. Sends to the session are serialized on the
+     * client, as sessions are not thread-safe.
+     */
+    private final class Client extends ClientOutbox<Frame> {
+
+        private final WebSocketSession session;
+
+        /** Null until the display subscribes; written under the hub lock. */
+        private volatile StationFilter filter;
+
+        /** How the session is closed when the outbox fails. */
+        private volatile CloseStatus closeStatus = CloseStatus.SESSION_NOT_RELIABLE;
+
+        private Client(WebSocketSession session) {
+            super(executor, clientQueueCapacity, false);
+            this.session = session;
+        }
+
+        /**
+         * Queues a frame if the display is interested in it.
+         */
+        @Override
+        void offer(Frame frame) {
+            StationFilter f = filter;
+            if (f != null && f.accepts(frame)) {
+                super.offer(frame);
+            }
+        }
+
+        /**
+         * Sends the active board as of {@code seq} for the display's station,
+         * then releases the changes queued meanwhile. Tickets changed after
+         * {@code seq} may already show their new state; the display applies
+         * the queued changes on top, which converges on the same result.
+         */
+        void sendSnapshot(long seq) {
+            try {
+                KitchenBoardDto board = kitchenBoard.getBoard(null, null, null, null, null, snapshotSize);
+                StationFilter f = filter;
+                List<KitchenTicketDto> tickets = new ArrayList<>();
+                for (KitchenTicketDto ticket : board.getTickets()) {
+                    if (f.accepts(ticket)) {
+                        tickets.add(ticket);
+                    }
+                }
+                KitchenDisplayMessageDto snapshot = message(SNAPSHOT_MESSAGE, seq);
+                snapshot.setTickets(tickets);
+                String json = toJson(snapshot);
+                synchronized (this) {
+                    session.sendMessage(new TextMessage(json));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Kitchen display snapshot failed for session {}", session.getId(), e);
+                closeStatus = CloseStatus.SERVER_ERROR;
+                fail();
+            } finally {
+                resume();
+            }
+        }
+
+        @Override
+        protected void send(Frame frame) throws IOException {
+            session.sendMessage(new TextMessage(frame.json));
+        }
+
+        @Override
+        protected void failed() {
+            clients.remove(session.getId(), this);
+            try {
+                session.close(closeStatus);
+            } catch (IOException ignored) {
+                // the display reconnects on its own
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.danven.web_library.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off migration moving image bytes still kept in the database into the
+ * {@link ImageStore}. Enabled with {@code palatos.image-store.migrate-legacy=true}
+ * and intended to run against a persistent database with
+ * {@code spring.jpa.hibernate.ddl-auto=none}.
+ * <p>
+ * Two legacy layouts are recognised: the original {@code IMAGE.IMAGE} blob
+ * column, and the {@code IMAGE_DATA} table referenced by
+ * {@code IMAGE.IMAGE_DATA_ID}. Rows are copied one at a time, so only a single
+ * blob is held in memory, and rows that already have a content hash are
+ * skipped; an interrupted run can simply be restarted. Legacy columns and
+ * tables are dropped once every row has been migrated.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "palatos.image-store.migrate-legacy", havingValue = "true")
+public class LegacyImageMigrator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyImageMigrator.class);
+
+    private final JdbcTemplate jdbc;
+    private final ImageStore   imageStore;
+
+    public LegacyImageMigrator(JdbcTemplate jdbc,
+                               ImageStore imageStore) {
+        this.jdbc       = jdbc;
+        this.imageStore = imageStore;
+    }
+
+    /**
+     * Detects the legacy layout and migrates it.
+     *
+     * @param args application arguments (ignored)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean inlineBlob = columnExists("IMAGE", "IMAGE");
+        boolean dataTable  = columnExists("IMAGE", "IMAGE_DATA_ID");
+        if (!inlineBlob && !dataTable) {
+            log.info("No legacy image data found; nothing to migrate.");
+            return;
+        }
+        if (!columnExists("IMAGE", "CONTENT_HASH")) {
+            jdbc.execute("ALTER TABLE IMAGE ADD COLUMN content_hash VARCHAR(64)");
+        }
+
+        String bytesQuery = inlineBlob
+                ? "SELECT image FROM IMAGE WHERE image_id = ?"
+                : "SELECT d.bytes FROM IMAGE i JOIN IMAGE_DATA d ON d.image_data_id = i.image_data_id"
+                  + " WHERE i.image_id = ?";
+
+        List<Long> pending = jdbc.queryForList(
+                "SELECT image_id FROM IMAGE WHERE content_hash IS NULL", Long.class);
+        for (Long imageId : pending) {
+            try {
+                byte[] bytes = jdbc.queryForObject(bytesQuery, byte[].class, imageId);
+                jdbc.update("UPDATE IMAGE SET content_hash = ? WHERE image_id = ?",
+                        imageStore.put(bytes), imageId);
+            } catch (RuntimeException e) {
+                // rows migrated so far keep their hash; a restart resumes here
+                log.error("Failed to migrate image {}", imageId, e);
+                throw e;
+            }
+        }
+
+        if (inlineBlob) {
+            jdbc.execute("ALTER TABLE IMAGE DROP COLUMN image");
+        }
+        if (dataTable) {
+            jdbc.execute("ALTER TABLE IMAGE DROP COLUMN image_data_id");
+            jdbc.execute("DROP TABLE IMAGE_DATA");
+        }
+        jdbc.execute("ALTER TABLE IMAGE ALTER COLUMN content_hash SET NOT NULL");
+        log.info("Migrated {} image(s) into the image store.", pending.size());
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE UPPER(TABLE_NAME) = ? AND UPPER(COLUMN_NAME) = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
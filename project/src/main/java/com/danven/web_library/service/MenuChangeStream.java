@@ -0,0 +1,228 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.MenuChangeDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes committed menu changes to connected clients as Server-Sent Events.
+ * <p>
+ * Every change gets a sequence number that doubles as the SSE event ID. The
+ * most recent changes are kept in a bounded replay buffer, so a client
+ * reconnecting with {@code Last-Event-ID} receives what it missed; if that is
+ * no longer available (or the server restarted) it gets a {@code reset} event
+ * and should reload the menu.
+ * <p>
+ * Publishing never blocks: each client has a {@link ClientOutbox} drained by
+ * the {@code menuStreamExecutor}, and a client whose queue overflows is
+ * disconnected (it will reconnect and catch up from the replay buffer).
+ */
+@Service
+public class MenuChangeStream {
+
+    static final String CHANGE_EVENT = "change";
+    static final String RESET_EVENT  = "reset";
+
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor executor;
+    private final int          replayCapacity;
+    private final int          clientQueueCapacity;
+    private final long         timeoutMs;
+
+    /** Recent changes, oldest first; guarded by {@code this}. */
+    private final Deque<Frame> replay = new ArrayDeque<>();
+
+    /** ID of the latest change; guarded by {@code this}. */
+    private long lastId;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    public MenuChangeStream(ObjectMapper objectMapper,
+                            @Qualifier("menuStreamExecutor") TaskExecutor executor,
+                            @Value("${palatos.menu-stream.replay-capacity:256}") int replayCapacity,
+                            @Value("${palatos.menu-stream.client-queue-capacity:32}") int clientQueueCapacity,
+                            @Value("${palatos.menu-stream.timeout-ms:1800000}") long timeoutMs) {
+        this.objectMapper        = objectMapper;
+        this.executor            = executor;
+        this.replayCapacity      = replayCapacity;
+        this.clientQueueCapacity = clientQueueCapacity;
+        this.timeoutMs           = timeoutMs;
+    }
+
+    /**
+     * Opens a stream for a new client.
+     *
+     * @param lastEventId the {@code Last-Event-ID} sent by a reconnecting client, or null
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(emitter);
+        emitter.onCompletion(client::unregister);
+        emitter.onTimeout(client::unregister);
+        emitter.onError(e -> client.unregister());
+
+        synchronized (this) {
+            // registering and replaying under the lock leaves no gap to concurrent publishes
+            List<Frame> missed = missedFrames(lastEventId);
+            if (missed.size() > clientQueueCapacity) {
+                missed = List.of(reset());
+            }
+            clients.add(client);
+            missed.forEach(client::offer);
+        }
+        return emitter;
+    }
+
+    /**
+     * Publishes a menu change to all clients once its transaction has committed.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        synchronized (this) {
+            long id = ++lastId;
+            Frame frame = new Frame(id, CHANGE_EVENT,
+                    toJson(new MenuChangeDto(id, event.getType().name(), event.getProductIds())));
+            replay.addLast(frame);
+            if (replay.size() > replayCapacity) {
+                replay.removeFirst();
+            }
+            clients.forEach(c -> c.offer(frame));
+        }
+    }
+
+    /**
+     * Sends a comment to every client so that proxies keep idle connections
+     * open and dead connections are noticed.
+     */
+    @Scheduled(
+            initialDelayString = "${palatos.menu-stream.heartbeat-interval-ms:25000}",
+            fixedDelayString   = "${palatos.menu-stream.heartbeat-interval-ms:25000}"
+    )
+    public void heartbeat() {
+        clients.forEach(c -> c.offer(Frame.HEARTBEAT));
+    }
+
+    /**
+     * @return the number of connected clients
+     */
+    public int clientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Frames a client reconnecting after {@code lastEventId} has missed.
+     * Must be called while holding the lock.
+     */
+    private List<Frame> missedFrames(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return List.of(reset());
+        }
+        long oldest = replay.isEmpty() ? lastId + 1 : replay.peekFirst().id;
+        if (last > lastId || last < oldest - 1) {
+            // unknown ID (server restarted) or changes already evicted from the buffer
+            return List.of(reset());
+        }
+        List<Frame> missed = new ArrayList<>();
+        for (Frame frame : replay) {
+            if (frame.id > last) {
+                missed.add(frame);
+            }
+        }
+        return missed;
+    }
+
+    private Frame reset() {
+        return new Frame(lastId, RESET_EVENT, String.valueOf(lastId));
+    }
+
+    private String toJson(MenuChangeDto change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A pre-serialized event shared by all clients.
+     */
+    private static final class Frame {
+
+        static final Frame HEARTBEAT = new Frame(-1, null, null);
+
+        private final long   id;
+        private final String name;
+        private final String data;
+
+        private Frame(long id, String name, String data) {
+            this.id   = id;
+            this.name = name;
+            this.data = data;
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name(name)
+                    .data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * One connected client.
+     */
+    private final class Client extends ClientOutbox<Frame> {
+
+        private final SseEmitter emitter;
+
+        private Client(SseEmitter emitter) {
+            super(executor, clientQueueCapacity, false);
+            this.emitter = emitter;
+        }
+
+        @Override
+        protected void send(Frame frame) throws IOException {
+            emitter.send(frame.toEvent());
+        }
+
+        @Override
+        protected void failed() {
+            clients.remove(this);
+            emitter.complete();
+        }
+
+        /**
+         * Forgets the client once its connection has ended.
+         */
+        void unregister() {
+            close();
+            clients.remove(this);
+        }
+    }
+}
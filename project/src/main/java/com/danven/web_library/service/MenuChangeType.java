@@ -0,0 +1,13 @@
+package com.danven.web_library.service;
+
+/**
+ * Kinds of menu changes reported by {@link MenuChangedEvent}.
+ */
+public enum MenuChangeType {
+    PRODUCT_ADDED,
+    PRODUCT_EDITED,
+    PRODUCT_REMOVED,
+    PRICE_CHANGED,
+    IMAGE_CHANGED,
+    CATEGORY_CHANGED
+}
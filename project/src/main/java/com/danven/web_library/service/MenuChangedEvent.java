@@ -0,0 +1,46 @@
+package com.danven.web_library.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published whenever products or their images are changed. Listeners that
+ * cache menu data react once the publishing transaction has committed.
+ * An event without product IDs stands for a change of the whole menu
+ * (for example of the categories).
+ */
+public class MenuChangedEvent {
+
+    private final MenuChangeType type;
+    private final List<Long>     productIds;
+
+    /**
+     * @param type       what kind of change happened
+     * @param productIds the products that were added, changed or removed
+     */
+    public MenuChangedEvent(MenuChangeType type, Collection<Long> productIds) {
+        this.type       = type;
+        this.productIds = List.copyOf(productIds);
+    }
+
+    /**
+     * @return an event marking the whole menu as changed
+     */
+    public static MenuChangedEvent wholeMenu() {
+        return new MenuChangedEvent(MenuChangeType.CATEGORY_CHANGED, List.of());
+    }
+
+    /**
+     * @return what kind of change happened
+     */
+    public MenuChangeType getType() {
+        return type;
+    }
+
+    /**
+     * @return the products that were added, changed or removed
+     */
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
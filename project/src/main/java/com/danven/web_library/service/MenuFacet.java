@@ -0,0 +1,43 @@
+package com.danven.web_library.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Filter dimensions of the faceted menu query.
+ * Each facet is selected in requests by its {@link #getParam() parameter name}.
+ */
+public enum MenuFacet {
+    CATEGORY("category"),
+    TYPE("type"),
+    CALORIES("calories"),
+    PRICE("price"),
+    WEIGHT("weight"),
+    ALCOHOL("alcohol"),
+    CARBONATED("carbonated"),
+    SUGAR("sugar"),
+    ICE_CREAM("iceCream");
+
+    private final String param;
+
+    MenuFacet(String param) {
+        this.param = param;
+    }
+
+    /**
+     * @return the request parameter name of this facet
+     */
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * @param param a request parameter name
+     * @return the facet with that parameter name, or empty if there is none
+     */
+    public static Optional<MenuFacet> fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(f -> f.param.equals(param))
+                .findFirst();
+    }
+}
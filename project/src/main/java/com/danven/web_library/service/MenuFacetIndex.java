@@ -0,0 +1,369 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.product.IceCreamType;
+import com.danven.web_library.dto.CategoryDto;
+import com.danven.web_library.dto.FacetDto;
+import com.danven.web_library.dto.FacetValueDto;
+import com.danven.web_library.dto.ProductDto;
+
+import java.util.*;
+
+/**
+ * Immutable columnar index for faceted filtering of the menu.
+ * <p>
+ * Every {@link MenuFacet} is stored as one primitive column holding, per
+ * product ordinal (see {@link CategoryIndex}), the number of the bucket the
+ * product falls into; numeric attributes are split into fixed ranges.
+ * A query walks the columns once and yields both the matching products and,
+ * for every facet, the counts its values would have if that facet's own
+ * filter were not set, so the counts can be refreshed on each filter toggle.
+ * <p>
+ * Since ordinals are stable between snapshots, {@link #withChanges} copies
+ * the columns of the previous index (a primitive array copy per facet) and
+ * buckets only the changed products again. Empty slots of removed products
+ * are skipped by queries.
+ */
+public final class MenuFacetIndex {
+
+    private static final double[] CALORIE_BOUNDS = {200, 400, 600, 800};
+    private static final double[] PRICE_BOUNDS   = {15, 30, 50};
+    private static final double[] WEIGHT_BOUNDS  = {150, 300, 500};
+    private static final double[] SUGAR_BOUNDS   = {10, 30};
+
+    private static final String[] TYPE_KEYS   = {"FOOD", "DRINK", "DESSERT", "MILK_COCKTAIL"};
+    private static final String[] TYPE_LABELS = {"Food", "Drink", "Dessert", "Milk cocktail"};
+    private static final List<String> TYPE_KEY_LIST = List.of(TYPE_KEYS);
+
+    private static final short NONE = -1;
+
+    private final BitSet            live;
+    private final Map<Long, Short>  categoryBuckets;
+    private final Column[]          columns;
+
+    private MenuFacetIndex(BitSet live, Map<Long, Short> categoryBuckets, Column[] columns) {
+        this.live            = live;
+        this.categoryBuckets = categoryBuckets;
+        this.columns         = columns;
+    }
+
+    /**
+     * Builds the columns for the given products; the ordinal of a product is
+     * its position in {@code products}.
+     *
+     * @param products   the products, in ordinal order; null for an empty slot
+     * @param live       the ordinals of the non-empty slots; must not be modified afterwards
+     * @param categories all categories
+     * @return the new index
+     */
+    public static MenuFacetIndex build(List<ProductDto> products, BitSet live, List<CategoryDto> categories) {
+        int n = products.size();
+        Map<Long, Short> categoryBuckets = new HashMap<>();
+        String[] categoryKeys   = new String[categories.size()];
+        String[] categoryLabels = new String[categories.size()];
+        for (int i = 0; i < categories.size(); i++) {
+            categoryBuckets.put(categories.get(i).getId(), (short) i);
+            categoryKeys[i]   = String.valueOf(categories.get(i).getId());
+            categoryLabels[i] = categories.get(i).getName();
+        }
+
+        IceCreamType[] iceCreamTypes = IceCreamType.values();
+        String[] iceCreamKeys = new String[iceCreamTypes.length];
+        for (int i = 0; i < iceCreamTypes.length; i++) {
+            iceCreamKeys[i] = iceCreamTypes[i].name();
+        }
+
+        Column[] columns = new Column[MenuFacet.values().length];
+        columns[MenuFacet.CATEGORY.ordinal()]   = Column.multi(categoryKeys, categoryLabels, n);
+        columns[MenuFacet.TYPE.ordinal()]       = Column.single(TYPE_KEYS, TYPE_LABELS, n);
+        columns[MenuFacet.CALORIES.ordinal()]   = Column.ranges(CALORIE_BOUNDS, "kcal", null, n);
+        columns[MenuFacet.PRICE.ordinal()]      = Column.ranges(PRICE_BOUNDS, "PLN", null, n);
+        columns[MenuFacet.WEIGHT.ordinal()]     = Column.ranges(WEIGHT_BOUNDS, "g", null, n);
+        columns[MenuFacet.ALCOHOL.ordinal()]    = Column.single(
+                new String[]{"none", "alcoholic"}, new String[]{"Non-alcoholic", "Alcoholic"}, n);
+        columns[MenuFacet.CARBONATED.ordinal()] = Column.single(
+                new String[]{"yes", "no"}, new String[]{"Carbonated", "Still"}, n);
+        columns[MenuFacet.SUGAR.ordinal()]      = Column.ranges(SUGAR_BOUNDS, "g sugar", "No sugar", n);
+        columns[MenuFacet.ICE_CREAM.ordinal()]  = Column.single(iceCreamKeys, iceCreamKeys, n);
+
+        MenuFacetIndex index = new MenuFacetIndex(live, Map.copyOf(categoryBuckets), columns);
+        for (int d = live.nextSetBit(0); d >= 0; d = live.nextSetBit(d + 1)) {
+            index.set(d, products.get(d));
+        }
+        return index;
+    }
+
+    /**
+     * Derives the index for a changed product list from this one, bucketing
+     * only the changed products. The categories must be the same as when
+     * this index was built.
+     *
+     * @param products the products after the change, in ordinal order; null
+     *                 for an empty slot; ordinals of this index must not move
+     * @param live     the ordinals of the non-empty slots; must not be modified afterwards
+     * @param changed  the ordinals of the slots that changed
+     * @return the new index
+     */
+    public MenuFacetIndex withChanges(List<ProductDto> products, BitSet live, Collection<Integer> changed) {
+        Column[] copies = new Column[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            copies[c] = columns[c].copy(products.size());
+        }
+        MenuFacetIndex index = new MenuFacetIndex(live, categoryBuckets, copies);
+        for (int d : changed) {
+            ProductDto p = products.get(d);
+            if (p != null) {
+                index.set(d, p);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Stores the buckets of one product in every column; only used while
+     * the index is being built.
+     */
+    private void set(int d, ProductDto p) {
+        short[] productCats = new short[p.getCategories().size()];
+        int k = 0;
+        for (CategoryDto c : p.getCategories()) {
+            Short bucket = categoryBuckets.get(c.getId());
+            if (bucket != null) {
+                productCats[k++] = bucket;
+            }
+        }
+        columns[MenuFacet.CATEGORY.ordinal()].multi[d] =
+                k == productCats.length ? productCats : Arrays.copyOf(productCats, k);
+
+        columns[MenuFacet.TYPE.ordinal()].single[d]       = (short) TYPE_KEY_LIST.indexOf(p.getType());
+        columns[MenuFacet.CALORIES.ordinal()].bucket(d, p.getCalorie());
+        columns[MenuFacet.PRICE.ordinal()].bucket(d, p.getPrice() == null ? Double.NaN : p.getPrice().doubleValue());
+        columns[MenuFacet.WEIGHT.ordinal()].bucket(d, p.getWeightInGrams());
+        columns[MenuFacet.ALCOHOL.ordinal()].single[d]    =
+                (short) (p.getAlcohol() != null && p.getAlcohol() > 0 ? 1 : 0);
+        columns[MenuFacet.CARBONATED.ordinal()].single[d] =
+                p.getCarbonated() == null ? NONE : (short) (p.getCarbonated() ? 0 : 1);
+        columns[MenuFacet.SUGAR.ordinal()].bucket(d, p.getSugarPerGram() == null ? 0 : p.getSugarPerGram());
+        columns[MenuFacet.ICE_CREAM.ordinal()].single[d]  =
+                p.getIceCreamType() == null ? NONE : (short) p.getIceCreamType().ordinal();
+    }
+
+    /**
+     * Filters the products and counts all facet values in one pass.
+     * Values selected within one facet are combined with OR, facets with AND.
+     * Unknown facet value keys match nothing.
+     *
+     * @param selection the selected value keys per facet; facets that are
+     *                  absent or have no selected values do not filter
+     * @return the matching ordinals (ascending) and the facet counts
+     */
+    public Result query(Map<MenuFacet, Set<String>> selection) {
+        int facets = columns.length;
+        boolean[][] selected = new boolean[facets][];
+        for (Map.Entry<MenuFacet, Set<String>> e : selection.entrySet()) {
+            if (e.getValue() == null || e.getValue().isEmpty()) {
+                continue;
+            }
+            Column column = columns[e.getKey().ordinal()];
+            boolean[] mask = new boolean[column.keys.length];
+            for (String key : e.getValue()) {
+                int bucket = column.bucketOf(key);
+                if (bucket >= 0) {
+                    mask[bucket] = true;
+                }
+            }
+            selected[e.getKey().ordinal()] = mask;
+        }
+
+        int[][] counts = new int[facets][];
+        for (int c = 0; c < facets; c++) {
+            counts[c] = new int[columns[c].keys.length];
+        }
+        int[] matches = new int[live.cardinality()];
+        int matched = 0;
+
+        for (int d = live.nextSetBit(0); d >= 0; d = live.nextSetBit(d + 1)) {
+            int failures = 0;
+            int failedFacet = -1;
+            for (int c = 0; c < facets && failures < 2; c++) {
+                if (selected[c] != null && !columns[c].matches(d, selected[c])) {
+                    failures++;
+                    failedFacet = c;
+                }
+            }
+            if (failures == 0) {
+                matches[matched++] = d;
+                for (int c = 0; c < facets; c++) {
+                    columns[c].count(d, counts[c]);
+                }
+            } else if (failures == 1) {
+                // failing only its own facet: counts towards that facet's other values
+                columns[failedFacet].count(d, counts[failedFacet]);
+            }
+        }
+
+        List<FacetDto> facetDtos = new ArrayList<>(facets);
+        for (MenuFacet facet : MenuFacet.values()) {
+            Column column = columns[facet.ordinal()];
+            boolean[] mask = selected[facet.ordinal()];
+            List<FacetValueDto> values = new ArrayList<>(column.keys.length);
+            for (int b = 0; b < column.keys.length; b++) {
+                values.add(new FacetValueDto(
+                        column.keys[b], column.labels[b], counts[facet.ordinal()][b], mask != null && mask[b]));
+            }
+            facetDtos.add(new FacetDto(facet.getParam(), values));
+        }
+        return new Result(Arrays.copyOf(matches, matched), facetDtos);
+    }
+
+    /**
+     * Outcome of {@link #query(Map)}.
+     */
+    public static final class Result {
+
+        private final int[]          ordinals;
+        private final List<FacetDto> facets;
+
+        private Result(int[] ordinals, List<FacetDto> facets) {
+            this.ordinals = ordinals;
+            this.facets   = facets;
+        }
+
+        /**
+         * @return the ordinals of the matching products, ascending
+         */
+        public int[] getOrdinals() {
+            return ordinals;
+        }
+
+        /**
+         * @return all facets with their value counts
+         */
+        public List<FacetDto> getFacets() {
+            return facets;
+        }
+    }
+
+    /**
+     * One facet stored column-wise: a bucket number per product, or several
+     * for multi-valued facets such as categories. Range columns also keep
+     * the bounds that numeric values are bucketed by.
+     */
+    private static final class Column {
+
+        private final String[]  keys;
+        private final String[]  labels;
+        private final short[]   single;
+        private final short[][] multi;
+        private final double[]  bounds;
+        private final boolean   zeroBucket;
+
+        private Column(String[] keys, String[] labels, short[] single, short[][] multi,
+                       double[] bounds, boolean zeroBucket) {
+            this.keys       = keys;
+            this.labels     = labels;
+            this.single     = single;
+            this.multi      = multi;
+            this.bounds     = bounds;
+            this.zeroBucket = zeroBucket;
+        }
+
+        static Column single(String[] keys, String[] labels, int size) {
+            return new Column(keys, labels, new short[size], null, null, false);
+        }
+
+        static Column multi(String[] keys, String[] labels, int size) {
+            return new Column(keys, labels, null, new short[size][], null, false);
+        }
+
+        /**
+         * A column splitting numeric values into ranges at the given bounds.
+         * With a {@code zeroLabel}, zero gets a bucket "none" of its own.
+         */
+        static Column ranges(double[] bounds, String unit, String zeroLabel, int size) {
+            boolean zeroBucket = zeroLabel != null;
+            int offset = zeroBucket ? 1 : 0;
+            String[] keys   = new String[bounds.length + 1 + offset];
+            String[] labels = new String[keys.length];
+            if (zeroBucket) {
+                keys[0]   = "none";
+                labels[0] = zeroLabel;
+            }
+            double lower = 0;
+            for (int i = 0; i <= bounds.length; i++) {
+                String from = format(lower);
+                keys[i + offset] = i < bounds.length ? from + "-" + format(bounds[i]) : from + "+";
+                labels[i + offset] = keys[i + offset] + " " + unit;
+                if (i < bounds.length) {
+                    lower = bounds[i];
+                }
+            }
+            return new Column(keys, labels, new short[size], null, bounds, zeroBucket);
+        }
+
+        /**
+         * @return a copy with room for {@code size} ordinals
+         */
+        Column copy(int size) {
+            return new Column(keys, labels,
+                    single == null ? null : Arrays.copyOf(single, size),
+                    multi == null ? null : Arrays.copyOf(multi, size),
+                    bounds, zeroBucket);
+        }
+
+        /**
+         * Stores the range bucket of a numeric value; NaN has no bucket.
+         */
+        void bucket(int ordinal, double v) {
+            if (Double.isNaN(v)) {
+                single[ordinal] = NONE;
+            } else if (zeroBucket && v <= 0) {
+                single[ordinal] = 0;
+            } else {
+                int b = 0;
+                while (b < bounds.length && v >= bounds[b]) {
+                    b++;
+                }
+                single[ordinal] = (short) (b + (zeroBucket ? 1 : 0));
+            }
+        }
+
+        private static String format(double bound) {
+            return bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+        }
+
+        int bucketOf(String key) {
+            for (int b = 0; b < keys.length; b++) {
+                if (keys[b].equalsIgnoreCase(key)) {
+                    return b;
+                }
+            }
+            return -1;
+        }
+
+        boolean matches(int ordinal, boolean[] mask) {
+            if (single != null) {
+                short b = single[ordinal];
+                return b >= 0 && mask[b];
+            }
+            for (short b : multi[ordinal]) {
+                if (mask[b]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void count(int ordinal, int[] counts) {
+            if (single != null) {
+                short b = single[ordinal];
+                if (b >= 0) {
+                    counts[b]++;
+                }
+                return;
+            }
+            for (short b : multi[ordinal]) {
+                counts[b]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.danven.web_library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the JSON bodies of per-category menu responses already serialized to
+ * UTF-8 and gzip-compressed, keyed by the {@link MenuSnapshot} version.
+ * <p>
+ * Bodies are encoded on first request and then reused until a newer snapshot
+ * is published, at which point the whole generation is dropped at once.
+ * Serving a cached body costs a map lookup and a buffer write.
+ */
+@Service
+public class MenuResponseCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(-1));
+
+    public MenuResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the encoded product list of a category, as returned by
+     * {@link MenuSnapshot#getProductsByCategory(Long)} or, for category 0,
+     * {@link MenuSnapshot#getProducts()}.
+     *
+     * @param snapshot   the snapshot to serve from
+     * @param categoryId the category, or 0 for all products
+     * @return the encoded body
+     */
+    public EncodedBody productsByCategory(MenuSnapshot snapshot, Long categoryId) {
+        Generation current = generation.get();
+        if (current.version != snapshot.getVersion()) {
+            Generation fresh = new Generation(snapshot.getVersion());
+            // never go back to an older generation when requests race with a publish
+            current = generation.accumulateAndGet(fresh, (old, next) -> next.version > old.version ? next : old);
+            if (current.version != snapshot.getVersion()) {
+                // the caller holds an outdated snapshot; encode without caching
+                return encode(snapshot, categoryId);
+            }
+        }
+        return current.bodies.computeIfAbsent(categoryId, id -> encode(snapshot, id));
+    }
+
+    private EncodedBody encode(MenuSnapshot snapshot, Long categoryId) {
+        List<?> products = categoryId == 0
+                ? snapshot.getProducts()
+                : snapshot.getProductsByCategory(categoryId);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(products);
+            return new EncodedBody(
+                    "W/\"menu-" + snapshot.getVersion() + "-" + categoryId + "\"",
+                    json,
+                    gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * All bodies encoded for one snapshot version.
+     */
+    private static final class Generation {
+
+        private final long                   version;
+        private final Map<Long, EncodedBody> bodies = new ConcurrentHashMap<>();
+
+        private Generation(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * A response body in identity and gzip encoding plus its weak ETag.
+     * Both encodings share the ETag, which weak validators allow.
+     */
+    public static final class EncodedBody {
+
+        private final String etag;
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        private EncodedBody(String etag, byte[] identity, byte[] gzip) {
+            this.etag     = etag;
+            this.identity = identity;
+            this.gzip     = gzip;
+        }
+
+        /**
+         * @return the weak ETag derived from the snapshot version and category
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return the UTF-8 JSON body; must not be modified
+         */
+        public byte[] getIdentity() {
+            return identity;
+        }
+
+        /**
+         * @return the gzip-compressed JSON body; must not be modified
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.CategoryDto;
+import com.danven.web_library.dto.FacetedMenuDto;
+import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.dto.ProductListItemDto;
+import com.danven.web_library.dto.ProductPageDto;
+import com.danven.web_library.util.ProductMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Immutable, versioned view of the whole menu: every product as a pre-built
+ * {@link ProductDto}, all categories, and the {@link CategoryIndex},
+ * {@link ProductSearchIndex} and {@link MenuFacetIndex} over them.
+ * <p>
+ * A snapshot is built once and then shared by all readers without locking.
+ * The DTOs and their lists must therefore be treated as read-only; the
+ * nested lists are unmodifiable.
+ * <p>
+ * The indexes address products by ordinal, a slot in {@code slots}. A full
+ * build assigns ordinals in ID order. {@link #withChanges} keeps them: a
+ * changed product stays in its slot, a new one is appended and a removed one
+ * leaves an empty slot (cleared in {@code live}), so the category and facet
+ * indexes are updated for the changed slots only. Besides that, a change
+ * copies the slot list, the ID map and the facet columns (O(n) array copies,
+ * no per-product work) and rebuilds the search postings from the analyzed
+ * documents of the previous index. A full build is done instead when a new
+ * product's ID is not above all earlier ones (ordinal order must stay ID
+ * order), when the categories changed, or when more than half of the slots
+ * are empty.
+ */
+public final class MenuSnapshot {
+
+    private final long                        version;
+    private final Instant                     builtAt;
+    private final List<ProductDto>            slots;
+    private final BitSet                      live;
+    private final long                        maxProductId;
+    private final List<ProductDto>            products;
+    private final List<CategoryDto>           categories;
+    private final Map<Long, Integer>          ordinalsById;
+    private final CategoryIndex               index;
+    private final ProductSearchIndex          searchIndex;
+    private final MenuFacetIndex              facetIndex;
+    private final Map<Long, List<ProductDto>> productsByCategoryId;
+
+    private MenuSnapshot(long version,
+                         List<ProductDto> slots,
+                         BitSet live,
+                         long maxProductId,
+                         List<CategoryDto> categories,
+                         Map<Long, Integer> ordinalsById,
+                         CategoryIndex index,
+                         ProductSearchIndex searchIndex,
+                         MenuFacetIndex facetIndex,
+                         Map<Long, List<ProductDto>> productsByCategoryId) {
+        List<ProductDto> products = new ArrayList<>(live.cardinality());
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            products.add(slots.get(i));
+        }
+        this.version              = version;
+        this.builtAt              = Instant.now();
+        this.slots                = slots;
+        this.live                 = live;
+        this.maxProductId         = maxProductId;
+        this.products             = Collections.unmodifiableList(products);
+        this.categories           = categories;
+        this.ordinalsById         = ordinalsById;
+        this.index                = index;
+        this.searchIndex          = searchIndex;
+        this.facetIndex           = facetIndex;
+        this.productsByCategoryId = productsByCategoryId;
+    }
+
+    /**
+     * Builds a snapshot and its indexes. Products are ordered by ID.
+     *
+     * @param version    monotonically increasing snapshot version
+     * @param products   all products; the DTOs are taken over and frozen
+     * @param categories all categories
+     * @return the new snapshot
+     */
+    public static MenuSnapshot of(long version, Collection<ProductDto> products, List<CategoryDto> categories) {
+        products.forEach(MenuSnapshot::freeze);
+        return assemble(version, products, categories, null);
+    }
+
+    /**
+     * Derives a new snapshot from this one by replacing or adding the changed
+     * products and dropping the removed ones. Unchanged DTOs are shared, and
+     * the category and facet indexes are only updated for the changed
+     * products (see the class comment for when everything is rebuilt).
+     *
+     * @param version    version of the new snapshot
+     * @param changed    products that were added or changed; taken over and frozen
+     * @param removedIds IDs of products that no longer exist
+     * @param categories all categories
+     * @return the new snapshot
+     */
+    public MenuSnapshot withChanges(long version,
+                                    Collection<ProductDto> changed,
+                                    Collection<Long> removedIds,
+                                    List<CategoryDto> categories) {
+        List<ProductDto>         slots    = new ArrayList<>(this.slots);
+        BitSet                   live     = (BitSet) this.live.clone();
+        Map<Long, Integer>       ordinals = new HashMap<>(ordinalsById);
+        Map<Integer, ProductDto> previous = new HashMap<>();
+        long    maxId       = maxProductId;
+        boolean incremental = categories.equals(this.categories);
+
+        for (Long id : removedIds) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                previous.putIfAbsent(ordinal, slots.get(ordinal));
+                slots.set(ordinal, null);
+                live.clear(ordinal);
+            }
+        }
+        List<ProductDto> sorted = new ArrayList<>(changed);
+        sorted.sort(Comparator.comparing(ProductDto::getId));
+        for (ProductDto p : sorted) {
+            freeze(p);
+            Integer ordinal = ordinals.get(p.getId());
+            if (ordinal == null) {
+                incremental &= p.getId() > maxId;
+                maxId   = Math.max(maxId, p.getId());
+                ordinal = slots.size();
+                slots.add(null);
+                ordinals.put(p.getId(), ordinal);
+                live.set(ordinal);
+            }
+            previous.putIfAbsent(ordinal, slots.get(ordinal));
+            slots.set(ordinal, p);
+        }
+
+        if (!incremental || live.cardinality() * 2 < slots.size()) {
+            List<ProductDto> merged = new ArrayList<>(ordinals.size());
+            slots.stream().filter(Objects::nonNull).forEach(merged::add);
+            return assemble(version, merged, categories, searchIndex);
+        }
+
+        List<ProductDto> frozen = Collections.unmodifiableList(slots);
+        CategoryIndex index = this.index.withChanges(frozen, previous);
+        Set<Long> touched = new HashSet<>();
+        previous.forEach((ordinal, before) -> {
+            addCategoryIds(touched, before);
+            addCategoryIds(touched, frozen.get(ordinal));
+        });
+        Map<Long, List<ProductDto>> byCategoryId = new HashMap<>(productsByCategoryId);
+        for (Long categoryId : touched) {
+            BitSet members = index.inCategory(categoryId);
+            if (members.isEmpty()) {
+                byCategoryId.remove(categoryId);
+            } else {
+                byCategoryId.put(categoryId, select(frozen, members));
+            }
+        }
+
+        return new MenuSnapshot(
+                version,
+                frozen,
+                live,
+                maxId,
+                this.categories,
+                Collections.unmodifiableMap(ordinals),
+                index,
+                ProductSearchIndex.build(frozen, searchIndex),
+                facetIndex.withChanges(frozen, live, previous.keySet()),
+                Collections.unmodifiableMap(byCategoryId)
+        );
+    }
+
+    /**
+     * Orders already frozen products by ID, assigns them dense ordinals and
+     * builds the indexes over them, reusing analyzed documents of
+     * {@code previousSearch} where possible.
+     */
+    private static MenuSnapshot assemble(long version,
+                                         Collection<ProductDto> products,
+                                         List<CategoryDto> categories,
+                                         ProductSearchIndex previousSearch) {
+        List<ProductDto> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparing(ProductDto::getId));
+        List<ProductDto> frozen = List.copyOf(sorted);
+
+        Map<Long, Integer> ordinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < frozen.size(); ordinal++) {
+            ordinals.put(frozen.get(ordinal).getId(), ordinal);
+        }
+        BitSet live = new BitSet(frozen.size());
+        live.set(0, frozen.size());
+
+        CategoryIndex index = CategoryIndex.build(frozen, categories);
+        Map<Long, List<ProductDto>> byCategoryId = new HashMap<>();
+        for (Long categoryId : index.categoryIds()) {
+            byCategoryId.put(categoryId, select(frozen, index.inCategory(categoryId)));
+        }
+
+        return new MenuSnapshot(
+                version,
+                frozen,
+                live,
+                frozen.isEmpty() ? 0 : frozen.get(frozen.size() - 1).getId(),
+                List.copyOf(categories),
+                Collections.unmodifiableMap(ordinals),
+                index,
+                ProductSearchIndex.build(frozen, previousSearch),
+                MenuFacetIndex.build(frozen, live, categories),
+                Collections.unmodifiableMap(byCategoryId)
+        );
+    }
+
+    private static void addCategoryIds(Set<Long> categoryIds, ProductDto p) {
+        if (p != null) {
+            p.getCategories().forEach(c -> categoryIds.add(c.getId()));
+        }
+    }
+
+    /**
+     * @return the version of this snapshot; higher versions are newer
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return when this snapshot was built
+     */
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * @return all products, ordered by ID
+     */
+    public List<ProductDto> getProducts() {
+        return products;
+    }
+
+    /**
+     * @return all categories
+     */
+    public List<CategoryDto> getCategories() {
+        return categories;
+    }
+
+    /**
+     * @param productId the product ID
+     * @return the product, or empty if it is not on the menu
+     */
+    public Optional<ProductDto> getProduct(Long productId) {
+        Integer ordinal = ordinalsById.get(productId);
+        return ordinal == null ? Optional.empty() : Optional.of(slots.get(ordinal));
+    }
+
+    /**
+     * @param categoryId the category ID
+     * @return the products in that category (possibly empty), ordered by ID
+     */
+    public List<ProductDto> getProductsByCategory(Long categoryId) {
+        return productsByCategoryId.getOrDefault(categoryId, List.of());
+    }
+
+    /**
+     * @param categoryName the category name, matched case-insensitively
+     * @return the products in that category (possibly empty), ordered by ID
+     */
+    public List<ProductDto> getProductsByCategoryName(String categoryName) {
+        return index.categoryId(categoryName)
+                .map(this::getProductsByCategory)
+                .orElse(List.of());
+    }
+
+    /**
+     * @param categoryIds the category IDs
+     * @return the products belonging to every given category, ordered by ID
+     */
+    public List<ProductDto> getProductsInAllCategories(Collection<Long> categoryIds) {
+        return select(slots, index.inAllCategories(categoryIds));
+    }
+
+    /**
+     * @param categoryIds the category IDs
+     * @return the products belonging to at least one given category, ordered by ID
+     */
+    public List<ProductDto> getProductsInAnyCategory(Collection<Long> categoryIds) {
+        return select(slots, index.inAnyCategory(categoryIds));
+    }
+
+    /**
+     * Full-text search over product names, descriptions and ingredients.
+     * The last word of the query also matches as a prefix, so partial input
+     * can be used for typeahead suggestions.
+     *
+     * @param query       the free-text query
+     * @param categoryIds restricts hits to products in at least one of these
+     *                    categories; null or empty for no restriction
+     * @param limit       maximum number of hits
+     * @return the best matching products, best first
+     */
+    public List<ProductDto> search(String query, Collection<Long> categoryIds, int limit) {
+        BitSet filter = (categoryIds == null || categoryIds.isEmpty())
+                ? null
+                : index.inAnyCategory(categoryIds);
+        int[] hits = searchIndex.search(query, filter, limit);
+        List<ProductDto> result = new ArrayList<>(hits.length);
+        for (int ordinal : hits) {
+            result.add(slots.get(ordinal));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Faceted filtering: returns the products matching all selected facet
+     * values together with the counts of every facet value.
+     *
+     * @param selection the selected value keys per facet
+     * @return the matching products and facet counts
+     * @see MenuFacetIndex#query(Map)
+     */
+    public FacetedMenuDto filter(Map<MenuFacet, Set<String>> selection) {
+        MenuFacetIndex.Result result = facetIndex.query(selection);
+        List<ProductDto> matching = new ArrayList<>(result.getOrdinals().length);
+        for (int ordinal : result.getOrdinals()) {
+            matching.add(slots.get(ordinal));
+        }
+        return new FacetedMenuDto(Collections.unmodifiableList(matching), result.getFacets());
+    }
+
+    /**
+     * One page of the products of a category ordered by time-decayed
+     * popularity (highest first), then ID, keyset-paginated like the lists
+     * served from the database. Products never ordered come last.
+     *
+     * @param ranking    the popularity scores
+     * @param categoryId the category filter (0 = all)
+     * @param cursor     the cursor returned with the previous page, or null for the first page
+     * @param size       the page size
+     * @return the page and the cursor of the next one
+     * @throws ResponseStatusException if the cursor is invalid
+     */
+    public ProductPageDto pageByPopularity(PopularityTracker.Ranking ranking,
+                                           Long categoryId,
+                                           String cursor,
+                                           int size) {
+        String[] after = ProductSort.TRENDING.decodeCursor(cursor);
+        double afterScore;
+        long   afterId;
+        try {
+            afterScore = after == null ? Double.POSITIVE_INFINITY : Double.parseDouble(after[0]);
+            afterId    = after == null ? 0L : Long.parseLong(after[1]);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        List<ProductDto> candidates = categoryId == null || categoryId == 0
+                ? products
+                : getProductsByCategory(categoryId);
+        List<ProductListItemDto> rows = new ArrayList<>();
+        for (ProductDto p : candidates) {
+            double score = ranking.scoreOf(p.getId());
+            if (score < afterScore || (score == afterScore && p.getId() > afterId)) {
+                ProductListItemDto item = ProductMapper.toListItem(p);
+                item.setTrendingScore(score);
+                rows.add(item);
+            }
+        }
+        rows.sort(Comparator.comparing(ProductListItemDto::getTrendingScore).reversed()
+                .thenComparing(ProductListItemDto::getId));
+
+        boolean hasMore = rows.size() > size;
+        List<ProductListItemDto> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        if (!hasMore) {
+            return new ProductPageDto(items, null);
+        }
+        ProductListItemDto last = items.get(items.size() - 1);
+        return new ProductPageDto(items,
+                ProductSort.TRENDING.encodeCursor(String.valueOf(last.getTrendingScore()), last.getId()));
+    }
+
+    /**
+     * The best-selling products on the menu by time-decayed popularity.
+     *
+     * @param ranking the popularity scores
+     * @param limit   maximum number of products
+     * @return the products, highest score first
+     */
+    public List<ProductListItemDto> bestsellers(PopularityTracker.Ranking ranking, int limit) {
+        List<ProductListItemDto> result = new ArrayList<>(limit);
+        for (Long id : ranking.getProductIds()) {
+            if (result.size() == limit) {
+                break;
+            }
+            Integer ordinal = ordinalsById.get(id);
+            if (ordinal != null) {
+                ProductDto p = slots.get(ordinal);
+                ProductListItemDto item = ProductMapper.toListItem(p);
+                item.setTrendingScore(ranking.scoreOf(id));
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves product ordinals to DTOs; the ordinals must not be empty slots.
+     */
+    private static List<ProductDto> select(List<ProductDto> slots, BitSet ordinals) {
+        List<ProductDto> result = new ArrayList<>(ordinals.cardinality());
+        for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+            result.add(slots.get(i));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Replaces the nested lists of a DTO with unmodifiable copies.
+     */
+    private static void freeze(ProductDto p) {
+        p.setCategories(List.copyOf(p.getCategories()));
+        p.setImages(List.copyOf(p.getImages()));
+        if (p.getIngredients() != null) {
+            p.setIngredients(Collections.unmodifiableList(new ArrayList<>(p.getIngredients())));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.danven.web_library.service;
+
+import java.util.Collection;
+
+/**
+ * Holds the current {@link MenuSnapshot} and republishes it after menu changes.
+ */
+public interface MenuSnapshotService {
+
+    /**
+     * Return the current snapshot. Never blocks on a rebuild in progress;
+     * only the very first call builds the snapshot synchronously.
+     *
+     * @return the current menu snapshot
+     */
+    MenuSnapshot current();
+
+    /**
+     * Schedule a full rebuild of the snapshot in the background. Multiple
+     * requests arriving while a rebuild is pending are coalesced into one.
+     */
+    void requestRebuild();
+
+    /**
+     * Schedule a background refresh of the given products only; products
+     * that no longer exist are dropped from the snapshot. Pending refreshes
+     * are coalesced like {@link #requestRebuild()}.
+     *
+     * @param productIds the products that were added, changed or removed
+     */
+    void requestRefresh(Collection<Long> productIds);
+}
@@ -0,0 +1,237 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.product.Category;
+import com.danven.web_library.dto.CategoryDto;
+import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.repository.CategoryRepository;
+import com.danven.web_library.repository.ProductRepository;
+import com.danven.web_library.util.ProductMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Default implementation of {@link MenuSnapshotService}.
+ * <p>
+ * The current snapshot lives in an {@link AtomicReference}; readers simply
+ * dereference it. Updates run in one read-only transaction on the
+ * {@code menuSnapshotExecutor}: after product changes only the changed
+ * products are reloaded and merged into the previous snapshot, otherwise the
+ * whole menu is loaded. Results are published copy-on-write, never replacing
+ * a snapshot with an older one. A failed update is retried as a full rebuild
+ * with exponential backoff, so the menu catches up without waiting for the
+ * next change.
+ */
+@Service
+public class MenuSnapshotServiceImpl implements MenuSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(MenuSnapshotServiceImpl.class);
+
+    /** Delay before the first retry of a failed update; doubled on every further failure. */
+    private static final long RETRY_INITIAL_MS = 1_000;
+
+    /** Longest delay between retries. */
+    private static final long RETRY_MAX_MS = 60_000;
+
+    private final ProductRepository   productRepo;
+    private final CategoryRepository  categoryRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor        executor;
+
+    private final AtomicReference<MenuSnapshot> current = new AtomicReference<>();
+    private final AtomicLong    versions       = new AtomicLong();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    /** Products changed since the last update was started. */
+    private final Set<Long>     dirtyProducts  = ConcurrentHashMap.newKeySet();
+
+    /** Whether the next update has to reload the whole menu. */
+    private final AtomicBoolean fullRebuild    = new AtomicBoolean();
+
+    /** Updates failed in a row, for the retry backoff. */
+    private final AtomicInteger failures       = new AtomicInteger();
+
+    public MenuSnapshotServiceImpl(ProductRepository productRepo,
+                                   CategoryRepository categoryRepo,
+                                   PlatformTransactionManager transactionManager,
+                                   @Qualifier("menuSnapshotExecutor") TaskExecutor executor) {
+        this.productRepo         = productRepo;
+        this.categoryRepo        = categoryRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.executor            = executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MenuSnapshot current() {
+        MenuSnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : rebuild();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void requestRebuild() {
+        fullRebuild.set(true);
+        schedule();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void requestRefresh(Collection<Long> productIds) {
+        dirtyProducts.addAll(productIds);
+        schedule();
+    }
+
+    /**
+     * Updates the snapshot once a transaction changing the menu has committed.
+     * Changes made outside a transaction are handled immediately.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.getProductIds().isEmpty()) {
+            requestRebuild();
+        } else {
+            requestRefresh(event.getProductIds());
+        }
+    }
+
+    /**
+     * Builds the first snapshot once sample data has been loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Queues one update unless one is already pending.
+     */
+    private void schedule() {
+        if (!rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                // cleared before updating so that changes committed meanwhile trigger another update
+                rebuildPending.set(false);
+                try {
+                    update();
+                    failures.set(0);
+                } catch (RuntimeException e) {
+                    fullRebuild.set(true);
+                    retryLater(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rebuildPending.set(false);
+            update();
+        }
+    }
+
+    /**
+     * Schedules another update after a failed one, waiting longer after
+     * every failure in a row.
+     */
+    private void retryLater(RuntimeException cause) {
+        int failed = failures.incrementAndGet();
+        long delay = Math.min(RETRY_MAX_MS, RETRY_INITIAL_MS << Math.min(failed - 1, 16));
+        log.warn("Failed to update menu snapshot (attempt {}); retrying in {} ms", failed, delay, cause);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::schedule);
+    }
+
+    /**
+     * Applies all pending changes: a full rebuild if requested (or if there
+     * is no snapshot yet), otherwise a refresh of the dirty products.
+     */
+    private synchronized void update() {
+        List<Long> dirty = new ArrayList<>(dirtyProducts);
+        dirtyProducts.removeAll(dirty);
+        MenuSnapshot base = current.get();
+        if (fullRebuild.getAndSet(false) || base == null) {
+            rebuild();
+        } else if (!dirty.isEmpty()) {
+            refresh(base, dirty);
+        }
+    }
+
+    /**
+     * Reloads the given products and merges them into {@code base}.
+     */
+    private synchronized void refresh(MenuSnapshot base, List<Long> productIds) {
+        long version = versions.incrementAndGet();
+        MenuSnapshot built = transactionTemplate.execute(status -> {
+            List<ProductDto> changed = productRepo.findAllByIdWithCategoriesAndImages(productIds).stream()
+                    .map(ProductMapper::toDto)
+                    .collect(Collectors.toList());
+            Set<Long> found = changed.stream().map(ProductDto::getId).collect(Collectors.toSet());
+            List<Long> removed = productIds.stream()
+                    .filter(id -> !found.contains(id))
+                    .collect(Collectors.toList());
+            return base.withChanges(version, changed, removed, loadCategories());
+        });
+        publish(built);
+    }
+
+    /**
+     * Loads the menu, builds a new snapshot and publishes it unless a newer
+     * one has been published in the meantime. Like {@link #refresh}, runs
+     * under the instance lock so that a refresh never merges into a stale base.
+     *
+     * @return the snapshot current after publishing
+     */
+    private synchronized MenuSnapshot rebuild() {
+        long version = versions.incrementAndGet();
+        MenuSnapshot built = transactionTemplate.execute(status -> {
+            List<ProductDto> products = productRepo.findAllProducts().stream()
+                    .map(ProductMapper::toDto)
+                    .collect(Collectors.toList());
+            return MenuSnapshot.of(version, products, loadCategories());
+        });
+        return publish(built);
+    }
+
+    private List<CategoryDto> loadCategories() {
+        return categoryRepo.findAll().stream()
+                .sorted(Comparator.comparing(Category::getId))
+                .map(c -> new CategoryDto(c.getId(), c.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Publishes a snapshot unless a newer one has been published in the meantime.
+     *
+     * @return the snapshot current after publishing
+     */
+    private MenuSnapshot publish(MenuSnapshot built) {
+        return current.accumulateAndGet(built, (old, next) ->
+                old == null || next.getVersion() > old.getVersion() ? next : old);
+    }
+}
@@ -0,0 +1,12 @@
+package com.danven.web_library.service;
+
+/**
+ * Kinds of order changes reported by {@link OrderChangedEvent}.
+ */
+public enum OrderChangeType {
+    CREATED,
+    STATUS_CHANGED,
+    PAID,
+    CANCELED,
+    DELETED
+}
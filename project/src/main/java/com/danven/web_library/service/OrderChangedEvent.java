@@ -0,0 +1,86 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.order.Order;
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+
+/**
+ * Published whenever an order is placed or its status or payment changes.
+ * Listeners pushing the change to kitchen displays and customers react once
+ * the publishing transaction has committed. Only IDs and states are kept,
+ * never the order entity itself.
+ */
+public class OrderChangedEvent {
+
+    private final long            orderId;
+    private final Long            customerId;
+    private final OrderChangeType type;
+    private final OrderStatus     status;
+    private final PaymentStatus   paymentStatus;
+
+    /**
+     * @param order the changed order, in its new state
+     * @param type  what kind of change happened
+     */
+    public OrderChangedEvent(Order order, OrderChangeType type) {
+        this(order.getId(),
+                order.getCustomer() == null ? null : order.getCustomer().getId(),
+                type,
+                order.getStatus(),
+                order.getPaymentStatus());
+    }
+
+    /**
+     * @param orderId       the changed order
+     * @param customerId    the customer who placed it, or null
+     * @param type          what kind of change happened
+     * @param status        the new status, or null if the order was deleted
+     * @param paymentStatus the new payment status, or null if the order was deleted
+     */
+    public OrderChangedEvent(long orderId,
+                             Long customerId,
+                             OrderChangeType type,
+                             OrderStatus status,
+                             PaymentStatus paymentStatus) {
+        this.orderId       = orderId;
+        this.customerId    = customerId;
+        this.type          = type;
+        this.status        = status;
+        this.paymentStatus = paymentStatus;
+    }
+
+    /**
+     * @return the changed order
+     */
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * @return the customer who placed the order, or null
+     */
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * @return what kind of change happened
+     */
+    public OrderChangeType getType() {
+        return type;
+    }
+
+    /**
+     * @return the new status, or null if the order was deleted
+     */
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the new payment status, or null if the order was deleted
+     */
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+}
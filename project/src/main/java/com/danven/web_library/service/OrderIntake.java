@@ -0,0 +1,280 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.order.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for order submissions.
+ * <p>
+ * Submitted orders are validated on the caller's thread (bean constraints
+ * of the order and its lines, and the checks the order runs before every
+ * insert) and put into a bounded queue. A single writer on the {@code orderIntakeExecutor} takes the
+ * oldest submission, waits at most the configured latency (counted from when
+ * that submission arrived) for more, and writes up to a batch of orders in one
+ * transaction through {@link OrderPersistenceService#saveAll}. Each caller's
+ * future completes with the assigned order ID as soon as that transaction has
+ * committed, before the after-commit listeners (kitchen display, order
+ * streams) publish the new orders, so callers do not wait for them. Under
+ * load, one commit and a few JDBC batches replace a transaction with one
+ * insert per row for every order.
+ * <p>
+ * A full queue rejects the submission immediately (HTTP 503). If a batch
+ * fails anyway, it is split in halves and each half is written again (with
+ * fresh copies of its orders, since the rolled-back inserts left IDs on
+ * them), down to single orders, so only the orders that fail on their own
+ * fail their callers. A bad order costs about 2·log2(batch size) extra
+ * transactions; callers submit copies of their carts, so the customer can
+ * simply submit again.
+ */
+@Service
+public class OrderIntake {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIntake.class);
+
+    /** How long the idle writer waits before checking whether it should stop. */
+    private static final long IDLE_POLL_MS = 500;
+
+    private final OrderPersistenceService   orderPersister;
+    private final Validator                 validator;
+    private final TransactionTemplate       transactionTemplate;
+    private final TaskExecutor              executor;
+    private final BlockingQueue<Submission> queue;
+    private final int                       maxBatchSize;
+    private final long                      maxLatencyNanos;
+
+    private volatile boolean running;
+
+    public OrderIntake(OrderPersistenceService orderPersister,
+                       Validator validator,
+                       PlatformTransactionManager transactionManager,
+                       @Qualifier("orderIntakeExecutor") TaskExecutor executor,
+                       @Value("${palatos.order-intake.queue-capacity:1000}") int queueCapacity,
+                       @Value("${palatos.order-intake.max-batch-size:50}") int maxBatchSize,
+                       @Value("${palatos.order-intake.max-latency-ms:5}") long maxLatencyMs) {
+        this.orderPersister      = orderPersister;
+        this.validator           = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor        = executor;
+        this.queue           = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize    = Math.max(1, maxBatchSize);
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMs);
+    }
+
+    /**
+     * Queues a new order for the next batch.
+     *
+     * @param order a new, unsaved order with at least one line
+     * @return completes with the order ID once the order is committed, or
+     *         exceptionally if the queue is full or the batch failed
+     * @throws IllegalArgumentException if the order was saved before or has no lines
+     * @throws ValidationException      if the order or one of its lines is invalid
+     */
+    public CompletableFuture<Long> submit(Order order) {
+        if (order.getId() != null) {
+            throw new IllegalArgumentException("Order already saved: " + order.getId());
+        }
+        if (order.getProductOrders().isEmpty()) {
+            throw new IllegalArgumentException("Order has no products.");
+        }
+        validate(order);
+        Submission submission = new Submission(order);
+        if (!queue.offer(submission)) {
+            submission.result.completeExceptionally(new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE, "Too many orders at once, please try again."));
+        }
+        return submission.result;
+    }
+
+    /**
+     * Validates an order the way saving it would, so that a bad order is
+     * rejected here instead of failing the batch it would be written in.
+     */
+    private void validate(Order order) {
+        Set<ConstraintViolation<?>> violations = new HashSet<>(validator.validate(order));
+        order.getProductOrders().forEach(po -> violations.addAll(validator.validate(po)));
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        order.validateForSave();
+    }
+
+    /**
+     * @return the number of submissions waiting for the writer
+     */
+    public int backlog() {
+        return queue.size();
+    }
+
+    /**
+     * Starts the writer once the application is ready; submissions made
+     * before that wait in the queue.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        executor.execute(this::writeLoop);
+    }
+
+    /**
+     * Lets the writer finish the queued submissions and stop.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        running = false;
+    }
+
+    private void writeLoop() {
+        List<Submission> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Submission first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = first.arrivedAt + maxLatencyNanos;
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Submission next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            IllegalStateException stopped = new IllegalStateException("Order intake stopped.");
+            batch.forEach(s -> s.result.completeExceptionally(stopped));
+            Submission s;
+            while ((s = queue.poll()) != null) {
+                s.result.completeExceptionally(stopped);
+            }
+        }
+    }
+
+    /**
+     * Writes one batch in one transaction and completes its futures right
+     * after the commit. If the batch fails, writes each half of it again,
+     * until only the failing orders are left.
+     */
+    private void write(List<Submission> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        batch.forEach(s -> orders.add(s.order));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Order> saved = orderPersister.saveAll(orders);
+                TransactionSynchronizationManager.registerSynchronization(new Committed(batch, saved));
+            });
+        } catch (RuntimeException e) {
+            // futures completed on commit stay completed; a failing listener must not write them again
+            List<Submission> failed = new ArrayList<>(batch.size());
+            batch.stream().filter(s -> !s.result.isDone()).forEach(failed::add);
+            if (failed.isEmpty()) {
+                log.error("Failed to publish a batch of {} orders", batch.size(), e);
+            } else if (failed.size() == 1) {
+                log.error("Failed to write an order", e);
+                failed.get(0).result.completeExceptionally(e);
+            } else {
+                log.warn("Failed to write a batch of {} orders, retrying its halves", failed.size(), e);
+                retry(failed);
+            }
+        }
+    }
+
+    /**
+     * Writes both halves of a failed batch again, each with fresh copies of
+     * its orders.
+     */
+    private void retry(List<Submission> failed) {
+        for (Submission s : failed) {
+            try {
+                s.order = s.order.copyUnsaved();
+            } catch (RuntimeException e) {
+                s.result.completeExceptionally(e);
+            }
+        }
+        failed.removeIf(s -> s.result.isDone());
+        int half = failed.size() / 2;
+        if (half > 0) {
+            write(failed.subList(0, half));
+        }
+        if (failed.size() > half) {
+            write(failed.subList(half, failed.size()));
+        }
+    }
+
+    /**
+     * Completes the futures of a written batch. Ordered first, so it runs
+     * before the after-commit event listeners registered while saving.
+     */
+    private static final class Committed implements TransactionSynchronization {
+
+        private final List<Submission> batch;
+        private final List<Order>      saved;
+
+        private Committed(List<Submission> batch, List<Order> saved) {
+            this.batch = batch;
+            this.saved = saved;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(saved.get(i).getId());
+            }
+        }
+    }
+
+    /**
+     * One queued order with the future of its caller.
+     */
+    private static final class Submission {
+
+        /** Replaced by a fresh copy before its batch is written again. */
+        private Order                         order;
+        private final long                    arrivedAt = System.nanoTime();
+        private final CompletableFuture<Long> result    = new CompletableFuture<>();
+
+        private Submission(Order order) {
+            this.order = order;
+        }
+    }
+}
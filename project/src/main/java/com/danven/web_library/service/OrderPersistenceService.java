@@ -14,6 +14,12 @@ public interface OrderPersistenceService {
      */
     Order save(Order order);
 
+    /**
+     * Persist new orders (and their ProductOrder children) in one transaction,
+     * so that their rows are written in JDBC batches.
+     */
+    List<Order> saveAll(List<Order> orders);
+
     /**
      * Retrieve all past orders for a given customer, newest first.
      */
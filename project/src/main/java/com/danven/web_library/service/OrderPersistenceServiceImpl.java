@@ -2,14 +2,17 @@
 package com.danven.web_library.service;
 
 import com.danven.web_library.domain.order.Order;
-import com.danven.web_library.domain.order.OrderStatus;
 import com.danven.web_library.domain.order.PaymentStatus;
 import com.danven.web_library.domain.user.Customer;
+import com.danven.web_library.exceptions.IllegalOrderTransitionException;
 import com.danven.web_library.repository.OrderRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of {@link OrderPersistenceService} that provides
@@ -19,14 +22,25 @@ import java.util.List;
 @Service
 public class OrderPersistenceServiceImpl implements OrderPersistenceService {
 
-    private final OrderRepository orderRepo;
+    private final OrderRepository           orderRepo;
+    private final OrderStateService         orderStates;
+    private final ApplicationEventPublisher events;
 
-    public OrderPersistenceServiceImpl(OrderRepository orderRepo) {
-        this.orderRepo = orderRepo;
+    public OrderPersistenceServiceImpl(OrderRepository orderRepo,
+                                       OrderStateService orderStates,
+                                       ApplicationEventPublisher events) {
+        this.orderRepo   = orderRepo;
+        this.orderStates = orderStates;
+        this.events      = events;
     }
 
     /**
      * Persists the given order along with its associated ProductOrder entries.
+     * When the order is new, its stored totals are recomputed from the lines
+     * once more before the insert, and an {@link OrderSubmittedEvent} and an
+     * {@link OrderChangedEvent} of type CREATED are published. Popularity is
+     * not touched here: hot product rows would be updated by every order, so
+     * it is counted in memory and recomputed periodically instead.
      *
      * @param order the {@link Order} to save
      * @return the saved {@link Order} instance
@@ -34,8 +48,52 @@ public class OrderPersistenceServiceImpl implements OrderPersistenceService {
     @Override
     @Transactional
     public Order save(Order order) {
+        boolean isNew = order.getId() == null;
+        if (isNew) {
+            order.recalculateTotals();
+        }
         // cascades ProductOrder children
-        return orderRepo.save(order);
+        Order saved = orderRepo.save(order);
+        if (isNew) {
+            publishCreated(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Persists new orders in one transaction. Order and line IDs come from
+     * pooled sequences, so the inserts are sent in JDBC batches at commit.
+     * Publishes the same events as {@link #save} for each order.
+     *
+     * @param orders the new orders
+     * @return the persisted orders, with their IDs assigned
+     * @throws IllegalArgumentException if any of the orders was persisted before
+     */
+    @Override
+    @Transactional
+    public List<Order> saveAll(List<Order> orders) {
+        List<Order> saved = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (order.getId() != null) {
+                throw new IllegalArgumentException("Order already saved: " + order.getId());
+            }
+            order.recalculateTotals();
+            saved.add(orderRepo.save(order));
+        }
+        saved.forEach(this::publishCreated);
+        return saved;
+    }
+
+    /**
+     * Publishes an {@link OrderSubmittedEvent} and an {@link OrderChangedEvent}
+     * of type CREATED for a new order.
+     */
+    private void publishCreated(Order order) {
+        events.publishEvent(new OrderSubmittedEvent(order.getId(), order.getProductOrders().stream()
+                .map(po -> po.getProduct().getId())
+                .distinct()
+                .collect(Collectors.toList())));
+        events.publishEvent(new OrderChangedEvent(order, OrderChangeType.CREATED));
     }
 
     /**
@@ -67,53 +125,41 @@ public class OrderPersistenceServiceImpl implements OrderPersistenceService {
     }
 
     /**
-     * Cancels the order with the given ID.
+     * Cancels the order with the given ID through {@link OrderStateService}.
      * Only orders in NEW and UNPAID state can be cancelled by the customer.
      *
      * @param orderId the ID of the order to cancel
-     * @throws IllegalStateException if the order is not NEW or is already paid
+     * @throws IllegalOrderTransitionException if the order is not NEW or is already paid
      */
     @Override
-    @Transactional
     public void cancel(Long orderId) {
-        Order o = findById(orderId);
-        if (o.getStatus() != OrderStatus.NEW || o.getPaymentStatus() != PaymentStatus.UNPAID) {
-            throw new IllegalStateException("Only NEW and UNPAID orders can be cancelled by the customer");
-        }
-        o.setStatus(OrderStatus.CANCELED);
-        orderRepo.save(o);
+        orderStates.cancel(orderId, null);
     }
 
 
     /**
-     * Processes payment for the order with the given ID.
+     * Processes payment for the order with the given ID through {@link OrderStateService}.
      * Updates payment status and, if already served, marks the order as COMPLETED.
      *
      * @param orderId       the ID of the order to pay
      * @param paymentStatus the new {@link PaymentStatus} to set
+     * @throws IllegalOrderTransitionException if the order cannot be paid in its status
      */
-    @Override @Transactional
+    @Override
     public void pay(Long orderId, PaymentStatus paymentStatus) {
-        Order o = findById(orderId);
-        o.setPaymentStatus(paymentStatus);
-        if (o.getStatus() == OrderStatus.SERVED) {
-            o.setStatus(OrderStatus.COMPLETED);
-        }
-        orderRepo.save(o);
+        orderStates.changePayment(orderId, paymentStatus);
     }
 
     /**
-     * Reactivates a previously cancelled order, setting its status back to NEW.
+     * Reactivates a previously cancelled order through {@link OrderStateService},
+     * setting its status back to NEW.
      *
      * @param orderId the ID of the order to reactivate
+     * @throws IllegalOrderTransitionException if the order is neither canceled nor NEW
      */
-    @Override @Transactional
+    @Override
     public void reactivate(Long orderId) {
-        Order o = findById(orderId);
-        if (o.getStatus() == OrderStatus.CANCELED) {
-            o.setStatus(OrderStatus.NEW);
-            orderRepo.save(o);
-        }
+        orderStates.reactivate(orderId);
     }
 
     /**
@@ -123,7 +169,9 @@ public class OrderPersistenceServiceImpl implements OrderPersistenceService {
      */
     @Override @Transactional
     public void deleteById(Long orderId) {
+        Long customerId = orderRepo.findCustomerIdById(orderId).orElse(null);
         orderRepo.deleteById(orderId);
+        events.publishEvent(new OrderChangedEvent(orderId, customerId, OrderChangeType.DELETED, null, null));
     }
 
     /**
@@ -0,0 +1,75 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+import com.danven.web_library.dto.OrderVersionDto;
+import com.danven.web_library.exceptions.IllegalOrderTransitionException;
+import com.danven.web_library.exceptions.OrderConflictException;
+
+/**
+ * Changes the status and payment status of orders under the rules of
+ * {@link com.danven.web_library.domain.order.OrderStateMachine}.
+ * <p>
+ * Every change is a single conditional update on the order's version, so
+ * concurrent writers cannot overwrite each other. A change that loses a race
+ * is re-validated against the new state and retried; a caller that passes the
+ * version it showed to the user gets a conflict instead, because the user
+ * decided on a state that no longer exists.
+ * <p>
+ * Each method publishes an {@link OrderChangedEvent} when the state changed,
+ * and throws {@link IllegalArgumentException} if the order does not exist,
+ * {@link IllegalOrderTransitionException} if the lifecycle rules forbid the
+ * change, or {@link OrderConflictException} if the order changed concurrently.
+ */
+public interface OrderStateService {
+
+    /**
+     * Sets status and payment status, e.g. from the kitchen board.
+     *
+     * @param orderId         the order
+     * @param status          the requested status
+     * @param paymentStatus   the requested payment status
+     * @param expectedVersion the version the request was based on, or null to
+     *                        apply it to whatever the current state is
+     * @return the new state
+     */
+    OrderVersionDto change(Long orderId, OrderStatus status, PaymentStatus paymentStatus, Long expectedVersion);
+
+    /**
+     * Sets the payment status and keeps the status, except that a served
+     * order that is paid becomes COMPLETED.
+     *
+     * @param orderId       the order
+     * @param paymentStatus the requested payment status
+     * @return the new state
+     */
+    OrderVersionDto changePayment(Long orderId, PaymentStatus paymentStatus);
+
+    /**
+     * Cancels a NEW, unpaid order.
+     *
+     * @param orderId         the order
+     * @param expectedVersion the version the request was based on, or null
+     * @return the new state
+     */
+    OrderVersionDto cancel(Long orderId, Long expectedVersion);
+
+    /**
+     * Deletes a NEW, unpaid order entirely, e.g. one placed by mistake. The
+     * delete is guarded by the version like every state change, and publishes
+     * an {@link OrderChangedEvent} of type DELETED.
+     *
+     * @param orderId         the order
+     * @param expectedVersion the version the request was based on, or null
+     * @return the state of the order when it was deleted
+     */
+    OrderVersionDto delete(Long orderId, Long expectedVersion);
+
+    /**
+     * Brings a canceled order back to NEW.
+     *
+     * @param orderId the order
+     * @return the new state
+     */
+    OrderVersionDto reactivate(Long orderId);
+}
@@ -0,0 +1,185 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.domain.order.Order;
+import com.danven.web_library.domain.order.OrderStateMachine;
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+import com.danven.web_library.dto.OrderVersionDto;
+import com.danven.web_library.exceptions.IllegalOrderTransitionException;
+import com.danven.web_library.exceptions.OrderConflictException;
+import com.danven.web_library.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Implementation of {@link OrderStateService}.
+ * <p>
+ * Each attempt runs in a transaction of its own: it reads the state and
+ * version without loading the order, validates the change, and writes it with
+ * {@link OrderRepository#updateStateIfVersion}. If no row was updated, or the
+ * database reported a concurrent write, another writer got there first and
+ * the next attempt starts from the state that writer committed. Deletes load
+ * the order and let Hibernate's versioned {@code DELETE} detect such writes.
+ */
+@Service
+public class OrderStateServiceImpl implements OrderStateService {
+
+    private final OrderRepository           orderRepo;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate       transactionTemplate;
+    private final int                       maxAttempts;
+
+    public OrderStateServiceImpl(OrderRepository orderRepo,
+                                 ApplicationEventPublisher events,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${palatos.order-state.max-attempts:5}") int maxAttempts) {
+        this.orderRepo           = orderRepo;
+        this.events              = events;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts         = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OrderVersionDto change(Long orderId, OrderStatus status, PaymentStatus paymentStatus, Long expectedVersion) {
+        return apply(orderId, expectedVersion, s -> next(s, status, paymentStatus));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OrderVersionDto changePayment(Long orderId, PaymentStatus paymentStatus) {
+        return apply(orderId, null, s -> next(s, s.getStatus(), paymentStatus));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OrderVersionDto cancel(Long orderId, Long expectedVersion) {
+        return apply(orderId, expectedVersion, s -> next(s, OrderStatus.CANCELED, s.getPaymentStatus()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OrderVersionDto delete(Long orderId, Long expectedVersion) {
+        return retry(orderId, expectedVersion, () -> attemptDelete(orderId, expectedVersion));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OrderVersionDto reactivate(Long orderId) {
+        return apply(orderId, null, s -> next(s, OrderStatus.NEW, s.getPaymentStatus()));
+    }
+
+    private static OrderVersionDto next(OrderVersionDto current, OrderStatus status, PaymentStatus paymentStatus) {
+        OrderStatus target = OrderStateMachine.transition(
+                current.getStatus(), current.getPaymentStatus(), status, paymentStatus);
+        return new OrderVersionDto(current.getOrderId(), current.getCustomerId(), target, paymentStatus,
+                current.getVersion());
+    }
+
+    /**
+     * Validates and writes a state change, retrying lost races.
+     */
+    private OrderVersionDto apply(Long orderId, Long expectedVersion, UnaryOperator<OrderVersionDto> next) {
+        return retry(orderId, expectedVersion, () -> attempt(orderId, expectedVersion, next));
+    }
+
+    /**
+     * Runs the given attempt until it wins or the attempts are used up.
+     */
+    private OrderVersionDto retry(Long orderId, Long expectedVersion, Supplier<OrderVersionDto> attempt) {
+        for (int round = 1; ; round++) {
+            try {
+                OrderVersionDto result = transactionTemplate.execute(tx -> attempt.get());
+                if (result != null) {
+                    return result;
+                }
+            } catch (ConcurrencyFailureException e) {
+                // the row was written concurrently; decide again on the committed state
+            }
+            if (expectedVersion != null) {
+                throw new OrderConflictException("Order " + orderId + " was changed by someone else. Please reload.");
+            }
+            if (round >= maxAttempts) {
+                throw new OrderConflictException("Order " + orderId + " is being changed concurrently. Please try again.");
+            }
+        }
+    }
+
+    /**
+     * One read-validate-write round.
+     *
+     * @return the new state, or null if a concurrent writer won
+     */
+    private OrderVersionDto attempt(Long orderId, Long expectedVersion, UnaryOperator<OrderVersionDto> next) {
+        OrderVersionDto current = orderRepo.findVersionById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new OrderConflictException("Order " + orderId + " was changed by someone else. Please reload.");
+        }
+        OrderVersionDto target = next.apply(current);
+        if (target.getStatus() == current.getStatus() && target.getPaymentStatus() == current.getPaymentStatus()) {
+            return current;
+        }
+        if (orderRepo.updateStateIfVersion(orderId, current.getVersion(),
+                target.getStatus(), target.getPaymentStatus()) == 0) {
+            return null;
+        }
+        target.setVersion(current.getVersion() + 1);
+        events.publishEvent(new OrderChangedEvent(orderId, current.getCustomerId(), changeType(current, target),
+                target.getStatus(), target.getPaymentStatus()));
+        return target;
+    }
+
+    /**
+     * One delete round.
+     *
+     * @return the state of the deleted order
+     */
+    private OrderVersionDto attemptDelete(Long orderId, Long expectedVersion) {
+        Order order = orderRepo.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new OrderConflictException("Order " + orderId + " was changed by someone else. Please reload.");
+        }
+        if (order.getStatus() != OrderStatus.NEW || order.getPaymentStatus() == PaymentStatus.PAID) {
+            throw new IllegalOrderTransitionException("Only new, unpaid orders can be deleted.");
+        }
+        Long customerId = order.getCustomer() == null ? null : order.getCustomer().getId();
+        OrderVersionDto deleted = new OrderVersionDto(orderId, customerId, order.getStatus(),
+                order.getPaymentStatus(), order.getVersion());
+        orderRepo.delete(order);
+        // runs the versioned DELETE now, so a concurrent write fails this round
+        orderRepo.flush();
+        events.publishEvent(new OrderChangedEvent(orderId, customerId, OrderChangeType.DELETED, null, null));
+        return deleted;
+    }
+
+    private static OrderChangeType changeType(OrderVersionDto from, OrderVersionDto to) {
+        if (to.getStatus() == OrderStatus.CANCELED) {
+            return OrderChangeType.CANCELED;
+        }
+        if (from.getPaymentStatus() != PaymentStatus.PAID && to.getPaymentStatus() == PaymentStatus.PAID) {
+            return OrderChangeType.PAID;
+        }
+        return OrderChangeType.STATUS_CHANGED;
+    }
+}
@@ -0,0 +1,37 @@
+package com.danven.web_library.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when a new order is saved. Listeners react once the publishing
+ * transaction has committed.
+ */
+public class OrderSubmittedEvent {
+
+    private final long       orderId;
+    private final List<Long> productIds;
+
+    /**
+     * @param orderId    the new order
+     * @param productIds the distinct products ordered
+     */
+    public OrderSubmittedEvent(long orderId, Collection<Long> productIds) {
+        this.orderId    = orderId;
+        this.productIds = List.copyOf(productIds);
+    }
+
+    /**
+     * @return the new order
+     */
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * @return the distinct products ordered
+     */
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
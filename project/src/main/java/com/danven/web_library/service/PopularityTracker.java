@@ -0,0 +1,225 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.ProductSaleDto;
+import com.danven.web_library.repository.ProductOrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Time-decayed popularity of products: every ordered unit counts
+ * {@code 2^(-age / half-life)}, so recent orders outweigh old ones.
+ * <p>
+ * Counters use forward decay: an order is added with weight
+ * {@code e^(λ (t - landmark))}, which never has to be decayed again, and the
+ * decayed score is read as {@code sum · e^(-λ (now - landmark))}. Recording an
+ * order is thus a lock-free {@link DoubleAdder} increment (striped across
+ * cores under contention) without any database access. When the landmark
+ * grows old the counters are rebased onto a newer one before the weights
+ * could overflow.
+ * <p>
+ * Scores are written to the {@code PRODUCT} table periodically and read back
+ * on startup; without persisted scores they are seeded from the order
+ * history. Readers use the {@link Ranking} refreshed every few seconds.
+ */
+@Service
+public class PopularityTracker {
+
+    /** Exponent of the oldest weight after which counters are rebased. */
+    private static final double REBASE_EXPONENT = 64;
+
+    private static final String SELECT_SCORES =
+            "SELECT product_id, decayed_popularity, decayed_popularity_at FROM product"
+            + " WHERE decayed_popularity_at IS NOT NULL";
+    private static final String UPDATE_SCORE =
+            "UPDATE product SET decayed_popularity = ?, decayed_popularity_at = ? WHERE product_id = ?";
+
+    private final ProductOrderRepository productOrderRepo;
+    private final JdbcTemplate           jdbc;
+
+    /** Decay rate per millisecond. */
+    private final double lambda;
+
+    private volatile Counters counters = new Counters(System.currentTimeMillis());
+    private volatile Ranking  ranking  = Ranking.EMPTY;
+
+    /** Counters replaced by the last rebase, drained once more by the next persist; guarded by {@code this}. */
+    private Counters retired;
+
+    public PopularityTracker(ProductOrderRepository productOrderRepo,
+                             JdbcTemplate jdbc,
+                             @Value("${palatos.popularity.half-life-hours:168}") double halfLifeHours) {
+        this.productOrderRepo = productOrderRepo;
+        this.jdbc             = jdbc;
+        this.lambda           = Math.log(2) / (halfLifeHours * 3_600_000);
+    }
+
+    /**
+     * Counts ordered units of a product.
+     *
+     * @param productId the product
+     * @param amount    the number of units ordered
+     */
+    public void record(long productId, long amount) {
+        Counters c = counters;
+        c.adder(productId).add(amount * Math.exp(lambda * (System.currentTimeMillis() - c.landmark)));
+    }
+
+    /**
+     * @return the latest ranking; at most a refresh interval old
+     */
+    public Ranking ranking() {
+        return ranking;
+    }
+
+    /**
+     * Loads the persisted scores, or seeds the scores from the order history
+     * if none have been persisted yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        Counters c = counters;
+        int[] loaded = {0};
+        jdbc.query(SELECT_SCORES, rs -> {
+            long at = rs.getTimestamp(3).getTime();
+            c.adder(rs.getLong(1)).add(rs.getDouble(2) * Math.exp(lambda * (at - c.landmark)));
+            loaded[0]++;
+        });
+        if (loaded[0] == 0) {
+            for (ProductSaleDto sale : productOrderRepo.findAllSales()) {
+                long at = sale.getOrderTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                c.adder(sale.getProductId()).add(sale.getAmount() * Math.exp(lambda * (at - c.landmark)));
+            }
+        }
+        refreshRanking();
+    }
+
+    /**
+     * Recomputes the ranking from the counters.
+     */
+    @Scheduled(
+            initialDelayString = "${palatos.popularity.ranking-refresh-ms:10000}",
+            fixedDelayString   = "${palatos.popularity.ranking-refresh-ms:10000}"
+    )
+    public void refreshRanking() {
+        Counters c = counters;
+        double decay = Math.exp(-lambda * (System.currentTimeMillis() - c.landmark));
+        Map<Long, Double> scores = new HashMap<>();
+        c.values.forEach((id, adder) -> {
+            double score = adder.sum() * decay;
+            if (score > 0) {
+                scores.put(id, score);
+            }
+        });
+        ranking = Ranking.of(scores);
+    }
+
+    /**
+     * Writes the current scores to the database in one JDBC batch, rebasing
+     * the counters first if their landmark has grown old.
+     */
+    @Scheduled(
+            initialDelayString = "${palatos.popularity.persist-interval-ms:300000}",
+            fixedDelayString   = "${palatos.popularity.persist-interval-ms:300000}"
+    )
+    public synchronized void persist() {
+        long now = System.currentTimeMillis();
+        if (retired != null) {
+            // picks up increments that raced with the last rebase
+            drain(retired, counters);
+            retired = null;
+        }
+        Counters c = counters;
+        if (lambda * (now - c.landmark) > REBASE_EXPONENT) {
+            Counters fresh = new Counters(now);
+            counters = fresh;
+            drain(c, fresh);
+            retired = c;
+            c = fresh;
+        }
+
+        double decay = Math.exp(-lambda * (now - c.landmark));
+        Timestamp at = new Timestamp(now);
+        List<Object[]> rows = new ArrayList<>(c.values.size());
+        c.values.forEach((id, adder) -> rows.add(new Object[]{adder.sum() * decay, at, id}));
+        jdbc.batchUpdate(UPDATE_SCORE, rows);
+    }
+
+    /**
+     * Moves the counts of {@code from} into {@code to}, rescaled to its landmark.
+     */
+    private void drain(Counters from, Counters to) {
+        double scale = Math.exp(lambda * (from.landmark - to.landmark));
+        from.values.forEach((id, adder) -> {
+            double value = adder.sumThenReset();
+            if (value != 0) {
+                to.adder(id).add(value * scale);
+            }
+        });
+    }
+
+    /**
+     * Forward-decayed counters relative to one landmark time.
+     */
+    private static final class Counters {
+
+        private final long                   landmark;
+        private final Map<Long, DoubleAdder> values = new ConcurrentHashMap<>();
+
+        private Counters(long landmark) {
+            this.landmark = landmark;
+        }
+
+        DoubleAdder adder(long productId) {
+            DoubleAdder adder = values.get(productId);
+            return adder != null ? adder : values.computeIfAbsent(productId, id -> new DoubleAdder());
+        }
+    }
+
+    /**
+     * Immutable decayed scores of all products ordered at least once, as of
+     * one refresh.
+     */
+    public static final class Ranking {
+
+        static final Ranking EMPTY = new Ranking(Map.of(), List.of());
+
+        private final Map<Long, Double> scores;
+        private final List<Long>        productIds;
+
+        private Ranking(Map<Long, Double> scores, List<Long> productIds) {
+            this.scores     = scores;
+            this.productIds = productIds;
+        }
+
+        static Ranking of(Map<Long, Double> scores) {
+            List<Long> ids = new ArrayList<>(scores.keySet());
+            ids.sort(Comparator.<Long>comparingDouble(scores::get).reversed().thenComparing(id -> id));
+            return new Ranking(Map.copyOf(scores), List.copyOf(ids));
+        }
+
+        /**
+         * @param productId the product
+         * @return its decayed score; 0 if it has never been ordered
+         */
+        public double scoreOf(Long productId) {
+            return scores.getOrDefault(productId, 0.0);
+        }
+
+        /**
+         * @return the IDs of all scored products, highest score first, then by ID
+         */
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+    }
+}
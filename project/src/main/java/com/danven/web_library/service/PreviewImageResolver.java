@@ -0,0 +1,28 @@
+package com.danven.web_library.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Resolves the preview image of many products at once.
+ * Used by list views (cart, orders, kitchen board) that need a single
+ * thumbnail per product and must not query images product by product.
+ */
+public interface PreviewImageResolver {
+
+    /**
+     * Resolve the preview image URL of every given product.
+     *
+     * @param productIds the products to resolve
+     * @return map productId → preview URL; the URL is empty when the product has no preview
+     */
+    Map<Long, String> resolvePreviewUrls(Collection<Long> productIds);
+
+    /**
+     * Drop cached previews of the given products, both immediately and once
+     * the current transaction (if any) commits.
+     *
+     * @param productIds the products whose images changed
+     */
+    void evict(Collection<Long> productIds);
+}
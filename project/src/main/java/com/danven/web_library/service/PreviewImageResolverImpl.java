@@ -0,0 +1,59 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.PreviewImageDto;
+import com.danven.web_library.repository.ImageRepository;
+import com.danven.web_library.util.ImageUtil;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default implementation of {@link PreviewImageResolver}.
+ * Misses are loaded with a single metadata-only query over the preview rows,
+ * and results (including "no preview") are kept per product in a small
+ * {@link ExpiringCache}.
+ */
+@Service
+public class PreviewImageResolverImpl implements PreviewImageResolver {
+
+    /** How long a resolved preview stays cached. */
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /** How many product previews stay cached at most. */
+    private static final int MAX_CACHED = 10_000;
+
+    private final ImageRepository imageRepo;
+
+    /** productId → cached preview URL ("" when the product has none). */
+    private final ExpiringCache<Long, String> cache = new ExpiringCache<>(TTL_MILLIS, MAX_CACHED);
+
+    public PreviewImageResolverImpl(ImageRepository imageRepo) {
+        this.imageRepo = imageRepo;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Long, String> resolvePreviewUrls(Collection<Long> productIds) {
+        return cache.getAll(productIds, missing -> {
+            Map<Long, String> loaded = new HashMap<>();
+            for (PreviewImageDto p : imageRepo.findPreviewsByProductIds(missing)) {
+                loaded.putIfAbsent(p.getProductId(), ImageUtil.getImageUrl(p.getImageId()));
+            }
+            for (Long id : missing) {
+                loaded.putIfAbsent(id, "");
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void evict(Collection<Long> productIds) {
+        cache.evict(productIds);
+    }
+}
@@ -0,0 +1,246 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.util.SearchTextUtil;
+
+import java.util.*;
+
+/**
+ * Immutable inverted index for full-text search over product names,
+ * descriptions and ingredients.
+ * <p>
+ * Products are addressed by the same ordinals as in {@link CategoryIndex};
+ * empty slots have no postings.
+ * The term dictionary is sorted, so the last word of a query can be matched as
+ * a prefix (typeahead) with a binary search. Results are ranked with BM25,
+ * field matches being weighted (a hit in the name counts more than one in the
+ * description).
+ * <p>
+ * Analyzing a product is the expensive part of building the index; analyzed
+ * documents are therefore carried over from the previous index for every
+ * product whose DTO instance did not change.
+ */
+public final class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT        = 3.0f;
+    private static final float INGREDIENT_WEIGHT  = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    /** Score factor for terms only matching a query word as a prefix. */
+    private static final float PREFIX_WEIGHT = 0.7f;
+
+    /** Maximum number of dictionary terms a prefix is expanded to. */
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final float K1 = 1.2f;
+    private static final float B  = 0.75f;
+
+    private final Map<Long, Document> documents;
+    private final String[]  terms;
+    private final int[][]   postingDocs;
+    private final float[][] postingFreqs;
+    private final float[]   idf;
+    private final float[]   lengthNorm;
+
+    private ProductSearchIndex(Map<Long, Document> documents,
+                               String[] terms,
+                               int[][] postingDocs,
+                               float[][] postingFreqs,
+                               float[] idf,
+                               float[] lengthNorm) {
+        this.documents    = documents;
+        this.terms        = terms;
+        this.postingDocs  = postingDocs;
+        this.postingFreqs = postingFreqs;
+        this.idf          = idf;
+        this.lengthNorm   = lengthNorm;
+    }
+
+    /**
+     * Builds the index; the ordinal of a product is its position in {@code products}.
+     *
+     * @param products the products, in ordinal order; null for an empty slot
+     * @param previous the index of the previous snapshot whose analyzed
+     *                 documents may be reused, or null
+     * @return the new index
+     */
+    public static ProductSearchIndex build(List<ProductDto> products, ProductSearchIndex previous) {
+        int n = products.size();
+        Map<Long, Document> documents = new HashMap<>();
+        Document[] byOrdinal = new Document[n];
+        double totalLength = 0;
+        for (int ordinal = 0; ordinal < n; ordinal++) {
+            ProductDto p = products.get(ordinal);
+            if (p == null) {
+                continue;
+            }
+            Document doc = previous == null ? null : previous.documents.get(p.getId());
+            if (doc == null || doc.source != p) {
+                doc = Document.analyze(p);
+            }
+            documents.put(p.getId(), doc);
+            byOrdinal[ordinal] = doc;
+            totalLength += doc.length;
+        }
+        int live = documents.size();
+        float avgLength = live == 0 ? 1f : (float) Math.max(totalLength / live, 1e-3);
+
+        float[] lengthNorm = new float[n];
+        Map<String, Integer> docFreq = new HashMap<>();
+        for (int ordinal = 0; ordinal < n; ordinal++) {
+            Document doc = byOrdinal[ordinal];
+            if (doc == null) {
+                continue;
+            }
+            lengthNorm[ordinal] = K1 * (1 - B + B * doc.length / avgLength);
+            for (String term : doc.terms) {
+                docFreq.merge(term, 1, Integer::sum);
+            }
+        }
+
+        String[] terms = docFreq.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        Map<String, Integer> termIds = new HashMap<>(terms.length * 2);
+        int[][]   postingDocs  = new int[terms.length][];
+        float[][] postingFreqs = new float[terms.length][];
+        float[]   idf          = new float[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            int df = docFreq.get(terms[t]);
+            termIds.put(terms[t], t);
+            postingDocs[t]  = new int[df];
+            postingFreqs[t] = new float[df];
+            idf[t] = (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+        }
+
+        int[] fill = new int[terms.length];
+        for (int ordinal = 0; ordinal < n; ordinal++) {
+            Document doc = byOrdinal[ordinal];
+            if (doc == null) {
+                continue;
+            }
+            for (int i = 0; i < doc.terms.length; i++) {
+                int t = termIds.get(doc.terms[i]);
+                postingDocs[t][fill[t]]  = ordinal;
+                postingFreqs[t][fill[t]] = doc.freqs[i];
+                fill[t]++;
+            }
+        }
+
+        return new ProductSearchIndex(Map.copyOf(documents), terms, postingDocs, postingFreqs, idf, lengthNorm);
+    }
+
+    /**
+     * Searches the index. Every word of the query must match (as a whole term
+     * or, less highly ranked, as a prefix of one), so results narrow down while
+     * the user keeps typing.
+     *
+     * @param query  the free-text query
+     * @param filter ordinals allowed in the result, or null for all
+     * @param limit  maximum number of hits
+     * @return the ordinals of the best hits, best first
+     */
+    public int[] search(String query, BitSet filter, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(SearchTextUtil.tokenize(query)));
+        int n = lengthNorm.length;
+        if (words.isEmpty() || limit <= 0 || n == 0) {
+            return new int[0];
+        }
+
+        float[] scores  = new float[n];
+        int[]   matched = new int[n];
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            int from = Arrays.binarySearch(terms, word);
+            boolean exact = from >= 0;
+            if (!exact) {
+                from = -from - 1;
+            }
+            int expansions = 0;
+            for (int t = from; t < terms.length && terms[t].startsWith(word); t++) {
+                boolean exactTerm = exact && t == from;
+                if (!exactTerm && expansions++ == MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                float weight = exactTerm ? 1f : PREFIX_WEIGHT;
+                int[]   docs  = postingDocs[t];
+                float[] freqs = postingFreqs[t];
+                for (int i = 0; i < docs.length; i++) {
+                    int d = docs[i];
+                    // only documents that matched every previous word stay candidates
+                    if (matched[d] < w) {
+                        continue;
+                    }
+                    float tf = freqs[i];
+                    scores[d] += weight * idf[t] * tf * (K1 + 1) / (tf + lengthNorm[d]);
+                    matched[d] = w + 1;
+                }
+            }
+        }
+
+        int required = words.size();
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1,
+                Comparator.<Integer>comparingDouble(d -> scores[d]).thenComparing(d -> -d));
+        for (int d = 0; d < n; d++) {
+            if (matched[d] != required || (filter != null && !filter.get(d))) {
+                continue;
+            }
+            top.add(d);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        int[] result = new int[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll();
+        }
+        return result;
+    }
+
+    /**
+     * A product analyzed into distinct terms with field-weighted frequencies.
+     */
+    private static final class Document {
+
+        private final ProductDto source;
+        private final String[]   terms;
+        private final float[]    freqs;
+        private final float      length;
+
+        private Document(ProductDto source, String[] terms, float[] freqs, float length) {
+            this.source = source;
+            this.terms  = terms;
+            this.freqs  = freqs;
+            this.length = length;
+        }
+
+        static Document analyze(ProductDto p) {
+            Map<String, Float> weighted = new HashMap<>();
+            float length = 0;
+            length += add(weighted, p.getProductName(), NAME_WEIGHT);
+            length += add(weighted, p.getProductDescription(), DESCRIPTION_WEIGHT);
+            if (p.getIngredients() != null) {
+                for (String ingredient : p.getIngredients()) {
+                    length += add(weighted, ingredient, INGREDIENT_WEIGHT);
+                }
+            }
+            String[] terms = new String[weighted.size()];
+            float[]  freqs = new float[weighted.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> e : weighted.entrySet()) {
+                terms[i] = e.getKey();
+                freqs[i] = e.getValue();
+                i++;
+            }
+            return new Document(p, terms, freqs, length);
+        }
+
+        private static float add(Map<String, Float> weighted, String text, float weight) {
+            List<String> tokens = SearchTextUtil.tokenize(text);
+            for (String token : tokens) {
+                weighted.merge(token, weight, Float::sum);
+            }
+            return tokens.size() * weight;
+        }
+    }
+}
@@ -4,22 +4,29 @@ package com.danven.web_library.service;
 import com.danven.web_library.domain.product.Product;
 import com.danven.web_library.dto.ProductDto;
 import com.danven.web_library.dto.ProductEditDto;
+import com.danven.web_library.dto.ProductPageDto;
 
 import javax.validation.ValidationException;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     List<ProductDto> getAllProducts();
     List<ProductDto> getProductsByCategory(Long categoryId);
     List<ProductDto> getProductsByCategoryName(String categoryName);
+    List<ProductDto> getProductsInAllCategories(Collection<Long> categoryIds);
+    List<ProductDto> getProductsInAnyCategory(Collection<Long> categoryIds);
     ProductDto getProductById(Long productId);
+    ProductPageDto getProductPage(Long categoryId, ProductSort sort, String cursor, int size);
 
     ProductDto addProduct(ProductEditDto dto) throws ValidationException, IOException;
 
     void editProduct(Long productId, ProductEditDto dto) throws IOException;
     void removeProduct(Long productId);
     Product getProductEntityById(Long productId);
+    Map<Long, Product> getProductEntitiesByIds(Collection<Long> productIds);
 
     void deleteImage(Long prodId, Long imgId);
 }
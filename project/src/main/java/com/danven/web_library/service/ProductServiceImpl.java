@@ -1,16 +1,24 @@
 package com.danven.web_library.service;
 
 import com.danven.web_library.domain.product.*;
-import com.danven.web_library.dto.CategoryDto;
-import com.danven.web_library.dto.ImageDto;
+import com.danven.web_library.dto.ProductCategoryNameDto;
 import com.danven.web_library.dto.ProductDto;
 import com.danven.web_library.dto.ProductEditDto;
+import com.danven.web_library.dto.ProductListItemDto;
+import com.danven.web_library.dto.ProductPageDto;
 import com.danven.web_library.exceptions.ValidationException;
 import com.danven.web_library.repository.CategoryRepository;
 import com.danven.web_library.repository.ImageRepository;
 import com.danven.web_library.repository.ProductRepository;
 import com.danven.web_library.util.ImageUtil;
+import com.danven.web_library.util.ProductMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -28,63 +36,91 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository  productRepo;
     private final CategoryRepository categoryRepo;
     private final ImageRepository    imageRepo;
+    private final ImageStore         imageStore;
+    private final PreviewImageResolver   previewResolver;
+    private final ImageDerivativeService derivativeService;
+    private final MenuSnapshotService    menuSnapshots;
+    private final ApplicationEventPublisher events;
 
     public ProductServiceImpl(ProductRepository productRepo,
                               CategoryRepository categoryRepo,
-                              ImageRepository imageRepo) {
-        this.productRepo  = productRepo;
-        this.categoryRepo = categoryRepo;
-        this.imageRepo    = imageRepo;
+                              ImageRepository imageRepo,
+                              ImageStore imageStore,
+                              PreviewImageResolver previewResolver,
+                              ImageDerivativeService derivativeService,
+                              MenuSnapshotService menuSnapshots,
+                              ApplicationEventPublisher events) {
+        this.productRepo       = productRepo;
+        this.categoryRepo      = categoryRepo;
+        this.imageRepo         = imageRepo;
+        this.imageStore        = imageStore;
+        this.previewResolver   = previewResolver;
+        this.derivativeService = derivativeService;
+        this.menuSnapshots     = menuSnapshots;
+        this.events            = events;
     }
 
     /**
-     * Returns all products as DTOs, eagerly loading categories and images.
+     * Returns all products as DTOs from the current menu snapshot.
+     * The returned list and DTOs are shared and must not be modified.
      *
      * @return list of {@link ProductDto}
      */
-
     @Override
-    @Transactional(readOnly = true)
     public List<ProductDto> getAllProducts() {
-        return productRepo.findAllWithCategoriesAndImages().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return menuSnapshots.current().getProducts();
     }
 
 
     /**
      * Returns all products in the given category, or all products if categoryId is 0.
+     * Served from the current menu snapshot.
      *
      * @param categoryId the category filter (0 = all)
      * @return list of filtered {@link ProductDto}
      */
     @Override
-    @Transactional(readOnly = true)
     public List<ProductDto> getProductsByCategory(Long categoryId) {
         if (categoryId == 0) {
             return getAllProducts();
         }
-        return productRepo.findAllWithCategoriesAndImages().stream()
-                .filter(p -> p.getCategories().stream()
-                        .anyMatch(c -> c.getId().equals(categoryId)))
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return menuSnapshots.current().getProductsByCategory(categoryId);
     }
 
     /**
      * Retrieve products by category name (case-insensitive).
+     * Served from the current menu snapshot.
      *
      * @param categoryName the name of the category
      * @return a list of filtered {@link ProductDto}
      */
     @Override
-    @Transactional(readOnly = true)
     public List<ProductDto> getProductsByCategoryName(String categoryName) {
-        return productRepo.findAllWithCategoriesAndImages().stream()
-                .filter(p -> p.getCategories().stream()
-                        .anyMatch(c -> c.getName().equalsIgnoreCase(categoryName)))
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return menuSnapshots.current().getProductsByCategoryName(categoryName);
+    }
+
+    /**
+     * Retrieve the products belonging to every given category.
+     * Served from the category index of the current menu snapshot.
+     *
+     * @param categoryIds the IDs of the categories
+     * @return a list of matching {@link ProductDto}, ordered by ID
+     */
+    @Override
+    public List<ProductDto> getProductsInAllCategories(Collection<Long> categoryIds) {
+        return menuSnapshots.current().getProductsInAllCategories(categoryIds);
+    }
+
+    /**
+     * Retrieve the products belonging to at least one of the given categories.
+     * Served from the category index of the current menu snapshot.
+     *
+     * @param categoryIds the IDs of the categories
+     * @return a list of matching {@link ProductDto}, ordered by ID
+     */
+    @Override
+    public List<ProductDto> getProductsInAnyCategory(Collection<Long> categoryIds) {
+        return menuSnapshots.current().getProductsInAnyCategory(categoryIds);
     }
 
 
@@ -104,6 +140,87 @@ public class ProductServiceImpl implements ProductService {
     }
 
 
+    /**
+     * Returns one page of the product list as slim projections, using keyset
+     * pagination on (sort key, product ID). The page itself is a single query
+     * that never materializes {@link Product} entities; the category names of
+     * its rows are fetched in one additional batched query.
+     *
+     * @param categoryId the category filter (0 = all)
+     * @param sort       the sort order
+     * @param cursor     the cursor returned with the previous page, or null for the first page
+     * @param size       the page size
+     * @return the page and the cursor of the next one
+     * @throws ResponseStatusException if the cursor is malformed or belongs to another sort order
+     * @throws IllegalArgumentException for {@link ProductSort#TRENDING}, which is served from memory
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageDto getProductPage(Long categoryId, ProductSort sort, String cursor, int size) {
+        long category = categoryId == null ? 0L : categoryId;
+        String[] after = sort.decodeCursor(cursor);
+        Long afterId = after == null ? 0L : Long.valueOf(after[1]);
+        // one extra row tells whether there is a next page
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<ProductListItemDto> rows;
+        try {
+            rows = switch (sort) {
+                case PRICE_ASC -> productRepo.findPageByPriceAsc(category,
+                        after == null ? BigDecimal.valueOf(-1) : new BigDecimal(after[0]), afterId, limit);
+                case PRICE_DESC -> productRepo.findPageByPriceDesc(category,
+                        after == null ? BigDecimal.valueOf(Long.MAX_VALUE) : new BigDecimal(after[0]), afterId, limit);
+                case NAME -> productRepo.findPageByName(category,
+                        after == null ? "" : after[0], afterId, limit);
+                case POPULARITY -> productRepo.findPageByPopularity(category,
+                        after == null ? Long.MAX_VALUE : Long.parseLong(after[0]), afterId, limit);
+                case TRENDING -> throw new IllegalArgumentException(
+                        "Trending pages are served from the menu snapshot");
+            };
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<ProductListItemDto> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        if (items.isEmpty()) {
+            return new ProductPageDto(items, null);
+        }
+
+        Map<Long, List<String>> categoryNames = productRepo.findCategoryNamesByProductIds(
+                        items.stream().map(ProductListItemDto::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(ProductCategoryNameDto::getProductId,
+                        Collectors.mapping(ProductCategoryNameDto::getCategoryName, Collectors.toList())));
+        for (ProductListItemDto item : items) {
+            item.setCategoryNames(categoryNames.getOrDefault(item.getId(), List.of()));
+            if (item.getPreviewImageId() != null) {
+                item.setPreviewUrl(ImageUtil.getImageUrl(item.getPreviewImageId()));
+            }
+        }
+
+        ProductListItemDto last = items.get(items.size() - 1);
+        String next = hasMore ? sort.encodeCursor(sortKey(sort, last), last.getId()) : null;
+        return new ProductPageDto(items, next);
+    }
+
+    /**
+     * Recomputes the popularity counters from the order lines once the
+     * application (including its sample data) is ready, and then
+     * periodically. Placing an order does not update them, so the product
+     * list sorted by popularity lags behind by at most one interval; the
+     * time-decayed ranking is kept current in memory by {@link PopularityTracker}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${palatos.popularity.recompute-interval-ms:300000}",
+            fixedDelayString   = "${palatos.popularity.recompute-interval-ms:300000}"
+    )
+    @Transactional
+    public void recomputePopularity() {
+        productRepo.recomputePopularity();
+    }
+
     /**
      * Create a new product (with its specific subtype) from the given edit DTO,
      * persist it along with any uploaded images, and return the saved DTO.
@@ -131,6 +248,7 @@ public class ProductServiceImpl implements ProductService {
         if (files != null && !files.isEmpty()) {
             String key = dto.getPreviewImageKey();
             int previewIndex = -1;
+            List<Image> newImages = new ArrayList<>();
 
             // Извлекаем индекс изображения из ключа вида "new-0", "new-1"
             if (key != null && key.startsWith("new-")) {
@@ -145,13 +263,15 @@ public class ProductServiceImpl implements ProductService {
                     ImageFormat format = ImageFormat.fromContentType(file.getContentType());
                     Image image = new Image();
                     image.setFormat(format);
-                    image.setImage(file.getBytes());
+                    image.setContentHash(imageStore.put(file.getBytes()));
                     image.setPreview(i == previewIndex); // только выбранное будет preview
                     image.setProduct(saved);
                     saved.addImage(image);
                     imageRepo.save(image);
+                    newImages.add(image);
                 }
             }
+            derivativeService.generateAfterCommit(newImages);
 
             // Если preview не был установлен — ставим его на первое изображение
             boolean hasPreview = saved.getImages().stream().anyMatch(Image::isPreview);
@@ -162,9 +282,10 @@ public class ProductServiceImpl implements ProductService {
 
 
         // 5) Теперь у saved.getImages() есть все Image (в том числе новые),
-        //    и можно сразу получить из них base64 через ваш util внутри toDto.
+        //    и можно сразу получить из них URL через ваш util внутри toDto.
         //    Конвертим saved в DTO — он уже содержит id, списки картинок и категорий.
         ProductDto result = toDto(saved);
+        events.publishEvent(new MenuChangedEvent(MenuChangeType.PRODUCT_ADDED, List.of(saved.getId())));
 
         return result;
     }
@@ -185,6 +306,7 @@ public class ProductServiceImpl implements ProductService {
         Product product = productRepo.findByIdWithCategoriesAndImages(productId)
                 .orElseThrow(() -> new ValidationException("Product not found: " + productId));
 
+        BigDecimal oldPrice = product.getPrice();
         product.setProductName(dto.getProductName());
         product.setProductDescription(dto.getProductDescription());
         product.setPrice(Optional.ofNullable(dto.getPrice()).orElse(BigDecimal.ZERO));
@@ -214,7 +336,7 @@ public class ProductServiceImpl implements ProductService {
                     Image img = new Image();
                     img.setFormat(ImageFormat.valueOf(
                             file.getContentType().split("/")[1].toUpperCase()));
-                    img.setImage(file.getBytes());
+                    img.setContentHash(imageStore.put(file.getBytes()));
                     img.setPreview(false); // пока не preview
                     product.addImage(img);
                     newImages.add(img);
@@ -266,6 +388,15 @@ public class ProductServiceImpl implements ProductService {
 
         // G) Сохраняем
         productRepo.save(product);
+        previewResolver.evict(List.of(productId));
+        derivativeService.generateAfterCommit(newImages);
+        events.publishEvent(new MenuChangedEvent(MenuChangeType.PRODUCT_EDITED, List.of(productId)));
+        if (oldPrice == null || oldPrice.compareTo(product.getPrice()) != 0) {
+            events.publishEvent(new MenuChangedEvent(MenuChangeType.PRICE_CHANGED, List.of(productId)));
+        }
+        if (!newImages.isEmpty() || !removeIds.isEmpty()) {
+            events.publishEvent(new MenuChangedEvent(MenuChangeType.IMAGE_CHANGED, List.of(productId)));
+        }
     }
 
 
@@ -284,6 +415,8 @@ public class ProductServiceImpl implements ProductService {
 
         product.getImages().forEach(imageRepo::delete); // удалить изображения
         productRepo.delete(product);
+        previewResolver.evict(List.of(productId));
+        events.publishEvent(new MenuChangedEvent(MenuChangeType.PRODUCT_REMOVED, List.of(productId)));
     }
 
 
@@ -304,6 +437,27 @@ public class ProductServiceImpl implements ProductService {
                 );
     }
 
+    /**
+     * Retrieve several raw {@link Product} entities with one query, e.g. for
+     * the lines of an order. Their associations are loaded on first access.
+     *
+     * @param productIds the IDs of the products
+     * @return product ID → {@link Product} entity
+     * @throws NoSuchElementException if a product is not found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Product> getProductEntitiesByIds(Collection<Long> productIds) {
+        Map<Long, Product> products = productRepo.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new NoSuchElementException("Продукт с id=" + productId + " не найден");
+            }
+        }
+        return products;
+    }
+
     /**
      * Delete a single image from a product without deleting the product itself.
      *
@@ -322,14 +476,17 @@ public class ProductServiceImpl implements ProductService {
                         )
                 );
 
-        boolean removed = product.getImages().removeIf(img -> img.getId().equals(imgId));
-        if (!removed) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    "Image not found: " + imgId
-            );
-        }
-        // flush happens on transaction commit
+        // getImages() returns a copy, so unlink through the entity to trigger orphan removal
+        Image image = product.getImages().stream()
+                .filter(img -> img.getId().equals(imgId))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND,
+                        "Image not found: " + imgId
+                ));
+        product.removeImage(image);
+        previewResolver.evict(List.of(prodId));
+        events.publishEvent(new MenuChangedEvent(MenuChangeType.IMAGE_CHANGED, List.of(prodId)));
     }
 
 
@@ -407,37 +564,16 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    private static String sortKey(ProductSort sort, ProductListItemDto item) {
+        return switch (sort) {
+            case PRICE_ASC, PRICE_DESC -> item.getPrice().toPlainString();
+            case NAME                  -> item.getProductName();
+            case POPULARITY            -> String.valueOf(item.getPopularity());
+            case TRENDING              -> String.valueOf(item.getTrendingScore());
+        };
+    }
 
     private ProductDto toDto(Product p) {
-        Double sugar = (p instanceof Dessert ds)      ? ds.getSugarAmountGramProduct()
-                : (p instanceof MilkCocktail mc) ? mc.getSugarAmountGramProduct()
-                : null;
-        IceCreamType ice = (p instanceof MilkCocktail mc) ? mc.getIceCreamType() : null;
-
-        List<ImageDto> imgs = p.getImages().stream()
-                .map(img -> new ImageDto(
-                        img.getId(), img.isPreview(), img.getFormat().name(),
-                        ImageUtil.getImgData(img.getImage())
-                ))
-                .collect(Collectors.toList());
-
-        return new ProductDto(
-                p.getId(), p.getProductName(), p.getProductDescription(),
-                p.getPrice(), p.getCalorie(), p.getWeightInGrams(),
-                p.getCategories().stream()
-                        .map(c -> new CategoryDto(c.getId(), c.getName()))
-                        .collect(Collectors.toList()),
-                imgs,
-                (p instanceof MilkCocktail) ? "MILK_COCKTAIL"
-                        : (p instanceof Dessert)     ? "DESSERT"
-                        : (p instanceof Food)        ? "FOOD"
-                        :                              "DRINK",
-                (p instanceof Drink d) ? d.getAlcohol() : null,
-                (p instanceof Drink d) ? d.isCarbonatedDrink() : null,
-                sugar,
-                ice,
-                (p instanceof Food f)  ? f.getIngredients() : null
-        );
-
+        return ProductMapper.toDto(p);
     }
 }
@@ -0,0 +1,81 @@
+package com.danven.web_library.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Sort orders of the paginated product list. Ties are broken by product ID.
+ */
+public enum ProductSort {
+    PRICE_ASC("price"),
+    PRICE_DESC("price-desc"),
+    NAME("name"),
+    POPULARITY("popularity"),
+    /** Time-decayed popularity, served from memory (see {@link PopularityTracker}). */
+    TRENDING("trending");
+
+    private final String param;
+
+    ProductSort(String param) {
+        this.param = param;
+    }
+
+    /**
+     * @return the request parameter value of this sort order
+     */
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * @param param a request parameter value
+     * @return the sort order with that value, or empty if there is none
+     */
+    public static Optional<ProductSort> fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(s -> s.param.equals(param))
+                .findFirst();
+    }
+
+    /**
+     * Cursors are the URL-safe Base64 encoding of "sort|id|key"; the sort
+     * order is included so that a cursor cannot be replayed with another sort.
+     *
+     * @param key the sort key of the last row of a page
+     * @param id  the ID of that row
+     * @return the cursor of the next page
+     */
+    public String encodeCursor(String key, Long id) {
+        String raw = name() + "|" + id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor a cursor of this sort order, or null
+     * @return {key, id} of the cursor, or null for the first page
+     * @throws ResponseStatusException if the cursor is malformed or belongs to another sort order
+     */
+    public String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        // the key comes last because product names may contain the separator
+        String[] parts = raw.split("\\|", 3);
+        if (parts.length != 3 || !parts[0].equals(name()) || !parts[1].matches("\\d+")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        return new String[]{parts[2], parts[1]};
+    }
+}
@@ -0,0 +1,29 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.RecommendationDto;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Service interface for "often ordered with" product suggestions learned
+ * from past orders.
+ */
+public interface RecommendationService {
+
+    /**
+     * Suggest products often ordered together with the given ones, e.g. the
+     * product being viewed or the contents of a cart. Only products currently
+     * on the menu are suggested, never one of the given products.
+     *
+     * @param productIds the products to find companions for
+     * @param limit      maximum number of suggestions
+     * @return the suggestions, best first; empty if there is no order history yet
+     */
+    List<RecommendationDto> recommend(Collection<Long> productIds, int limit);
+
+    /**
+     * Rebuild the model from the complete order history.
+     */
+    void rebuild();
+}
@@ -0,0 +1,161 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.dto.BasketLineDto;
+import com.danven.web_library.dto.ImageDto;
+import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.dto.RecommendationDto;
+import com.danven.web_library.repository.ProductOrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps a {@link CoOccurrenceMatrix} of all orders in memory.
+ * <p>
+ * Every submitted order is added to the matrix once it has committed, and the
+ * matrix is periodically rebuilt from the order history (in parallel), which
+ * also drops products and orders deleted in the meantime. Orders committed
+ * while a rebuild is loading the history are replayed into the new matrix
+ * unless the load already saw them, so none is lost or counted twice.
+ * Suggestions are read under a read lock and take microseconds.
+ */
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    private final ProductOrderRepository productOrderRepo;
+    private final MenuSnapshotService    menuSnapshots;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Guarded by {@code lock}. */
+    private CoOccurrenceMatrix matrix = new CoOccurrenceMatrix();
+
+    /** Orders submitted while a rebuild is running, null otherwise; guarded by {@code lock}. */
+    private Map<Long, long[]> submittedDuringRebuild;
+
+    public RecommendationServiceImpl(ProductOrderRepository productOrderRepo,
+                                     MenuSnapshotService menuSnapshots) {
+        this.productOrderRepo = productOrderRepo;
+        this.menuSnapshots    = menuSnapshots;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RecommendationDto> recommend(Collection<Long> productIds, int limit) {
+        MenuSnapshot menu = menuSnapshots.current();
+        List<CoOccurrenceMatrix.Suggestion> suggestions;
+        lock.readLock().lock();
+        try {
+            suggestions = matrix.topK(productIds, limit, id -> menu.getProduct(id).isPresent());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<RecommendationDto> result = new ArrayList<>(suggestions.size());
+        for (CoOccurrenceMatrix.Suggestion s : suggestions) {
+            menu.getProduct(s.getProductId()).ifPresent(p -> result.add(new RecommendationDto(
+                    p.getId(), p.getProductName(), p.getPrice(), previewUrl(p), s.getScore())));
+        }
+        return result;
+    }
+
+    /**
+     * Adds a submitted order to the model.
+     *
+     * @param event the committed order
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderSubmitted(OrderSubmittedEvent event) {
+        long[] basket = event.getProductIds().stream().mapToLong(Long::longValue).toArray();
+        lock.writeLock().lock();
+        try {
+            matrix.addBasket(basket);
+            if (submittedDuringRebuild != null) {
+                submittedDuringRebuild.put(event.getOrderId(), basket);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the first model once sample data has been loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs periodically; concurrent calls are serialized.
+     */
+    @Override
+    @Scheduled(
+            initialDelayString = "${palatos.recommendations.rebuild-interval-ms:3600000}",
+            fixedDelayString   = "${palatos.recommendations.rebuild-interval-ms:3600000}"
+    )
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            submittedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CoOccurrenceMatrix built = null;
+        Set<Long> loadedOrders = new HashSet<>();
+        try {
+            List<long[]> baskets = new ArrayList<>();
+            List<BasketLineDto> lines = productOrderRepo.findAllBasketLines();
+            int start = 0;
+            for (int i = 1; i <= lines.size(); i++) {
+                if (i == lines.size() || !lines.get(i).getOrderId().equals(lines.get(start).getOrderId())) {
+                    long[] basket = new long[i - start];
+                    for (int k = start; k < i; k++) {
+                        basket[k - start] = lines.get(k).getProductId();
+                    }
+                    baskets.add(basket);
+                    loadedOrders.add(lines.get(start).getOrderId());
+                    start = i;
+                }
+            }
+            built = CoOccurrenceMatrix.build(baskets);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built != null) {
+                    for (Map.Entry<Long, long[]> e : submittedDuringRebuild.entrySet()) {
+                        if (!loadedOrders.contains(e.getKey())) {
+                            built.addBasket(e.getValue());
+                        }
+                    }
+                    matrix = built;
+                }
+                submittedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static String previewUrl(ProductDto p) {
+        if (p.getImages() == null) {
+            return null;
+        }
+        return p.getImages().stream()
+                .filter(ImageDto::isPreview)
+                .map(ImageDto::getUrl)
+                .findFirst()
+                .orElse(null);
+    }
+}
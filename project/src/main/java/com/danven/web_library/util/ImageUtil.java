@@ -1,20 +1,49 @@
 package com.danven.web_library.util;
 
-import java.util.Base64;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
- * Utility class for image-related operations, including conversion of byte array to Base64 string.
+ * Utility class for image-related operations, including building the URL
+ * under which the raw bytes of a stored image are served and hashing image content.
  */
 public class ImageUtil {
 
     /**
-     * Converts a byte array representing image data into a Base64 encoded string.
+     * Base path of the binary image endpoint.
+     */
+    public static final String IMAGE_URL_PREFIX = "/images/";
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Builds the URL from which the browser fetches the raw bytes of an image.
      *
-     * @param byteData The byte array containing image data.
-     * @return A Base64 encoded string representation of the image data.
+     * @param imageId the ID of the stored image
+     * @return a relative URL such as {@code /images/42}
      */
-    public static String getImgData(byte[] byteData) {
-        return Base64.getEncoder().encodeToString(byteData);
+    public static String getImageUrl(Long imageId) {
+        return IMAGE_URL_PREFIX + imageId;
     }
-}
 
+    /**
+     * Computes the SHA-256 digest of the given bytes as a lowercase hex string.
+     *
+     * @param data the bytes to hash
+     * @return 64-character hex digest
+     */
+    public static String sha256Hex(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            byte[] hex = new byte[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i]     = HEX[(digest[i] >> 4) & 0xF];
+                hex[2 * i + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(hex, StandardCharsets.US_ASCII);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
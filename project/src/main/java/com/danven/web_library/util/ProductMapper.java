@@ -0,0 +1,78 @@
+package com.danven.web_library.util;
+
+import com.danven.web_library.domain.product.*;
+import com.danven.web_library.dto.CategoryDto;
+import com.danven.web_library.dto.ImageDto;
+import com.danven.web_library.dto.ProductDto;
+import com.danven.web_library.dto.ProductListItemDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class converting {@link Product} entities (of any subtype) into {@link ProductDto}s,
+ * and those into slim {@link ProductListItemDto}s.
+ * Images are referenced by URL only (see {@link ImageUtil}).
+ */
+public class ProductMapper {
+
+    /**
+     * Converts a product with its categories and images into a DTO.
+     * The categories and images must already be initialized.
+     *
+     * @param p the product to convert
+     * @return the resulting {@link ProductDto}
+     */
+    public static ProductDto toDto(Product p) {
+        Double sugar = (p instanceof Dessert ds)      ? ds.getSugarAmountGramProduct()
+                : (p instanceof MilkCocktail mc) ? mc.getSugarAmountGramProduct()
+                : null;
+        IceCreamType ice = (p instanceof MilkCocktail mc) ? mc.getIceCreamType() : null;
+
+        List<ImageDto> imgs = p.getImages().stream()
+                .map(img -> new ImageDto(
+                        img.getId(), img.isPreview(), img.getFormat().name(),
+                        ImageUtil.getImageUrl(img.getId())
+                ))
+                .collect(Collectors.toList());
+
+        return new ProductDto(
+                p.getId(), p.getProductName(), p.getProductDescription(),
+                p.getPrice(), p.getCalorie(), p.getWeightInGrams(),
+                p.getCategories().stream()
+                        .map(c -> new CategoryDto(c.getId(), c.getName()))
+                        .collect(Collectors.toList()),
+                imgs,
+                (p instanceof MilkCocktail) ? "MILK_COCKTAIL"
+                        : (p instanceof Dessert)     ? "DESSERT"
+                        : (p instanceof Food)        ? "FOOD"
+                        :                              "DRINK",
+                (p instanceof Drink d) ? d.getAlcohol() : null,
+                (p instanceof Drink d) ? d.isCarbonatedDrink() : null,
+                sugar,
+                ice,
+                (p instanceof Food f)  ? f.getIngredients() : null
+        );
+    }
+
+    /**
+     * Converts a product DTO into a list item with its preview image and
+     * category names; the popularity counter is not set.
+     *
+     * @param p the product to convert
+     * @return the resulting {@link ProductListItemDto}
+     */
+    public static ProductListItemDto toListItem(ProductDto p) {
+        ImageDto preview = p.getImages().stream()
+                .filter(ImageDto::isPreview)
+                .findFirst()
+                .orElse(null);
+        ProductListItemDto item = new ProductListItemDto(
+                p.getId(), p.getProductName(), p.getPrice(), 0, preview == null ? null : preview.getId());
+        item.setPreviewUrl(preview == null ? null : preview.getUrl());
+        item.setCategoryNames(p.getCategories().stream()
+                .map(CategoryDto::getName)
+                .collect(Collectors.toList()));
+        return item;
+    }
+}
@@ -0,0 +1,65 @@
+package com.danven.web_library.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class turning free text into search terms.
+ * Text is split on everything that is not a letter or digit, lower-cased and
+ * folded to plain ASCII letters where possible, so that Polish and English
+ * spellings match ("żurek" and "zurek", "Łosoś" and "losos").
+ */
+public class SearchTextUtil {
+
+    /**
+     * Splits text into normalized terms, keeping duplicates and their order.
+     *
+     * @param text the text to analyze; may be null
+     * @return the terms, possibly empty
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cases text and strips diacritics. Letters that Unicode does not
+     * decompose (such as the Polish "ł") are mapped explicitly.
+     *
+     * @param text the text to fold
+     * @return the folded text
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            switch (c) {
+                case 'ł', 'Ł' -> sb.append('l');
+                case 'ß'      -> sb.append("ss");
+                case 'ø', 'Ø' -> sb.append('o');
+                case 'æ', 'Æ' -> sb.append("ae");
+                default       -> sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,259 @@
+// Live kitchen board: keeps the ticket cards of employee/card current over the
+// kitchen display WebSocket. The page renders the board as of (epoch, seq); the
+// socket replays the changes after it, or sends a snapshot when they are gone.
+(function () {
+    const script = document.currentScript;
+    const tickets = document.getElementById('tickets');
+    const noOrders = document.getElementById('noOrders');
+    const stateBadge = document.getElementById('liveState');
+    const stationSelect = document.getElementById('stationFilter');
+    const csrfParam = script.dataset.csrfParam;
+    const csrfToken = script.dataset.csrfToken;
+    const wsUrl = (location.protocol === 'https:' ? 'wss://' : 'ws://') + location.host + script.dataset.wsPath;
+
+    const HEARTBEAT_TIMEOUT_MS = 40000;
+    const MAX_RETRY_MS = 15000;
+
+    let epoch = Number(script.dataset.epoch);
+    let seq = Number(script.dataset.seq);
+    let socket = null;
+    let watchdog = null;
+    let retryMs = 1000;
+
+    const savedStation = localStorage.getItem('kitchenStation') || '';
+    stationSelect.value = savedStation;
+    // a station other than "All" cannot resume from the unfiltered page
+    let needSnapshot = savedStation !== '';
+
+    stationSelect.addEventListener('change', () => {
+        localStorage.setItem('kitchenStation', stationSelect.value);
+        needSnapshot = true;
+        subscribe();
+    });
+
+    function setState(text, cls) {
+        stateBadge.textContent = text;
+        stateBadge.className = 'badge ' + cls;
+    }
+
+    function connect() {
+        setState('Connecting…', 'badge-secondary');
+        socket = new WebSocket(wsUrl);
+        socket.onopen = () => {
+            retryMs = 1000;
+            setState('Live', 'badge-success');
+            subscribe();
+            armWatchdog();
+        };
+        socket.onmessage = (e) => {
+            armWatchdog();
+            handle(JSON.parse(e.data));
+        };
+        socket.onclose = () => {
+            clearTimeout(watchdog);
+            setState('Reconnecting…', 'badge-warning');
+            setTimeout(connect, retryMs);
+            retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+        };
+    }
+
+    function subscribe() {
+        if (!socket || socket.readyState !== WebSocket.OPEN) {
+            return;
+        }
+        const types = stationSelect.value ? stationSelect.value.split(',') : [];
+        socket.send(JSON.stringify({
+            types: types,
+            tables: [],
+            epoch: needSnapshot ? null : epoch,
+            since: needSnapshot ? null : seq
+        }));
+    }
+
+    // no message (not even a ping) for too long: the connection is dead
+    function armWatchdog() {
+        clearTimeout(watchdog);
+        watchdog = setTimeout(() => socket.close(), HEARTBEAT_TIMEOUT_MS);
+    }
+
+    function handle(msg) {
+        if (msg.type === 'snapshot') {
+            epoch = msg.epoch;
+            seq = msg.seq;
+            needSnapshot = false;
+            tickets.innerHTML = '';
+            msg.tickets.forEach(upsert);
+        } else if (msg.type === 'change') {
+            if (msg.epoch !== epoch || msg.seq <= seq) {
+                return;
+            }
+            seq = msg.seq;
+            if (!msg.ticket || msg.ticket.status === 'CANCELED') {
+                remove(msg.orderId);
+            } else {
+                upsert(msg.ticket);
+            }
+        }
+        noOrders.classList.toggle('d-none', tickets.children.length > 0);
+    }
+
+    function cardOf(orderId) {
+        return tickets.querySelector('[data-order-id="' + orderId + '"]');
+    }
+
+    function remove(orderId) {
+        cardOf(orderId)?.remove();
+    }
+
+    // cards are kept in (order time, ID) order, like the board query
+    function upsert(ticket) {
+        const card = renderTicket(ticket);
+        const existing = cardOf(ticket.id);
+        if (existing) {
+            existing.replaceWith(card);
+            return;
+        }
+        const time = Date.parse(ticket.orderTime);
+        const next = Array.from(tickets.children).find(c => {
+            const t = Date.parse(c.dataset.orderTime);
+            return t > time || (t === time && Number(c.dataset.orderId) > ticket.id);
+        });
+        tickets.insertBefore(card, next || null);
+    }
+
+    function esc(value) {
+        const div = document.createElement('div');
+        div.textContent = value == null ? '' : String(value);
+        return div.innerHTML;
+    }
+
+    function money(value) {
+        return Number(value).toFixed(2).replace('.', ',') + ' PLN';
+    }
+
+    function csrfInput() {
+        return csrfParam ? '<input type="hidden" name="' + esc(csrfParam) + '" value="' + esc(csrfToken) + '"/>' : '';
+    }
+
+    function renderItem(po) {
+        const image = po.previewUrl
+            ? esc(po.previewUrl) + (po.previewUrl.includes('?') ? '&' : '?') + 'w=200'
+            : '/static/images/no-image.png';
+        return `
+      <div class="mb-4">
+        <div class="d-flex align-items-center mb-2">
+          <img src="${image}" class="rounded mr-3" style="width:64px; height:64px; object-fit:cover;"
+               alt="${po.previewUrl ? 'Product image' : 'No image'}"/>
+          <h5 class="mb-0">${esc(po.productName)}</h5>
+        </div>
+        <dl class="row mb-0">
+          <dt class="col-8">Quantity:</dt>
+          <dd class="col-4 text-right mb-2">${esc(po.amount)}</dd>
+          <dt class="col-8">Unit Price:</dt>
+          <dd class="col-4 text-right mb-2">${money(po.unitPrice)}</dd>
+          <dt class="col-8">Total for Product:</dt>
+          <dd class="col-4 text-right mb-0">${money(po.subtotal)}</dd>
+        </dl>
+        <hr/>
+      </div>`;
+    }
+
+    function renderActions(t) {
+        let html = '';
+        if (t.status === 'NEW') {
+            html += `
+      <div id="buttonsSection-${t.id}" class="text-center mt-3">
+        <button type="button" class="btn btn-success btn-lg btn-block" onclick="showDropdownForm(${t.id})">Accept</button>
+        <button type="button" class="btn btn-danger btn-lg btn-block mt-2" onclick="showCancelForm(${t.id})">Cancel</button>
+      </div>`;
+        }
+        if (t.status !== 'CANCELED' && t.status !== 'COMPLETED') {
+            const opt = (value, current) =>
+                `<option value="${value}"${value === current ? ' selected' : ''}>${value}</option>`;
+            html += `
+      <form action="/employee/order/updateStatus" method="post" id="dropdownForm-${t.id}"
+            class="${t.status !== 'NEW' ? 'mt-3' : 'd-none mt-3'}" style="padding: 0 1rem;">
+        <input type="hidden" name="orderId" value="${t.id}"/>
+        <input type="hidden" name="version" value="${esc(t.version)}"/>
+        ${csrfInput()}
+        <div class="form-group">
+          <label for="statusSelect-${t.id}">Status</label>
+          <select class="form-control" name="status" id="statusSelect-${t.id}">
+            ${opt('IN_PROGRESS', t.status)}${opt('SERVED', t.status)}
+          </select>
+        </div>
+        <div class="form-group mt-3">
+          <label for="paymentSelect-${t.id}">Payment</label>
+          <select class="form-control" name="paymentStatus" id="paymentSelect-${t.id}">
+            ${opt('UNPAID', t.paymentStatus)}${opt('PAID', t.paymentStatus)}
+          </select>
+        </div>
+        <button type="submit" class="btn btn-dark btn-block mt-3">Update</button>
+      </form>`;
+        }
+        if (t.status === 'NEW') {
+            html += `
+      <div class="d-none mt-3" id="cancelForm-${t.id}">
+        <div class="alert alert-warning text-center">
+          <p class="mb-2 font-weight-normal">
+            <strong>Choose an action:</strong><br/>
+            Cancel — marks the order as canceled but keeps it in the system.<br/>
+            Delete — removes it permanently.
+          </p>
+          <form action="/employee/order/cancel" method="post" class="d-inline">
+            <input type="hidden" name="orderId" value="${t.id}"/>
+            <input type="hidden" name="version" value="${esc(t.version)}"/>
+            <input type="hidden" name="deleteCompletely" value="false"/>
+            ${csrfInput()}
+            <button type="submit" class="btn btn-sm btn-outline-warning">Cancel</button>
+          </form>
+          <form action="/employee/order/cancel" method="post" class="d-inline"
+                onsubmit="return confirm('Are you sure you want to permanently delete this order?');">
+            <input type="hidden" name="orderId" value="${t.id}"/>
+            <input type="hidden" name="deleteCompletely" value="true"/>
+            ${csrfInput()}
+            <button type="submit" class="btn btn-sm btn-outline-danger ml-2">Delete</button>
+          </form>
+        </div>
+      </div>`;
+        }
+        return html;
+    }
+
+    function renderTicket(t) {
+        const completed = t.status === 'COMPLETED';
+        const feedback = completed
+            ? `<a href="/employee/order/${t.id}/feedbacks"
+                  class="btn ${t.hasFeedback ? 'btn-primary' : 'btn-secondary disabled'}">
+                 ${t.hasFeedback ? 'View Feedback' : 'No Feedback Yet'}</a>`
+            : '<span class="text-muted small">Feedback unavailable</span>';
+        const card = document.createElement('div');
+        card.className = 'card mb-5 shadow-sm';
+        card.dataset.orderId = t.id;
+        card.dataset.orderTime = t.orderTime;
+        card.innerHTML = `
+    <div class="card-body p-4">
+      ${t.items.map(renderItem).join('')}
+      <dl class="row mb-2">
+        <dt class="col-8 font-weight-bold">Subtotal:</dt>
+        <dd class="col-4 text-right">${money(t.subtotal)}</dd>
+        <dt class="col-8 font-weight-bold">Service Fee (10%):</dt>
+        <dd class="col-4 text-right">${money(t.serviceFee)}</dd>
+        <dt class="col-8 font-weight-bold">Total:</dt>
+        <dd class="col-4 text-right">${money(t.total)}</dd>
+      </dl>
+      <hr/>
+      <p><strong>Order ID:</strong> <span>ORD-${String(t.id).padStart(6, '0')}</span></p>
+      <p><strong>Date and Time:</strong> <span>${esc(String(t.orderTime).replace('T', ' ').substring(0, 19))}</span></p>
+      <p><strong>Table Number:</strong> <span>${esc(t.tableNumber)}</span></p>
+      ${t.notes && t.notes.trim() ? `<p><strong>Notes:</strong> <span>${esc(t.notes)}</span></p>` : ''}
+      ${completed ? `<div class="alert alert-success text-center mt-3"><strong>Order Completed</strong><br/>
+        Status: <span>${esc(t.status)}</span>, Payment: <span>${esc(t.paymentStatus)}</span></div>` : ''}
+      <div class="text-center mt-4">${feedback}</div>
+      ${renderActions(t)}
+    </div>`;
+        return card;
+    }
+
+    connect();
+})();
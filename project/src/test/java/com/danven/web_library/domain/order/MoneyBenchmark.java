@@ -0,0 +1,109 @@
+package com.danven.web_library.domain.order;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares order totals computed with {@link Money} against the previous
+ * {@link BigDecimal} arithmetic, for a basket of lines and for summing many
+ * final prices in a report. Run with {@code -prof gc} to see the allocation
+ * rate, e.g. from the IDE via {@link #main}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private static final BigDecimal SERVICE_FEE_RATE = BigDecimal.valueOf(Order.DEFAULT_SERVICE_FEE_RATE);
+    private static final double     DISCOUNT_RATE    = 0.15;
+
+    @Param({"5", "50"})
+    private int lines;
+
+    @Param({"10000"})
+    private int orders;
+
+    private BigDecimal[] decimalPrices;
+    private Money[]      moneyPrices;
+    private int[]        amounts;
+    private BigDecimal[] decimalTotals;
+    private long[]       minorTotals;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimalPrices = new BigDecimal[lines];
+        moneyPrices   = new Money[lines];
+        amounts       = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            long minor = 500 + random.nextInt(10_000);
+            decimalPrices[i] = BigDecimal.valueOf(minor, 2);
+            moneyPrices[i]   = Money.ofMinor(minor);
+            amounts[i]       = 1 + random.nextInt(4);
+        }
+        decimalTotals = new BigDecimal[orders];
+        minorTotals   = new long[orders];
+        for (int i = 0; i < orders; i++) {
+            long minor = 1_000 + random.nextInt(100_000);
+            decimalTotals[i] = BigDecimal.valueOf(minor, 2);
+            minorTotals[i]   = minor;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal orderTotalBigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO.setScale(2);
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.add(decimalPrices[i].multiply(BigDecimal.valueOf(amounts[i])));
+        }
+        BigDecimal fee = subtotal.multiply(SERVICE_FEE_RATE).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal base = subtotal.add(fee);
+        BigDecimal discount = base.multiply(BigDecimal.valueOf(DISCOUNT_RATE)).setScale(2, RoundingMode.HALF_UP);
+        return base.subtract(discount);
+    }
+
+    @Benchmark
+    public Money orderTotalMoney() {
+        Money subtotal = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.plus(moneyPrices[i].times(amounts[i]));
+        }
+        Money base = subtotal.plus(subtotal.timesRate(Order.DEFAULT_SERVICE_FEE_RATE));
+        return base.minus(base.timesRate(DISCOUNT_RATE));
+    }
+
+    @Benchmark
+    public double revenueBigDecimal() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal total : decimalTotals) {
+            sum = sum.add(total);
+        }
+        return sum.doubleValue();
+    }
+
+    @Benchmark
+    public long revenueMinorUnits() {
+        long sum = 0;
+        for (long total : minorTotals) {
+            sum += total;
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.danven.web_library.domain.order;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rounding and overflow rules of {@link Money}.
+ */
+class MoneyTest {
+
+	@ParameterizedTest
+	@CsvSource({
+			"12.345, 1235",
+			"12.344, 1234",
+			"-12.345, -1235",
+			"0.005, 1",
+			"7, 700"
+	})
+	void parsingRoundsHalfUpToTheGrosz(String amount, long minorUnits) {
+		assertThat(Money.of(new BigDecimal(amount)).getMinorUnits()).isEqualTo(minorUnits);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"1235, 0.10, 124",
+			"10, 0.15, 2",
+			"10, 0.14, 1",
+			"-10, 0.15, -2",
+			"-1235, 0.10, -124",
+			"999, 0, 0",
+			"1000, 1, 1000"
+	})
+	void ratesRoundHalfAwayFromZeroToTheGrosz(long minorUnits, double rate, long expected) {
+		assertThat(Money.ofMinor(minorUnits).timesRate(rate).getMinorUnits()).isEqualTo(expected);
+	}
+
+	@Test
+	void arithmeticIsExact() {
+		Money price = Money.ofMinor(1999);
+
+		assertThat(price.times(3)).isEqualTo(Money.ofMinor(5997));
+		assertThat(price.plus(Money.ofMinor(1))).isEqualTo(Money.ofMinor(2000));
+		assertThat(price.minus(Money.ofMinor(2000)).isNegative()).isTrue();
+		assertThat(price.toBigDecimal()).isEqualTo(new BigDecimal("19.99"));
+		assertThat(price).hasToString("19.99 PLN");
+		assertThat(Money.ofMinor(0)).isSameAs(Money.ZERO);
+	}
+
+	@Test
+	void overflowIsRejected() {
+		assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE).times(2)).isInstanceOf(ArithmeticException.class);
+		assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)))
+				.isInstanceOf(ArithmeticException.class);
+		assertThatThrownBy(() -> Money.of(new BigDecimal("1e30"))).isInstanceOf(ArithmeticException.class);
+	}
+
+	@Test
+	void currenciesAreNotMixed() {
+		Money euro = Money.ofMinor(100, Currency.getInstance("EUR"));
+
+		assertThatThrownBy(() -> euro.plus(Money.ofMinor(100))).isInstanceOf(IllegalArgumentException.class);
+		assertThat(euro).isNotEqualTo(Money.ofMinor(100));
+	}
+
+	@Test
+	void currenciesWithoutMinorUnitsCountWholeUnits() {
+		Money amount = Money.ofMinor(5, Currency.getInstance("XXX"));
+
+		assertThat(amount.toDouble()).isEqualTo(5.0);
+		assertThat(amount.toBigDecimal()).isEqualTo(new BigDecimal("5"));
+		assertThat(Money.ofMinor(1235).toDouble()).isEqualTo(12.35);
+	}
+}
@@ -0,0 +1,65 @@
+package com.danven.web_library.domain.order;
+
+import com.danven.web_library.exceptions.IllegalOrderTransitionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Allowed and rejected transitions of {@link OrderStateMachine}.
+ */
+class OrderStateMachineTest {
+
+	@ParameterizedTest
+	@CsvSource({
+			"NEW,         UNPAID, IN_PROGRESS, UNPAID, IN_PROGRESS",
+			"NEW,         UNPAID, CANCELED,    UNPAID, CANCELED",
+			"NEW,         UNPAID, COMPLETED,   PAID,   COMPLETED",
+			"CANCELED,    UNPAID, NEW,         UNPAID, NEW",
+			"IN_PROGRESS, UNPAID, SERVED,      UNPAID, SERVED",
+			"IN_PROGRESS, UNPAID, IN_PROGRESS, PAID,   IN_PROGRESS",
+			"IN_PROGRESS, PAID,   COMPLETED,   PAID,   COMPLETED",
+			"SERVED,      UNPAID, IN_PROGRESS, UNPAID, IN_PROGRESS",
+			"SERVED,      UNPAID, SERVED,      PAID,   COMPLETED",
+			"COMPLETED,   PAID,   COMPLETED,   PAID,   COMPLETED"
+	})
+	void allowedTransitionsReturnTheStatusToStore(OrderStatus status, PaymentStatus payment,
+												  OrderStatus targetStatus, PaymentStatus targetPayment,
+												  OrderStatus stored) {
+		assertThat(OrderStateMachine.transition(status, payment, targetStatus, targetPayment)).isEqualTo(stored);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			// not in the status table
+			"COMPLETED,   PAID,   IN_PROGRESS, PAID",
+			"IN_PROGRESS, UNPAID, CANCELED,    UNPAID",
+			"IN_PROGRESS, UNPAID, NEW,         UNPAID",
+			"CANCELED,    UNPAID, IN_PROGRESS, UNPAID",
+			// payment cannot be taken back
+			"IN_PROGRESS, PAID,   IN_PROGRESS, UNPAID",
+			// not payable in this status
+			"NEW,         UNPAID, NEW,         PAID",
+			"CANCELED,    UNPAID, CANCELED,    PAID",
+			// completion requires payment
+			"IN_PROGRESS, UNPAID, COMPLETED,   UNPAID",
+			"SERVED,      UNPAID, COMPLETED,   UNPAID"
+	})
+	void forbiddenTransitionsAreRejected(OrderStatus status, PaymentStatus payment,
+										 OrderStatus targetStatus, PaymentStatus targetPayment) {
+		assertThatThrownBy(() -> OrderStateMachine.transition(status, payment, targetStatus, targetPayment))
+				.isInstanceOf(IllegalOrderTransitionException.class);
+	}
+
+	@Test
+	void onlyCompletedIsFinal() {
+		for (OrderStatus status : OrderStatus.values()) {
+			assertThat(OrderStateMachine.isFinal(status)).isEqualTo(status == OrderStatus.COMPLETED);
+		}
+		assertThat(OrderStateMachine.canMove(OrderStatus.COMPLETED, OrderStatus.COMPLETED)).isFalse();
+		assertThat(OrderStateMachine.canMove(OrderStatus.SERVED, OrderStatus.SERVED)).isTrue();
+	}
+}
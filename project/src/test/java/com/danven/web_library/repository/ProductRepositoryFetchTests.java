@@ -0,0 +1,132 @@
+package com.danven.web_library.repository;
+
+import com.danven.web_library.domain.product.*;
+import com.danven.web_library.dto.ProductListItemDto;
+import com.danven.web_library.util.ProductMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards against N+1 selects and cartesian join-fetches when reading the catalog.
+ * Statements are counted for the test thread only, as background jobs (image
+ * derivatives, popularity) query the database concurrently.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.danven.web_library.repository.ProductRepositoryFetchTests$ThreadStatementCounter")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ProductRepositoryFetchTests {
+
+	@Autowired
+	private ProductRepository productRepo;
+
+	@Autowired
+	private CategoryRepository categoryRepo;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void readingTheCatalogTakesAConstantNumberOfStatements() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		long small = statementsToReadCatalog(tx, productRepo::findAllProducts);
+		int before = tx.execute(status -> productRepo.findAll().size());
+
+		tx.executeWithoutResult(status -> productRepo.saveAll(sampleProducts(40)));
+
+		long large = statementsToReadCatalog(tx, productRepo::findAllProducts);
+		long byIds = statementsToReadCatalog(tx, () -> productRepo.findAllByIdWithCategoriesAndImages(
+				productRepo.findIdsAfter(0, PageRequest.of(0, 1000))));
+
+		int after = tx.execute(status -> productRepo.findAll().size());
+		assertThat(after).isEqualTo(before + 40);
+		// one query for the products, one subselect each for categories, images and ingredients
+		assertThat(large).isEqualTo(small);
+		// plus the query for the IDs
+		assertThat(byIds).isEqualTo(small + 1);
+	}
+
+	@Test
+	void keysetPagesListAProductWithSeveralPreviewsOnce() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Long id = tx.execute(status -> {
+			Product product = sampleProducts(1).get(0);
+			product.getImages().forEach(image -> image.setPreview(true));
+			return productRepo.save(product).getId();
+		});
+
+		List<Long> ids = tx.execute(status -> productRepo.findPageByName(0L, "", 0L, PageRequest.of(0, 1000))
+				.stream()
+				.map(ProductListItemDto::getId)
+				.toList());
+
+		assertThat(ids).containsOnlyOnce(id);
+		assertThat(ids).doesNotHaveDuplicates();
+	}
+
+	private long statementsToReadCatalog(TransactionTemplate tx, Supplier<List<Product>> query) {
+		return tx.execute(status -> {
+			long before = ThreadStatementCounter.count();
+			query.get().forEach(ProductMapper::toDto);
+			return ThreadStatementCounter.count() - before;
+		});
+	}
+
+	private List<Product> sampleProducts(int count) {
+		List<Category> categories = categoryRepo.findAll();
+		List<Product> products = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Set<Category> cats = Set.of(categories.get(i % categories.size()),
+					categories.get((i + 1) % categories.size()));
+			Product p = switch (i % 4) {
+				case 0 -> new Food("Food " + i, "Test food", BigDecimal.TEN, 300, 250, cats,
+						List.of("flour", "egg", "milk"));
+				case 1 -> new Drink("Drink " + i, "Test drink", BigDecimal.ONE, 50, 300, 0, true, cats);
+				case 2 -> new Dessert("Dessert " + i, "Test dessert", BigDecimal.TEN, 400, 150, 0.3, cats);
+				default -> new MilkCocktail("Shake " + i, "Test shake", BigDecimal.TEN, 350, 400, 0, false,
+						IceCreamType.VANILLA, 0.2, cats);
+			};
+			for (int k = 0; k < 2; k++) {
+				Image image = new Image();
+				image.setContentHash(String.format("%064x", i * 2L + k));
+				image.setFormat(ImageFormat.PNG);
+				image.setPreview(k == 0);
+				p.addImage(image);
+			}
+			products.add(p);
+		}
+		return products;
+	}
+
+	/**
+	 * Counts the SQL statements prepared by the current thread.
+	 */
+	public static final class ThreadStatementCounter implements StatementInspector {
+
+		private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+		static long count() {
+			return COUNT.get()[0];
+		}
+
+		@Override
+		public String inspect(String sql) {
+			COUNT.get()[0]++;
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.PalaTOSApplication;
+import com.danven.web_library.domain.order.Order;
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+import com.danven.web_library.exceptions.OrderConflictException;
+import com.danven.web_library.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many writers flipping the same order between IN_PROGRESS and SERVED, as
+ * several kitchen tablets would: through {@link OrderStateService} (one
+ * conditional UPDATE per attempt, retried on conflict) and through the
+ * previous load-modify-save of the entity, which now fails on its version
+ * instead of silently overwriting. The aux counters report how many changes
+ * were applied and how many were reported as conflicts.
+ * <p>
+ * Boots the whole application on a random port with the in-memory database
+ * and uses the order created by the sample data.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class OrderStateBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class App {
+
+        ConfigurableApplicationContext context;
+        OrderStateService              orderStates;
+        OrderPersistenceService        orderService;
+        OrderRepository                orderRepo;
+        Long                           orderId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(PalaTOSApplication.class)
+                    .properties("server.port=0", "spring.main.banner-mode=off",
+                            "spring.jpa.properties.hibernate.generate_statistics=false")
+                    .run();
+            orderStates  = context.getBean(OrderStateService.class);
+            orderService = context.getBean(OrderPersistenceService.class);
+            orderRepo    = context.getBean(OrderRepository.class);
+            orderId      = orderRepo.findAll().get(0).getId();
+            orderStates.change(orderId, OrderStatus.IN_PROGRESS, PaymentStatus.UNPAID, null);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Writer {
+
+        public long applied;
+        public long conflicts;
+
+        boolean serve;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            applied   = 0;
+            conflicts = 0;
+        }
+
+        OrderStatus nextStatus() {
+            serve = !serve;
+            return serve ? OrderStatus.SERVED : OrderStatus.IN_PROGRESS;
+        }
+    }
+
+    @Benchmark
+    public void conditionalUpdate(App app, Writer writer) {
+        try {
+            app.orderStates.change(app.orderId, writer.nextStatus(), PaymentStatus.UNPAID, null);
+            writer.applied++;
+        } catch (OrderConflictException e) {
+            writer.conflicts++;
+        }
+    }
+
+    @Benchmark
+    public void entityReadModifyWrite(App app, Writer writer) {
+        try {
+            Order order = app.orderService.findById(app.orderId);
+            order.setStatus(writer.nextStatus());
+            app.orderService.save(order);
+            writer.applied++;
+        } catch (ConcurrencyFailureException e) {
+            writer.conflicts++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderStateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package com.danven.web_library.service;
+
+import com.danven.web_library.PalaTOSApplication;
+import com.danven.web_library.domain.order.Money;
+import com.danven.web_library.domain.order.Order;
+import com.danven.web_library.domain.order.OrderService;
+import com.danven.web_library.domain.order.OrderStatus;
+import com.danven.web_library.domain.order.PaymentStatus;
+import com.danven.web_library.domain.product.Product;
+import com.danven.web_library.domain.product.ProductOrder;
+import com.danven.web_library.domain.user.Customer;
+import com.danven.web_library.repository.OrderRepository;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of order submission at peak: 60 tables submitting at once, each
+ * waiting for its order ID. Compares the {@link OrderIntake} group commit
+ * with saving every order in its own transaction as before. Sample-time mode
+ * reports throughput as well as the p99 submission latency.
+ * <p>
+ * Boots the whole application on a random port with the in-memory database
+ * and submits copies of the order created by the sample data.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(60)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderSubmissionBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private OrderIntake                    orderIntake;
+    private OrderPersistenceService        orderPersister;
+
+    private Customer      customer;
+    private OrderService  orderService;
+    private List<Product> products = new ArrayList<>();
+    private List<Integer> amounts  = new ArrayList<>();
+    private List<Money>   prices   = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(PalaTOSApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off", "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        orderIntake    = context.getBean(OrderIntake.class);
+        orderPersister = context.getBean(OrderPersistenceService.class);
+
+        // load the template with every association the copies touch, so they can be built detached
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(tx -> {
+            Order sample = context.getBean(OrderRepository.class).findAll().get(0);
+            customer     = (Customer) Hibernate.unproxy(sample.getCustomer());
+            orderService = (OrderService) Hibernate.unproxy(sample.getOrderService());
+            Hibernate.initialize(customer.getOrders());
+            for (ProductOrder po : sample.getProductOrders()) {
+                Product product = (Product) Hibernate.unproxy(po.getProduct());
+                Hibernate.initialize(product.getProductOrders());
+                products.add(product);
+                amounts.add(po.getAmount());
+                prices.add(po.getProductOrderPrice());
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Builds a copy of the sample order. Serialized, because the customer's
+     * and the products' collections are shared by all threads.
+     */
+    private synchronized Order newOrder() {
+        Order order = new Order(5, LocalDateTime.now(), OrderStatus.NEW, PaymentStatus.UNPAID,
+                "load test", customer, orderService);
+        for (int i = 0; i < products.size(); i++) {
+            new ProductOrder(products.get(i), order, amounts.get(i), prices.get(i));
+        }
+        return order;
+    }
+
+    @Benchmark
+    public Long groupCommit() throws InterruptedException, ExecutionException {
+        return orderIntake.submit(newOrder()).get();
+    }
+
+    @Benchmark
+    public Long transactionPerOrder() {
+        return orderPersister.save(newOrder()).getId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderSubmissionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}